@@ -13,4 +13,13 @@ public class BaseException extends RuntimeException {
         super(msg);
         this.msg = msg;
     }
+
+    /**
+     * @param msg                信息
+     * @param writableStackTrace 是否记录堆栈，高频且可预期的异常(如限流)不记录堆栈
+     */
+    protected BaseException(String msg, boolean writableStackTrace) {
+        super(msg, null, false, writableStackTrace);
+        this.msg = msg;
+    }
 }
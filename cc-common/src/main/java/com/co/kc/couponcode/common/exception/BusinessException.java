@@ -7,4 +7,8 @@ public class BusinessException extends BaseException {
     public BusinessException(String msg) {
         super(msg);
     }
+
+    protected BusinessException(String msg, boolean writableStackTrace) {
+        super(msg, writableStackTrace);
+    }
 }
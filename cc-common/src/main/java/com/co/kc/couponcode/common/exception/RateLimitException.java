@@ -0,0 +1,21 @@
+package com.co.kc.couponcode.common.exception;
+
+import lombok.Getter;
+
+/**
+ * 限流异常，过载时每秒可能抛出大量，不记录堆栈
+ *
+ * @author kc
+ */
+@Getter
+public class RateLimitException extends BusinessException {
+    /**
+     * 建议的重试等待时间(毫秒)
+     */
+    private final long retryAfterMillis;
+
+    public RateLimitException(String msg, long retryAfterMillis) {
+        super(msg, false);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+}
@@ -1,5 +1,9 @@
 package com.co.kc.couponcode.common.model;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
 /**
  * 生成器接口
  *
@@ -14,4 +18,34 @@ public interface Generator<T> {
      * @throws InterruptedException 中断异常
      */
     T next() throws InterruptedException;
+
+    /**
+     * 下一批节点
+     *
+     * @param n 数量
+     * @return List<T> 下一批节点返回值
+     * @throws InterruptedException 中断异常
+     */
+    default List<T> next(int n) throws InterruptedException {
+        List<T> list = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            list.add(next());
+        }
+        return list;
+    }
+
+    /**
+     * 将至多maxElements个节点依次交给consumer，不创建中间集合
+     *
+     * @param consumer    节点消费者
+     * @param maxElements 最大数量
+     * @return 实际数量
+     * @throws InterruptedException 中断异常
+     */
+    default int drainTo(Consumer<? super T> consumer, int maxElements) throws InterruptedException {
+        for (int i = 0; i < maxElements; i++) {
+            consumer.accept(next());
+        }
+        return Math.max(maxElements, 0);
+    }
 }
@@ -0,0 +1,244 @@
+package com.co.kc.couponcode.core;
+
+import com.co.kc.couponcode.core.algo.Lcg128;
+import com.co.kc.couponcode.core.algo.Lcg128Factor;
+
+import java.nio.charset.StandardCharsets;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 券码渲染
+ * <p>
+ * 券码的输出为 no + String.format(format, code)。String.format每次都要解析格式、创建Formatter及若干中间字符串，
+ * 本类按format预编译，直接将编号与补零后的券码写入调用方提供的char[]/byte[]，也可返回String。
+ * 支持形如 前缀%[0][宽度]d后缀 的格式(前后缀不含%)，编号与券码为负数或其他格式时回退至String.format。
+ * 与String.format一样使用默认FORMAT区域的零字符，输出逐字节一致。
+ * {@link Lcg128Factor}的format中code为生成器内的位置，渲染时换算为128位券码。
+ *
+ * @author kc
+ */
+public final class CodeRenderer {
+
+    private static final Pattern DECIMAL_FORMAT = Pattern.compile("([^%]*)%(0?)([1-9]\\d{0,8})?d([^%]*)");
+    private static final ConcurrentMap<String, CodeRenderer> RENDERERS = new ConcurrentHashMap<>();
+    private static final int MAX_LONG_DIGITS = 19;
+    private static final ThreadLocal<char[]> BUFFER = new ThreadLocal<>();
+
+    private static volatile ZeroDigit zeroDigit = new ZeroDigit(Locale.US, '0');
+
+    private final String format;
+    /**
+     * format属于128位Factor时非空
+     */
+    private final Lcg128Factor wideFactor;
+    private final boolean compiled;
+    private final char[] prefix;
+    private final char[] suffix;
+    private final boolean zeroPadding;
+    private final int width;
+
+    private CodeRenderer(String format) {
+        this.format = format;
+        this.wideFactor = Lcg128Factor.ofFormat(format);
+        Matcher matcher = DECIMAL_FORMAT.matcher(format);
+        this.compiled = wideFactor == null && matcher.matches() && (matcher.group(2).isEmpty() || matcher.group(3) != null);
+        this.prefix = compiled ? matcher.group(1).toCharArray() : new char[0];
+        this.suffix = compiled ? matcher.group(4).toCharArray() : new char[0];
+        this.zeroPadding = compiled && !matcher.group(2).isEmpty();
+        this.width = compiled && matcher.group(3) != null ? Integer.parseInt(matcher.group(3)) : 0;
+    }
+
+    /**
+     * 获取format对应的渲染器，按format缓存
+     *
+     * @param format 券码格式
+     * @return 渲染器
+     */
+    public static CodeRenderer of(String format) {
+        CodeRenderer renderer = RENDERERS.get(format);
+        return renderer != null ? renderer : RENDERERS.computeIfAbsent(format, CodeRenderer::new);
+    }
+
+    /**
+     * format是否已预编译，否则渲染时回退至String.format
+     *
+     * @return 是否已预编译
+     */
+    public boolean isCompiled() {
+        return compiled;
+    }
+
+    /**
+     * 渲染结果的最大长度，调用方提供的数组从offset起至少需要该长度
+     *
+     * @return 最大长度
+     */
+    public int getMaxLength() {
+        if (wideFactor != null) {
+            return MAX_LONG_DIGITS + wideFactor.getWidth();
+        }
+        return prefix.length + 1 + MAX_LONG_DIGITS + Math.max(width, 1 + MAX_LONG_DIGITS) + suffix.length;
+    }
+
+    /**
+     * 渲染券码
+     *
+     * @param no   编号
+     * @param code 券码
+     * @return no + String.format(format, code)
+     */
+    public String render(long no, long code) {
+        if (wideFactor != null) {
+            return Lcg128.format(wideFactor, no, code);
+        }
+        if (!isRenderable(no, code)) {
+            return no + String.format(format, code);
+        }
+        char[] buffer = BUFFER.get();
+        if (buffer == null || buffer.length < getMaxLength()) {
+            buffer = new char[getMaxLength()];
+            BUFFER.set(buffer);
+        }
+        return new String(buffer, 0, write(no, code, buffer, 0, zeroDigit()));
+    }
+
+    /**
+     * 渲染券码至char数组
+     *
+     * @param no     编号
+     * @param code   券码
+     * @param out    输出数组
+     * @param offset 输出起始位置
+     * @return 写入长度
+     */
+    public int render(long no, long code, char[] out, int offset) {
+        if (!isRenderable(no, code)) {
+            String rendered = render(no, code);
+            rendered.getChars(0, rendered.length(), out, offset);
+            return rendered.length();
+        }
+        return write(no, code, out, offset, zeroDigit());
+    }
+
+    /**
+     * 渲染券码至byte数组(UTF-8)
+     *
+     * @param no     编号
+     * @param code   券码
+     * @param out    输出数组
+     * @param offset 输出起始位置
+     * @return 写入长度
+     */
+    public int render(long no, long code, byte[] out, int offset) {
+        char zero = zeroDigit();
+        if (!isRenderable(no, code) || zero != '0' || !isAscii(prefix) || !isAscii(suffix)) {
+            byte[] rendered = render(no, code).getBytes(StandardCharsets.UTF_8);
+            System.arraycopy(rendered, 0, out, offset, rendered.length);
+            return rendered.length;
+        }
+        int index = writeDigits(no, 0, (byte) ' ', out, offset);
+        for (char c : prefix) {
+            out[index++] = (byte) c;
+        }
+        index = writeDigits(code, width, (byte) (zeroPadding ? '0' : ' '), out, index);
+        for (char c : suffix) {
+            out[index++] = (byte) c;
+        }
+        return index - offset;
+    }
+
+    private boolean isRenderable(long no, long code) {
+        return compiled && no >= 0 && code >= 0;
+    }
+
+    private int write(long no, long code, char[] out, int offset, char zero) {
+        // Long.toString(no)与区域无关
+        int index = writeDigits(no, 0, '0', ' ', out, offset);
+        System.arraycopy(prefix, 0, out, index, prefix.length);
+        index += prefix.length;
+        index = writeDigits(code, width, zero, zeroPadding ? zero : ' ', out, index);
+        System.arraycopy(suffix, 0, out, index, suffix.length);
+        return index + suffix.length - offset;
+    }
+
+    /**
+     * 写入非负数，不足width位时左侧以pad补齐
+     */
+    private static int writeDigits(long value, int width, char zero, char pad, char[] out, int offset) {
+        int digits = digits(value);
+        int end = offset + Math.max(digits, width);
+        for (int i = offset; i < end - digits; i++) {
+            out[i] = pad;
+        }
+        for (int i = end - 1; i >= end - digits; i--) {
+            out[i] = (char) (zero + (int) (value % 10));
+            value /= 10;
+        }
+        return end;
+    }
+
+    /**
+     * 写入非负数的ASCII字符，不足width位时左侧以pad补齐
+     */
+    private static int writeDigits(long value, int width, byte pad, byte[] out, int offset) {
+        int digits = digits(value);
+        int end = offset + Math.max(digits, width);
+        for (int i = offset; i < end - digits; i++) {
+            out[i] = pad;
+        }
+        for (int i = end - 1; i >= end - digits; i--) {
+            out[i] = (byte) ('0' + (int) (value % 10));
+            value /= 10;
+        }
+        return end;
+    }
+
+    private static int digits(long value) {
+        long p = 10;
+        for (int i = 1; i < MAX_LONG_DIGITS; i++) {
+            if (value < p) {
+                return i;
+            }
+            p *= 10;
+        }
+        return MAX_LONG_DIGITS;
+    }
+
+    private static boolean isAscii(char[] chars) {
+        for (char c : chars) {
+            if (c >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 与Formatter一致：默认FORMAT区域非Locale.US时使用其零字符
+     */
+    private static char zeroDigit() {
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        ZeroDigit current = zeroDigit;
+        if (current.locale != locale) {
+            char zero = Locale.US.equals(locale) ? '0' : DecimalFormatSymbols.getInstance(locale).getZeroDigit();
+            current = new ZeroDigit(locale, zero);
+            zeroDigit = current;
+        }
+        return current.zero;
+    }
+
+    private static final class ZeroDigit {
+        private final Locale locale;
+        private final char zero;
+
+        private ZeroDigit(Locale locale, char zero) {
+            this.locale = locale;
+            this.zero = zero;
+        }
+    }
+}
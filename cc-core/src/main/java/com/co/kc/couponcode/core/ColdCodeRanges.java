@@ -0,0 +1,237 @@
+package com.co.kc.couponcode.core;
+
+import com.co.kc.couponcode.core.algo.LcgBatch;
+import com.co.kc.couponcode.core.algo.LcgLeapfrog;
+import com.co.kc.couponcode.core.model.ICode;
+import com.co.kc.couponcode.core.model.ICodeEngine;
+import com.co.kc.couponcode.core.model.IFactor;
+import com.co.kc.couponcode.core.persistence.ICodeGen;
+import lombok.Getter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * COLD券池，按区间保存预留的券码
+ * <p>
+ * 算法序列是确定的，连续的一段券码只需记录(no, xn, count)：从xn开始的后续count个状态。
+ * 冷池只保存区间游标，券码在热池拉取时才按批生成，内存占用与冷池大小无关。
+ * 同一生成器的相邻区间在追加时合并，通常每个生成器在冷池中只有一到两个区间。
+ *
+ * @author kc
+ */
+final class ColdCodeRanges {
+
+    private final Deque<Range> ranges = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * 剩余券码数量，仅在持有锁时修改
+     */
+    private volatile long size;
+
+    /**
+     * 追加区间，与同一生成器的区间首尾相接时合并
+     *
+     * @param codeGen 区间所属生成器，用于刷新生成器状态
+     * @param no     编号
+     * @param factor 算法Factor
+     * @param end    周期结束状态(生成器x0)
+     * @param xn     区间起始状态(不包含)
+     * @param count  券码数量
+     * @param last   区间最后一个状态，即xn之后第count个状态
+     */
+    void append(ICodeGen codeGen, long no, IFactor factor, long end, long xn, long count, long last) {
+        if (count <= 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            Range range = null;
+            for (Iterator<Range> it = ranges.descendingIterator(); it.hasNext(); ) {
+                Range r = it.next();
+                if (r.no == no) {
+                    range = r;
+                    break;
+                }
+            }
+            if (range != null && range.factor == factor && range.last == xn) {
+                range.count += count;
+                range.last = last;
+            } else {
+                ranges.offerLast(new Range(codeGen, no, factor, end, xn, count, last));
+            }
+            size += count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 从队首区间切出至多max个券码，切出的券码视为已从冷池移除
+     *
+     * @param max 最大数量
+     * @return 切片，冷池为空时返回null
+     */
+    Slice take(int max) {
+        return take(max, false);
+    }
+
+    /**
+     * 从队首区间切出至多max个券码，切出的券码视为已从冷池移除
+     *
+     * @param max    最大数量
+     * @param rotate 队首区间未取完时是否移至队尾，多个生成器的区间轮流切出
+     * @return 切片，冷池为空时返回null
+     */
+    Slice take(int max, boolean rotate) {
+        lock.lock();
+        try {
+            Range head = ranges.peekFirst();
+            if (head == null || max <= 0) {
+                return null;
+            }
+            int count = (int) Math.min(max, head.count);
+            Slice slice = new Slice(head.codeGen, head.no, head.factor, head.end, head.xn, count);
+            head.count -= count;
+            if (head.count == 0) {
+                ranges.pollFirst();
+            } else {
+                head.xn = head.engine.jump(head.xn, count);
+                if (rotate) {
+                    ranges.offerLast(ranges.pollFirst());
+                }
+            }
+            size -= count;
+            return slice;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 丢弃全部区间，区间只是预留，尚未刷新至生成器，丢弃不消耗券码
+     */
+    void clear() {
+        lock.lock();
+        try {
+            ranges.clear();
+            size = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 生成冷池全部券码，仅用于监控与测试
+     *
+     * @return 券码列表
+     */
+    List<ICode> snapshot() {
+        List<ICode> list = new ArrayList<>();
+        lock.lock();
+        try {
+            for (Range range : ranges) {
+                long xn = range.xn;
+                for (long i = 0; i < range.count; i++) {
+                    xn = range.engine.next(xn);
+                    list.add(new CouponCodePool.PoolCode(range.no, xn, range.factor.getFormat()));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return list;
+    }
+
+    /**
+     * 冷池区间
+     */
+    private static final class Range {
+        private final ICodeGen codeGen;
+        private final long no;
+        private final IFactor factor;
+        private final ICodeEngine engine;
+        private final long end;
+        private long xn;
+        private long count;
+        private long last;
+
+        private Range(ICodeGen codeGen, long no, IFactor factor, long end, long xn, long count, long last) {
+            this.codeGen = codeGen;
+            this.no = no;
+            this.factor = factor;
+            this.engine = factor.getEngine();
+            this.end = end;
+            this.xn = xn;
+            this.count = count;
+            this.last = last;
+        }
+    }
+
+    /**
+     * 从冷池切出的一段券码
+     */
+    @Getter
+    static final class Slice {
+        private final ICodeGen codeGen;
+        private final long no;
+        private final IFactor factor;
+        private final long end;
+        private final long xn;
+        private final int count;
+
+        private Slice(ICodeGen codeGen, long no, IFactor factor, long end, long xn, int count) {
+            this.codeGen = codeGen;
+            this.no = no;
+            this.factor = factor;
+            this.end = end;
+            this.xn = xn;
+            this.count = count;
+        }
+
+        /**
+         * 生成切片内的券码
+         *
+         * @param out    输出数组
+         * @param offset 输出起始位置
+         * @return 生成数量
+         */
+        int fill(long[] out, int offset) {
+            return LcgBatch.fill(factor, xn, end, out, offset, count);
+        }
+
+        /**
+         * 以parallelism条交错子序列多线程生成切片内的券码，结果与{@link #fill(long[], int)}一致
+         *
+         * @param out         输出数组
+         * @param offset      输出起始位置
+         * @param executor    执行其余子序列的线程池
+         * @param parallelism 子序列数量
+         * @return 生成数量
+         * @throws InterruptedException 中断异常
+         */
+        int fill(long[] out, int offset, ExecutorService executor, int parallelism) throws InterruptedException {
+            if (parallelism <= 1) {
+                return fill(out, offset);
+            }
+            return LcgLeapfrog.fill(factor, xn, end, out, offset, count, executor, parallelism);
+        }
+
+        String getFormat() {
+            return factor.getFormat();
+        }
+    }
+}
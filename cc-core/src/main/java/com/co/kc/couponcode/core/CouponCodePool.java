@@ -2,8 +2,10 @@ package com.co.kc.couponcode.core;
 
 import com.co.kc.couponcode.common.exception.BusinessException;
 import com.co.kc.couponcode.common.model.Generator;
-import com.co.kc.couponcode.core.algo.Lcg;
+import com.co.kc.couponcode.core.algo.LcgLeapfrog;
 import com.co.kc.couponcode.core.model.ICode;
+import com.co.kc.couponcode.core.model.ICodeConsumer;
+import com.co.kc.couponcode.core.model.ICodeEngine;
 import com.co.kc.couponcode.core.model.IFactor;
 import com.co.kc.couponcode.core.persistence.ICodeGen;
 import com.google.common.annotations.VisibleForTesting;
@@ -11,10 +13,20 @@ import lombok.Getter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.security.SecureRandom;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import static com.co.kc.couponcode.core.CouponCodePool.PoolStatus.*;
 
@@ -25,15 +37,77 @@ public class CouponCodePool implements Generator<String> {
 
     private static final Logger LOG = LoggerFactory.getLogger(CouponCodePool.class);
 
-    private static final int DEFAULT_HOT_POOL_SIZE = 100;
-    private static final int DEFAULT_COLD_POOL_SIZE = 10000;
+    static final int DEFAULT_HOT_POOL_SIZE = 100;
+    static final int DEFAULT_COLD_POOL_SIZE = 10000;
+    private static final int COLD_FILL_BATCH_SIZE = 1024;
+    /**
+     * HOT券池环形队列最小容量，热池最大大小不能超过环形队列容量
+     */
+    private static final int MIN_HOT_POOL_CAPACITY = 1024;
+    /**
+     * 热池为空时先让出CPU的次数，之后以指数退避的方式休眠
+     */
+    private static final int HOT_POOL_YIELD_TRIES = 64;
+    private static final long HOT_POOL_MIN_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+    private static final long HOT_POOL_MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final double LATENCY_EWMA_ALPHA = 0.2;
+    static final double DEFAULT_HOT_POOL_LOW_WATERMARK_RATIO = 0.5;
+    /**
+     * 当前生成器剩余券码不足冷池最大大小的该倍数时，异步占用备用生成器
+     */
+    private static final int STANDBY_COLD_POOL_MULTIPLE = 2;
+    /**
+     * 使用共享调度器时，填充任务发生异常后的重试间隔
+     */
+    private static final long FILL_RETRY_DELAY_MILLIS = 1000L;
+    /**
+     * 销毁生成器(含切换后销毁旧生成器)前等待进行中的占用备用生成器任务的最长时间
+     */
+    private static final long STANDBY_AWAIT_MILLIS = 5000L;
+    /**
+     * 租约ID随机生成，不可猜测，也不会与其他券码池的租约ID混淆
+     */
+    private static final SecureRandom LEASE_ID_RANDOM = new SecureRandom();
 
-    private final ExecutorService hotPoolExecutor = Executors.newSingleThreadExecutor();
-    private final ExecutorService coldPoolExecutor = Executors.newSingleThreadExecutor();
-    private final ScheduledExecutorService heartbeatExecutor = Executors.newSingleThreadScheduledExecutor();
+    /**
+     * 共享调度器，为null时券码池独立运行，自行创建填充、心跳等线程
+     */
+    private final CouponCodePoolScheduler scheduler;
+    private final ExecutorService hotPoolExecutor;
+    /**
+     * 冷池填充线程，每个生成器一个
+     */
+    private final ExecutorService coldPoolExecutor;
+    /**
+     * 多个生成器时并行刷新生成器状态，热池填充线程自身刷新其中一个
+     */
+    private final ExecutorService flushExecutor;
+    private final ScheduledExecutorService heartbeatExecutor;
+    /**
+     * 异步占用备用生成器，避免在冷池填充线程中访问数据库
+     */
+    private final ExecutorService standbyExecutor;
+    /**
+     * 异步获取券码的超时调度，完成的等待者会取消超时任务，需要及时移除
+     */
+    private final ScheduledExecutorService waiterTimeoutExecutor;
+    /**
+     * 使用共享调度器时是否已提交补货任务，同一券码池同时至多一个补货任务
+     */
+    private final AtomicBoolean fillScheduled = new AtomicBoolean();
 
-    private final BlockingDeque<ICode> coldPool = new LinkedBlockingDeque<>();
-    private final BlockingDeque<ICode> hotPool = new LinkedBlockingDeque<>();
+    private final ColdCodeRanges coldPool = new ColdCodeRanges();
+    private final HotCodeRing hotPool;
+    /**
+     * HOT券池批量生成缓冲区，仅由热池填充线程使用，大小与热池环形队列容量一致，一次补货可在一个切片内完成
+     */
+    private final long[] hotBuffer;
+    /**
+     * 每轮补货从冷池切出的切片及其生成数量、在缓冲区中的起始位置，仅由热池填充线程使用
+     */
+    private final ColdCodeRanges.Slice[] roundSlices;
+    private final int[] roundFilled;
+    private final int[] roundOffset;
 
     private final ReentrantLock coldPoolTakeLock = new ReentrantLock();
     private final Condition coldPoolNotEmpty = coldPoolTakeLock.newCondition();
@@ -43,100 +117,661 @@ public class CouponCodePool implements Generator<String> {
 
     private final ReentrantLock hotPoolPutLock = new ReentrantLock();
     private final Condition hotPoolNotFull = hotPoolPutLock.newCondition();
+    /**
+     * 每轮填充(预留冷池、补货热池)持有读锁，多个填充线程可同时进行；切换生成器持有写锁，等待进行中的填充轮次结束。
+     * 填充轮次内不在任何条件上等待，等待冷池非空等均在读锁之外
+     */
+    private final ReentrantReadWriteLock fillLock = new ReentrantReadWriteLock();
+    /**
+     * 本轮是否已唤醒热池填充线程，填充线程进入等待前重置，保证每轮补货只需一次加锁唤醒
+     */
+    private final AtomicBoolean hotPoolRefillRequested = new AtomicBoolean();
+    /**
+     * 异步获取券码的等待者，仅由热池填充线程完成
+     */
+    private final Queue<CompletableFuture<String>> waiters = new ConcurrentLinkedQueue<>();
+    /**
+     * 未确认的租约，租约ID -> 租约
+     */
+    private final Map<Long, Lease> leases = new ConcurrentHashMap<>();
+    /**
+     * 租约到期或被释放的券码，已刷新至生成器，热池补货时优先放入热池
+     */
+    private final Queue<PoolCode> recycled = new ConcurrentLinkedQueue<>();
 
     /**
-     * 券池状态
+     * 已发放券码数量
      */
-    @Getter
-    private PoolStatus status;
+    private final LongAdder issuedCount = new LongAdder();
     /**
-     * COLD券池x0
+     * 热池补货耗时(不含刷新生成器)的EWMA，仅由热池填充线程更新
      */
-    @Getter
-    private ICode coldX0;
+    private final Ewma refillNanos = new Ewma(LATENCY_EWMA_ALPHA);
     /**
-     * COLD券池xn
+     * 刷新生成器耗时的EWMA，仅由热池填充线程更新
      */
-    @Getter
-    private ICode coldXn;
+    private final Ewma flushNanos = new Ewma(LATENCY_EWMA_ALPHA);
     /**
-     * COLD券池算法Factor
+     * 补货吞吐量(每秒补入热池的券码数量，含刷新生成器)的EWMA，即可持续的发放速率，仅由热池填充线程更新
      */
-    @Getter
-    private IFactor coldFactor;
+    private final Ewma refillThroughput = new Ewma(LATENCY_EWMA_ALPHA);
+
+    /**
+     * 券池状态，状态变更以CAS完成
+     */
+    private final AtomicReference<PoolStatus> status = new AtomicReference<>(INIT);
+    /**
+     * 同时使用的K个生成器，各自由一个冷池填充线程推进，预留的区间在冷池中轮流切出
+     */
+    private final ColdGenerator[] generators;
     /**
      * HOT券池最大大小
      */
     @Getter
-    private int maxHotPoolSize;
+    private volatile int maxHotPoolSize;
+    /**
+     * HOT券池低水位比例，热池低于低水位时才开始补货，一次补至maxHotPoolSize(高水位)
+     */
+    @Getter
+    private volatile double hotPoolLowWatermarkRatio = DEFAULT_HOT_POOL_LOW_WATERMARK_RATIO;
+    /**
+     * 热池高水位上调后，填充线程无需等待低水位立即补满一次
+     */
+    private volatile boolean hotPoolTopUpRequested;
     /**
      * COLD券池最大大小
      */
     @Getter
-    private int maxColdPoolSize;
-
+    private volatile int maxColdPoolSize;
+    /**
+     * 冷热池填充的并行度K，大于1时以K条交错子序列多线程生成券码与检测周期结束，见{@link LcgLeapfrog}
+     */
     @Getter
-    private final ICodeGen codeGen;
+    private int coldFillParallelism = 1;
+    /**
+     * 执行其余K-1条交错子序列的线程池，填充线程自身推进第一条
+     */
+    private ExecutorService coldFillExecutor;
 
     public CouponCodePool(ICodeGen codeGen) {
         this(codeGen, DEFAULT_HOT_POOL_SIZE, DEFAULT_COLD_POOL_SIZE);
     }
 
     public CouponCodePool(ICodeGen codeGen, int maxHotPoolSize, int maxColdPoolSize) {
-        this.codeGen = codeGen;
-        this.maxHotPoolSize = maxHotPoolSize;
+        this(() -> codeGen, 1, maxHotPoolSize, maxColdPoolSize);
+    }
+
+    /**
+     * @param codeGenSupplier 生成器工厂，每个生成器使用独立的ICodeGen
+     * @param generatorCount  同时使用的生成器数量
+     * @param maxHotPoolSize  热池最大大小
+     * @param maxColdPoolSize 冷池最大大小
+     */
+    public CouponCodePool(Supplier<ICodeGen> codeGenSupplier, int generatorCount, int maxHotPoolSize, int maxColdPoolSize) {
+        this(codeGenSupplier, generatorCount, maxHotPoolSize, maxColdPoolSize, null);
+    }
+
+    /**
+     * 使用共享调度器的券码池不创建任何线程，冷热池填充由调度器以任务的方式驱动，心跳由{@link CouponCodePoolRegistry}统一上报
+     *
+     * @param codeGenSupplier 生成器工厂，每个生成器使用独立的ICodeGen
+     * @param generatorCount  同时使用的生成器数量
+     * @param maxHotPoolSize  热池最大大小
+     * @param maxColdPoolSize 冷池最大大小
+     * @param scheduler       共享调度器，为null时独立运行
+     */
+    public CouponCodePool(Supplier<ICodeGen> codeGenSupplier, int generatorCount, int maxHotPoolSize, int maxColdPoolSize,
+                          CouponCodePoolScheduler scheduler) {
+        if (generatorCount < 1) {
+            throw new IllegalArgumentException("generatorCount must be positive: " + generatorCount);
+        }
+        this.generators = new ColdGenerator[generatorCount];
+        for (int i = 0; i < generatorCount; i++) {
+            this.generators[i] = new ColdGenerator(codeGenSupplier.get());
+        }
+        this.scheduler = scheduler;
+        if (scheduler == null) {
+            this.hotPoolExecutor = Executors.newSingleThreadExecutor();
+            this.coldPoolExecutor = Executors.newFixedThreadPool(generatorCount);
+            this.flushExecutor = generatorCount > 1 ? Executors.newFixedThreadPool(generatorCount) : null;
+            this.heartbeatExecutor = Executors.newSingleThreadScheduledExecutor();
+            this.standbyExecutor = Executors.newSingleThreadExecutor();
+            this.waiterTimeoutExecutor = newWaiterTimeoutExecutor();
+        } else {
+            this.hotPoolExecutor = null;
+            this.coldPoolExecutor = null;
+            this.flushExecutor = scheduler.getIoExecutor();
+            this.heartbeatExecutor = null;
+            this.standbyExecutor = scheduler.getIoExecutor();
+            this.waiterTimeoutExecutor = scheduler.getTimer();
+        }
+        this.hotPool = new HotCodeRing(Math.max(maxHotPoolSize, MIN_HOT_POOL_CAPACITY));
+        this.maxHotPoolSize = Math.min(maxHotPoolSize, hotPool.capacity());
+        this.hotBuffer = new long[hotPool.capacity()];
+        this.roundSlices = new ColdCodeRanges.Slice[generatorCount];
+        this.roundFilled = new int[generatorCount];
+        this.roundOffset = new int[generatorCount];
         this.maxColdPoolSize = maxColdPoolSize;
-        // update status
-        this.status = INIT;
     }
 
     /**
      * 初始化券池
      */
-    public void init() {
-        if (INIT.equals(status)) {
+    public synchronized void init() {
+        if (INIT.equals(status.get())) {
             // init ccg
-            this.codeGen.init();
-            this.coldX0 = codeGen.getX0();
-            this.coldXn = codeGen.getXn();
-            this.coldFactor = codeGen.getFactor();
+            for (ColdGenerator generator : generators) {
+                generator.codeGen.init();
+                generator.reload();
+            }
+            if (isScheduled()) {
+                this.status.compareAndSet(INIT, RUNNING);
+                scheduleFill();
+                return;
+            }
             // start schedule
             this.hotPoolExecutor.execute(this::fillHotPool);
-            this.coldPoolExecutor.execute(this::fillColdPool);
+            for (ColdGenerator generator : generators) {
+                this.coldPoolExecutor.execute(() -> fillColdPool(generator));
+            }
             this.heartbeatExecutor.scheduleWithFixedDelay(this::reportHeartbeat, 0L, 2L, TimeUnit.SECONDS);
             // update status
-            this.status = RUNNING;
+            this.status.compareAndSet(INIT, RUNNING);
         }
     }
 
     /**
      * 销毁券池
      */
-    public void destroy() {
-        if (RUNNING.equals(status)) {
-            // update status
-            this.status = DESTROY;
-            // destroy ccg
-            this.codeGen.destroy();
-            // shutdown schedule
-            this.hotPoolExecutor.shutdown();
-            this.coldPoolExecutor.shutdown();
-            this.heartbeatExecutor.shutdown();
+    public synchronized void destroy() {
+        PoolStatus current = status.get();
+        if ((RUNNING.equals(current) || PAUSED.equals(current)) && status.compareAndSet(current, DESTROY)) {
+            // 唤醒在条件上等待的填充线程，使其退出
+            signalAll();
+            // destroy ccg, 先等待进行中的占用备用生成器任务结束，避免销毁后才占用
+            for (ColdGenerator generator : generators) {
+                awaitStandby(generator.standbyTask);
+                generator.codeGen.destroy();
+            }
+            // shutdown schedule, 共享调度器的线程池由调度器关闭
+            if (!isScheduled()) {
+                this.hotPoolExecutor.shutdown();
+                this.coldPoolExecutor.shutdown();
+                if (this.flushExecutor != null) {
+                    this.flushExecutor.shutdown();
+                }
+                this.heartbeatExecutor.shutdown();
+                this.standbyExecutor.shutdownNow();
+                this.waiterTimeoutExecutor.shutdown();
+            }
+            if (this.coldFillExecutor != null && !isScheduled()) {
+                this.coldFillExecutor.shutdownNow();
+            }
+            failWaiters("券码池状态异常");
+        }
+    }
+
+    /**
+     * 暂停发放：不再受理获取请求，正在等待的请求与异步等待者以{@link BusinessException}失败，并等待进行中的填充轮次结束。
+     * 暂停期间填充线程照常维持冷热池，恢复后无需预热
+     */
+    public synchronized void pause() {
+        if (!status.compareAndSet(RUNNING, PAUSED)) {
+            throw new IllegalStateException("only a running pool can be paused: " + status.get());
+        }
+        // 进行中的填充轮次可能正在完成等待者，等待其结束
+        fillLock.writeLock().lock();
+        fillLock.writeLock().unlock();
+        failWaiters("券码池已暂停");
+    }
+
+    /**
+     * 恢复发放
+     */
+    public synchronized void resume() {
+        if (!status.compareAndSet(PAUSED, RUNNING)) {
+            throw new IllegalStateException("only a paused pool can be resumed: " + status.get());
+        }
+        signalColdPoolNotFull();
+        signalHotPoolNotFull();
+    }
+
+    /**
+     * 热切换生成器，如更换算法Factor，无需重启
+     * <p>
+     * 新生成器先完成初始化，再等待进行中的填充轮次结束后替换，之后旧生成器释放占用。
+     * 冷池中的区间尚未刷新至旧生成器，直接丢弃不消耗券码；热池中的券码已刷新，保留并优先发放。
+     * 切换期间照常发放热池中的券码。
+     *
+     * @param codeGenSupplier 新的生成器工厂
+     */
+    public synchronized void reconfigure(Supplier<ICodeGen> codeGenSupplier) {
+        if (!isActive()) {
+            throw new IllegalStateException("only a running or paused pool can be reconfigured: " + status.get());
+        }
+        // 初始化访问数据库，不持有写锁
+        List<ICodeGen> codeGens = new ArrayList<>(generators.length);
+        try {
+            for (int i = 0; i < generators.length; i++) {
+                ICodeGen codeGen = codeGenSupplier.get();
+                codeGens.add(codeGen);
+                codeGen.init();
+            }
+        } catch (RuntimeException e) {
+            codeGens.forEach(ICodeGen::destroy);
+            throw e;
+        }
+        List<ICodeGen> previous = new ArrayList<>(generators.length);
+        List<Future<?>> previousStandbyTasks = new ArrayList<>(generators.length);
+        fillLock.writeLock().lock();
+        try {
+            coldPool.clear();
+            for (int i = 0; i < generators.length; i++) {
+                previous.add(generators[i].codeGen);
+                previousStandbyTasks.add(generators[i].standbyTask);
+                generators[i].swap(codeGens.get(i));
+            }
+        } finally {
+            fillLock.writeLock().unlock();
+        }
+        // 旧生成器可能正在占用备用生成器，等待其结束后再销毁
+        for (int i = 0; i < previous.size(); i++) {
+            awaitStandby(previousStandbyTasks.get(i));
+            previous.get(i).destroy();
+        }
+        signalColdPoolNotFull();
+        signalHotPoolNotFull();
+    }
+
+    /**
+     * 获取券码池状态
+     *
+     * @return 状态
+     */
+    public PoolStatus getStatus() {
+        return status.get();
+    }
+
+    /**
+     * 是否已暂停
+     *
+     * @return 已暂停返回true
+     */
+    public boolean isPaused() {
+        return PAUSED.equals(status.get());
+    }
+
+    /**
+     * 已启动且未销毁，包括暂停
+     */
+    private boolean isActive() {
+        PoolStatus current = status.get();
+        return RUNNING.equals(current) || PAUSED.equals(current);
+    }
+
+    /**
+     * 检查是否可以发放券码
+     */
+    private void checkIssuable() {
+        PoolStatus current = status.get();
+        if (!RUNNING.equals(current)) {
+            throw new BusinessException(PAUSED.equals(current) ? "券码池已暂停" : "券码池状态异常");
+        }
+    }
+
+    private void failWaiters(String message) {
+        for (CompletableFuture<String> waiter; (waiter = this.waiters.poll()) != null; ) {
+            waiter.completeExceptionally(new BusinessException(message));
         }
     }
 
     @Override
     public String next() throws InterruptedException {
-        if (!RUNNING.equals(status)) {
-            throw new BusinessException("券码池状态异常");
-        }
-        ICode hotcode = Optional.ofNullable(this.hotPool.poll(1, TimeUnit.SECONDS))
+        checkIssuable();
+        String hotcode = Optional.ofNullable(pollHotPool(1, TimeUnit.SECONDS))
                 .orElseThrow(() -> new BusinessException("请求太频繁，请稍后重试"));
-        if (this.hotPool.size() < this.maxHotPoolSize) {
+        this.issuedCount.increment();
+        if (this.hotPool.size() < getHotPoolLowWatermark()) {
             signalHotPoolNotFull();
         }
-        String formattedHotcode = String.format(hotcode.getFormat(), hotcode.getCode());
-        return hotcode.getNo() + formattedHotcode;
+        return hotcode;
+    }
+
+    /**
+     * 非阻塞地获取券码
+     *
+     * @return 券码，热池为空时返回null
+     */
+    public String tryNext() {
+        checkIssuable();
+        return poll();
+    }
+
+    /**
+     * 异步获取券码，不占用调用线程等待
+     * <p>
+     * 热池为空时登记等待者，由热池填充线程补货后按登记顺序完成；超时未完成时以{@link BusinessException}异常完成。
+     * 券码池暂停或未运行时同样以{@link BusinessException}异常完成，不在调用线程抛出。
+     *
+     * @param timeout 超时时间
+     * @param unit    超时时间单位
+     * @return 券码
+     */
+    public CompletableFuture<String> nextAsync(long timeout, TimeUnit unit) {
+        String hotcode;
+        try {
+            hotcode = tryNext();
+        } catch (BusinessException e) {
+            return failedFuture(e);
+        }
+        if (hotcode != null) {
+            return CompletableFuture.completedFuture(hotcode);
+        }
+        if (timeout <= 0) {
+            return failedFuture(new BusinessException("请求太频繁，请稍后重试"));
+        }
+        CompletableFuture<String> waiter = new CompletableFuture<>();
+        ScheduledFuture<?> timeoutTask = this.waiterTimeoutExecutor.schedule(
+                () -> waiter.completeExceptionally(new BusinessException("请求太频繁，请稍后重试")), timeout, unit);
+        waiter.whenComplete((code, ex) -> timeoutTask.cancel(false));
+        this.waiters.offer(waiter);
+        signalHotPoolNotFull();
+        return waiter;
+    }
+
+    /**
+     * 以异常完成的future，Java 8没有CompletableFuture.failedFuture
+     *
+     * @param ex 异常
+     * @return future
+     */
+    static <T> CompletableFuture<T> failedFuture(Throwable ex) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(ex);
+        return future;
+    }
+
+    /**
+     * 批量获取券码，热池不足时最多等待1秒
+     *
+     * @param n 数量
+     * @return 券码列表，超时时返回已获取的部分
+     * @throws InterruptedException 中断异常
+     */
+    @Override
+    public List<String> next(int n) throws InterruptedException {
+        return next(n, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 批量获取券码，热池不足时等待直至凑足n个或超时
+     *
+     * @param n       数量
+     * @param timeout 超时时间
+     * @param unit    超时时间单位
+     * @return 券码列表，超时时返回已获取的部分
+     * @throws InterruptedException 中断异常
+     */
+    public List<String> next(int n, long timeout, TimeUnit unit) throws InterruptedException {
+        List<String> list = new ArrayList<>(Math.max(n, 0));
+        drain((no, code, format) -> list.add(format(no, code, format)), n, timeout, unit);
+        return list;
+    }
+
+    /**
+     * 租约方式批量获取券码，热池不足时等待直至凑足n个或超时
+     * <p>
+     * 券码在ttl内以{@link #confirm(Collection)}确认后才视为发放；到期未确认或以{@link #release(Collection)}释放的券码
+     * 进入回收队列，热池补货时优先放入热池再次发放，下游失败时不再消耗券码。
+     * 回收队列与热池一样只在内存中，宕机时丢失。
+     *
+     * @param n       数量
+     * @param timeout 热池不足时的超时时间
+     * @param ttl     租约有效期
+     * @param unit    超时时间与有效期单位
+     * @return 租约列表，超时时返回已获取的部分
+     * @throws InterruptedException 中断异常
+     */
+    public List<LeasedCode> lease(int n, long timeout, long ttl, TimeUnit unit) throws InterruptedException {
+        if (ttl <= 0) {
+            throw new IllegalArgumentException("ttl must be positive: " + ttl);
+        }
+        // 先以原始值取出，生成租约ID与登记租约不占用热池的取出过程
+        int size = Math.max(n, 0);
+        long[] nos = new long[size];
+        long[] codes = new long[size];
+        String[] formats = new String[size];
+        int[] index = new int[1];
+        int drained = drain((no, code, format) -> {
+            int i = index[0]++;
+            nos[i] = no;
+            codes[i] = code;
+            formats[i] = format;
+        }, n, timeout, unit);
+
+        List<LeasedCode> list = new ArrayList<>(drained);
+        List<Long> ids = new ArrayList<>(drained);
+        LeaseBatch batch = new LeaseBatch();
+        batch.pending.set(drained);
+        for (int i = 0; i < drained; i++) {
+            Lease lease = new Lease(new PoolCode(nos[i], codes[i], formats[i]), batch);
+            long id;
+            do {
+                id = LEASE_ID_RANDOM.nextLong() & Long.MAX_VALUE;
+            } while (id == 0L || leases.putIfAbsent(id, lease) != null);
+            ids.add(id);
+            list.add(new LeasedCode(id, format(nos[i], codes[i], formats[i])));
+        }
+        if (!ids.isEmpty()) {
+            batch.expireAt(this.waiterTimeoutExecutor.schedule(() -> recycle(ids), ttl, unit));
+        }
+        return list;
+    }
+
+    /**
+     * 确认租约，确认后券码视为已发放
+     *
+     * @param ids 租约ID
+     * @return 确认成功的租约ID，已到期或不存在的租约不包含在内，其券码可能已再次发放
+     */
+    public List<Long> confirm(Collection<Long> ids) {
+        List<Long> confirmed = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Lease lease = leases.remove(id);
+            if (lease != null) {
+                lease.batch.settle();
+                confirmed.add(id);
+            }
+        }
+        return confirmed;
+    }
+
+    /**
+     * 提前释放租约(如下游失败)，券码进入回收队列
+     *
+     * @param ids 租约ID
+     * @return 释放的数量
+     */
+    public int release(Collection<Long> ids) {
+        return recycle(ids);
+    }
+
+    /**
+     * 未确认的租约券码进入回收队列并从已发放数量中扣除，券码池已销毁时丢弃
+     */
+    private int recycle(Collection<Long> ids) {
+        int count = 0;
+        for (Long id : ids) {
+            Lease lease = leases.remove(id);
+            if (lease == null) {
+                continue;
+            }
+            lease.batch.settle();
+            if (isActive()) {
+                recycled.offer(lease.code);
+                count++;
+            }
+        }
+        if (count > 0) {
+            this.issuedCount.add(-count);
+            // 回收的券码与冷池券码一样可供热池补货
+            if (isScheduled()) {
+                scheduleRefill();
+            } else {
+                signalColdPoolNotEmpty();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 获取未确认的租约数量
+     *
+     * @return 租约数量
+     */
+    public int getLeaseSize() {
+        return this.leases.size();
+    }
+
+    /**
+     * 获取回收队列大小
+     *
+     * @return 回收队列大小
+     */
+    public int getRecycledSize() {
+        return this.recycled.size();
+    }
+
+    /**
+     * 批量获取券码交给consumer，热池不足时等待直至凑足n个或超时
+     *
+     * @return 实际数量
+     */
+    private int drain(ICodeConsumer consumer, int n, long timeout, TimeUnit unit) throws InterruptedException {
+        checkIssuable();
+        int drained = 0;
+        HotPoolBackoff backoff = null;
+        for (int d; drained < n; ) {
+            if ((d = drain(consumer, n - drained)) > 0) {
+                drained += d;
+                continue;
+            }
+            if (backoff == null) {
+                backoff = new HotPoolBackoff(timeout, unit);
+            }
+            if (!backoff.await()) {
+                break;
+            }
+            checkIssuable();
+        }
+        if (drained == 0 && n > 0) {
+            throw new BusinessException("请求太频繁，请稍后重试");
+        }
+        return drained;
+    }
+
+    /**
+     * 非阻塞地批量获取热池中现有的券码，交给consumer后不再保留
+     *
+     * @param consumer    券码消费者
+     * @param maxElements 最大数量
+     * @return 实际数量
+     */
+    @Override
+    public int drainTo(Consumer<? super String> consumer, int maxElements) {
+        return drainTo((no, code, format) -> consumer.accept(format(no, code, format)), maxElements);
+    }
+
+    /**
+     * 非阻塞地批量获取热池中现有的券码，按原始值交给consumer，不为券码创建任何对象
+     *
+     * @param consumer    券码消费者
+     * @param maxElements 最大数量
+     * @return 实际数量
+     */
+    public int drainTo(ICodeConsumer consumer, int maxElements) {
+        checkIssuable();
+        return drainHotPool(consumer, maxElements);
+    }
+
+    /**
+     * 非阻塞地批量获取热池中现有的券码，供分片券码池窃取使用
+     * <p>
+     * 与{@link #drainTo(ICodeConsumer, int)}不同，券码池未运行(包括暂停)时不抛出异常而是不取出任何券码，
+     * 窃取方已取得的券码不会因某个分片的状态而丢失。
+     *
+     * @param consumer    券码消费者
+     * @param maxElements 最大数量
+     * @return 实际数量
+     */
+    int steal(ICodeConsumer consumer, int maxElements) {
+        if (!RUNNING.equals(status.get())) {
+            return 0;
+        }
+        return drainHotPool(consumer, maxElements);
+    }
+
+    private int drainHotPool(ICodeConsumer consumer, int maxElements) {
+        int drained = 0;
+        for (int n; drained < maxElements && (n = drain(consumer, maxElements - drained)) > 0; ) {
+            drained += n;
+        }
+        return drained;
+    }
+
+    /**
+     * 从热池取出一批券码并记录发放数量，低于低水位时唤醒填充线程
+     */
+    private int drain(ICodeConsumer consumer, int max) {
+        int drained = this.hotPool.drain(consumer, max);
+        if (drained > 0) {
+            this.issuedCount.add(drained);
+        }
+        if (drained == 0 || this.hotPool.size() < getHotPoolLowWatermark()) {
+            signalHotPoolNotFull();
+        }
+        return drained;
+    }
+
+    /**
+     * 从热池获取券码，热池为空时按{@link HotPoolBackoff}等待直至超时
+     */
+    private String pollHotPool(long timeout, TimeUnit unit) throws InterruptedException {
+        HotPoolBackoff backoff = null;
+        for (; ; ) {
+            String hotcode = this.hotPool.poll(CouponCodePool::format);
+            if (hotcode != null) {
+                return hotcode;
+            }
+            signalHotPoolNotFull();
+            if (backoff == null) {
+                backoff = new HotPoolBackoff(timeout, unit);
+            }
+            if (!backoff.await()) {
+                return null;
+            }
+            checkIssuable();
+        }
+    }
+
+    /**
+     * 非阻塞地从热池获取券码，热池为空时唤醒填充线程并返回null
+     *
+     * @return 券码，热池为空时返回null
+     */
+    private String poll() {
+        String hotcode = this.hotPool.poll(CouponCodePool::format);
+        if (hotcode != null) {
+            this.issuedCount.increment();
+        }
+        if (hotcode == null || this.hotPool.size() < getHotPoolLowWatermark()) {
+            signalHotPoolNotFull();
+        }
+        return hotcode;
+    }
+
+    static String format(long no, long code, String format) {
+        return CodeRenderer.of(format).render(no, code);
     }
 
     /**
@@ -148,25 +783,231 @@ public class CouponCodePool implements Generator<String> {
         return this.hotPool.size();
     }
 
+    /**
+     * 获取HOT券池环形队列容量，即热池最大大小的上限
+     *
+     * @return 容量
+     */
+    public int getHotPoolCapacity() {
+        return this.hotPool.capacity();
+    }
+
+    /**
+     * 获取已发放券码数量
+     *
+     * @return 已发放数量
+     */
+    public long getIssuedCount() {
+        return this.issuedCount.sum();
+    }
+
+    /**
+     * 获取热池补货耗时(不含刷新生成器)的EWMA
+     *
+     * @return 纳秒
+     */
+    public double getRefillNanos() {
+        return this.refillNanos.get();
+    }
+
+    /**
+     * 获取刷新生成器耗时的EWMA
+     *
+     * @return 纳秒
+     */
+    public double getFlushNanos() {
+        return this.flushNanos.get();
+    }
+
+    /**
+     * 获取补货吞吐量的EWMA，即热池补货期间每秒补入的券码数量，作为可持续的发放速率
+     *
+     * @return 每秒券码数量，尚无补货时为0
+     */
+    public double getRefillThroughput() {
+        return this.refillThroughput.get();
+    }
+
     /**
      * 获取冷池大小
      *
      * @return 冷池大小
      */
     public int getColdPoolSize() {
-        return this.coldPool.size();
+        return (int) Math.min(this.coldPool.size(), Integer.MAX_VALUE);
     }
 
     /**
-     * 设置热池最大容量
+     * 获取同时使用的生成器数量
+     *
+     * @return 生成器数量
+     */
+    public int getGeneratorCount() {
+        return this.generators.length;
+    }
+
+    /**
+     * 获取生成器，多个生成器时为第一个
+     *
+     * @return 生成器
+     */
+    public ICodeGen getCodeGen() {
+        return this.generators[0].codeGen;
+    }
+
+    /**
+     * 获取全部生成器，供注册中心统一上报心跳
+     *
+     * @return 生成器列表
+     */
+    List<ICodeGen> getCodeGens() {
+        List<ICodeGen> codeGens = new ArrayList<>(generators.length);
+        for (ColdGenerator generator : generators) {
+            codeGens.add(generator.codeGen);
+        }
+        return codeGens;
+    }
+
+    /**
+     * 是否使用共享调度器
+     *
+     * @return 使用共享调度器返回true
+     */
+    public boolean isScheduled() {
+        return this.scheduler != null;
+    }
+
+    /**
+     * 获取COLD券池x0，多个生成器时为第一个生成器的x0
+     *
+     * @return x0
+     */
+    public ICode getColdX0() {
+        return this.generators[0].x0;
+    }
+
+    /**
+     * 获取COLD券池xn，多个生成器时为第一个生成器的xn
+     *
+     * @return xn
+     */
+    public ICode getColdXn() {
+        return this.generators[0].xn;
+    }
+
+    /**
+     * 获取COLD券池算法Factor，多个生成器时为第一个生成器的Factor
+     *
+     * @return Factor
+     */
+    public IFactor getColdFactor() {
+        return this.generators[0].factor;
+    }
+
+    /**
+     * 获取生成器尚未预留至冷池的剩余券码数量之和
+     *
+     * @return 剩余数量，任一生成器未提供已生成数量时为-1
+     */
+    public long getColdRemaining() {
+        long remaining = 0;
+        for (ColdGenerator generator : generators) {
+            if (generator.remaining < 0) {
+                return -1L;
+            }
+            remaining += generator.remaining;
+        }
+        return remaining;
+    }
+
+    /**
+     * 设置热池最大容量，不超过热池环形队列容量
      *
      * @param maxHotPoolSize 最大容量
      */
     public void setMaxHotPoolSize(int maxHotPoolSize) {
-        if (this.maxHotPoolSize < maxHotPoolSize) {
+        maxHotPoolSize = Math.min(maxHotPoolSize, hotPool.capacity());
+        boolean increased = this.maxHotPoolSize < maxHotPoolSize;
+        this.maxHotPoolSize = maxHotPoolSize;
+        if (increased) {
+            this.hotPoolTopUpRequested = true;
             signalHotPoolNotFull();
         }
-        this.maxHotPoolSize = maxHotPoolSize;
+    }
+
+    /**
+     * 获取热池低水位
+     *
+     * @return 低水位
+     */
+    public int getHotPoolLowWatermark() {
+        int maxHotPoolSize = this.maxHotPoolSize;
+        return Math.min(maxHotPoolSize, Math.max(1, (int) Math.ceil(maxHotPoolSize * hotPoolLowWatermarkRatio)));
+    }
+
+    /**
+     * 设置热池低水位比例，1表示热池未满即补货
+     *
+     * @param hotPoolLowWatermarkRatio 低水位比例(0, 1]
+     */
+    public void setHotPoolLowWatermarkRatio(double hotPoolLowWatermarkRatio) {
+        if (!(hotPoolLowWatermarkRatio > 0 && hotPoolLowWatermarkRatio <= 1)) {
+            throw new IllegalArgumentException("hotPoolLowWatermarkRatio must be in (0, 1]: " + hotPoolLowWatermarkRatio);
+        }
+        this.hotPoolLowWatermarkRatio = hotPoolLowWatermarkRatio;
+        if (this.hotPool.size() < getHotPoolLowWatermark()) {
+            signalHotPoolNotFull();
+        }
+    }
+
+    /**
+     * 热池是否需要补货：低于低水位，或高水位上调后尚未补满
+     */
+    private boolean isHotPoolBelowWatermark() {
+        return hotPoolTopUpRequested ? hotPool.size() < maxHotPoolSize : hotPool.size() < getHotPoolLowWatermark();
+    }
+
+    /**
+     * 热池填充线程是否需要工作：低于水位，或有异步等待者
+     */
+    private boolean isHotPoolNeedRefill() {
+        return isHotPoolBelowWatermark() || !waiters.isEmpty();
+    }
+
+    /**
+     * 按登记顺序以热池券码完成异步等待者，跳过已超时的等待者
+     */
+    private void completeWaiters() {
+        if (PAUSED.equals(status.get())) {
+            // 暂停后登记的等待者
+            failWaiters("券码池已暂停");
+            return;
+        }
+        for (CompletableFuture<String> waiter; (waiter = waiters.peek()) != null; ) {
+            if (waiter.isDone()) {
+                waiters.poll();
+                continue;
+            }
+            PoolCode code = hotPool.poll(PoolCode::new);
+            if (code == null) {
+                return;
+            }
+            waiters.poll();
+            if (waiter.complete(format(code.getNo(), code.getCode(), code.getFormat()))) {
+                issuedCount.increment();
+            } else {
+                // 等待者恰好超时，券码放回热池(填充线程是唯一的生产者，刚取出一个，必有空位)
+                offerHotPool(code.getNo(), code.getCode(), code.getFormat());
+            }
+        }
+    }
+
+    private static ScheduledThreadPoolExecutor newWaiterTimeoutExecutor() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+        executor.setRemoveOnCancelPolicy(true);
+        // 销毁后不再执行未到期的超时与租约到期任务，避免非守护线程阻止JVM退出
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        return executor;
     }
 
     /**
@@ -175,10 +1016,39 @@ public class CouponCodePool implements Generator<String> {
      * @param maxColdPoolSize 最大容量
      */
     public void setMaxColdPoolSize(int maxColdPoolSize) {
-        if (this.maxColdPoolSize < maxColdPoolSize) {
+        boolean increased = this.maxColdPoolSize < maxColdPoolSize;
+        // 先更新再唤醒，填充线程被唤醒后复查时必定看到新的最大容量
+        this.maxColdPoolSize = maxColdPoolSize;
+        if (increased) {
             signalColdPoolNotFull();
         }
-        this.maxColdPoolSize = maxColdPoolSize;
+    }
+
+    /**
+     * 设置冷热池填充的并行度，只能在初始化前设置
+     *
+     * @param coldFillParallelism 并行度，1表示单线程
+     */
+    public void setColdFillParallelism(int coldFillParallelism) {
+        if (coldFillParallelism < 1) {
+            throw new IllegalArgumentException("coldFillParallelism must be positive: " + coldFillParallelism);
+        }
+        if (!INIT.equals(status.get())) {
+            throw new IllegalStateException("coldFillParallelism can only be set before init");
+        }
+        if (isScheduled()) {
+            this.coldFillExecutor = coldFillParallelism > 1 ? scheduler.getExecutor() : null;
+            this.coldFillParallelism = coldFillParallelism;
+            return;
+        }
+        if (this.coldFillExecutor != null) {
+            this.coldFillExecutor.shutdownNow();
+            this.coldFillExecutor = null;
+        }
+        if (coldFillParallelism > 1) {
+            this.coldFillExecutor = Executors.newFixedThreadPool(coldFillParallelism - 1);
+        }
+        this.coldFillParallelism = coldFillParallelism;
     }
 
     /**
@@ -188,7 +1058,7 @@ public class CouponCodePool implements Generator<String> {
      */
     @VisibleForTesting
     /*private*/ void setColdX0(ICode coldX0) {
-        this.coldX0 = coldX0;
+        this.generators[0].x0 = coldX0;
     }
 
     /**
@@ -198,17 +1068,27 @@ public class CouponCodePool implements Generator<String> {
      */
     @VisibleForTesting
     /*private*/ void setColdXn(ICode coldXn) {
-        this.coldXn = coldXn;
+        this.generators[0].xn = coldXn;
+    }
+
+    /**
+     * 设置LcgHelper
+     *
+     * @param coldFactor lcgHelper
+     */
+    @VisibleForTesting
+    /*private*/ void setColdFactor(IFactor coldFactor) {
+        this.generators[0].factor = coldFactor;
     }
 
     /**
-     * 设置LcgHelper
+     * 设置剩余券码数量
      *
-     * @param coldFactor lcgHelper
+     * @param coldRemaining 剩余数量
      */
     @VisibleForTesting
-    /*private*/ void setColdFactor(IFactor coldFactor) {
-        this.coldFactor = coldFactor;
+    /*private*/ void setColdRemaining(long coldRemaining) {
+        this.generators[0].remaining = coldRemaining;
     }
 
     /**
@@ -218,7 +1098,7 @@ public class CouponCodePool implements Generator<String> {
      */
     @VisibleForTesting
     /*private*/ void setStatus(PoolStatus status) {
-        this.status = status;
+        this.status.set(status);
     }
 
 
@@ -228,7 +1108,7 @@ public class CouponCodePool implements Generator<String> {
      * @return 热池数据
      */
     public List<ICode> getHotPoolCodeList() {
-        return new ArrayList<>(this.hotPool);
+        return this.hotPool.snapshot();
     }
 
     /**
@@ -237,14 +1117,16 @@ public class CouponCodePool implements Generator<String> {
      * @return 冷池数据
      */
     public List<ICode> getColdPoolCodeList() {
-        return new ArrayList<>(this.coldPool);
+        return this.coldPool.snapshot();
     }
 
     /**
      * 上报心跳
      */
     private void reportHeartbeat() {
-        codeGen.keepHeartbeat();
+        for (ColdGenerator generator : generators) {
+            generator.codeGen.keepHeartbeat();
+        }
     }
 
     /**
@@ -252,27 +1134,25 @@ public class CouponCodePool implements Generator<String> {
      */
     @VisibleForTesting
     /* private */ void fillHotPool() {
-        for (; INIT.equals(status) || RUNNING.equals(status); ) {
+        for (; !DESTROY.equals(status.get()); ) {
             try {
-                if (hotPool.size() >= maxHotPoolSize) {
+                if (!isHotPoolNeedRefill()) {
                     awaitHotPoolNotFull();
                 }
-
-                List<ICode> coldCodeList = takeColdPoolCode();
-
-                Map<Long, ICode> codeMap = new HashMap<>();
-                Map<Long, Long> deltaMap = new HashMap<>();
-                for (ICode code : coldCodeList) {
-                    codeMap.put(code.getNo(), code);
-                    deltaMap.put(code.getNo(), deltaMap.getOrDefault(code.getNo(), 0L) + 1);
+                if (DESTROY.equals(status.get())) {
+                    break;
                 }
-                for (Map.Entry<Long, ICode> codeEntry : codeMap.entrySet()) {
-                    Long no = codeEntry.getKey();
-                    ICode code = codeEntry.getValue();
-                    codeGen.flush(no, code, deltaMap.get(no));
+
+                fillLock.readLock().lock();
+                try {
+                    refillHotPool();
+                } finally {
+                    fillLock.readLock().unlock();
                 }
-                for (ICode code : coldCodeList) {
-                    hotPool.offer(code);
+
+                // 冷池与回收队列均为空时在读锁之外等待
+                if (isHotPoolNeedRefill() && coldPool.isEmpty() && recycled.isEmpty()) {
+                    awaitColdPoolNotEmpty();
                 }
             } catch (InterruptedException e) {
                 LOG.error("填充热池发生中断异常", e);
@@ -284,29 +1164,43 @@ public class CouponCodePool implements Generator<String> {
     }
 
     /**
-     * 刷新冷池
+     * 先以现有券码完成等待者，仍需补货且冷池非空时再从冷池拉取
+     */
+    private void refillHotPool() throws InterruptedException {
+        completeWaiters();
+        if (isHotPoolNeedRefill() && (!coldPool.isEmpty() || !recycled.isEmpty())) {
+            hotPoolTopUpRequested = false;
+            takeColdPoolCode();
+            completeWaiters();
+        }
+    }
+
+    /**
+     * 刷新冷池，测试时使用第一个生成器
      */
     @VisibleForTesting
     /* private */ void fillColdPool() {
-        for (; INIT.equals(status) || RUNNING.equals(status); ) {
+        fillColdPool(generators[0]);
+    }
+
+    /**
+     * 以一个生成器刷新冷池，多个生成器时每个生成器最多占冷池的1/K，使冷池中始终有各生成器的区间
+     */
+    private void fillColdPool(ColdGenerator generator) {
+        for (; !DESTROY.equals(status.get()); ) {
             try {
-                if (this.coldPool.size() >= this.maxColdPoolSize) {
-                    awaitColdPoolNotFull();
+                if (getColdReserveDelta(generator) <= 0) {
+                    awaitColdPoolNotFull(generator);
+                }
+                if (DESTROY.equals(status.get())) {
+                    break;
                 }
 
-                for (; this.coldPool.size() < this.maxColdPoolSize; ) {
-                    coldXn = new PoolCode(coldXn.getNo(), Lcg.next(coldFactor, coldXn.getCode()), coldXn.getFormat());
-                    if (coldX0.getNo() == coldXn.getNo()
-                            && coldX0.getCode() == coldXn.getCode()
-                            && Objects.equals(coldX0.getFormat(), coldXn.getFormat())) {
-                        codeGen.select();
-                        coldX0 = codeGen.getX0();
-                        coldXn = codeGen.getXn();
-                        coldFactor = codeGen.getFactor();
-                        continue;
-                    }
-
-                    this.coldPool.offer(coldXn);
+                fillLock.readLock().lock();
+                try {
+                    reserveColdPool(generator);
+                } finally {
+                    fillLock.readLock().unlock();
                 }
 
                 if (!this.coldPool.isEmpty()) {
@@ -321,38 +1215,412 @@ public class CouponCodePool implements Generator<String> {
         }
     }
 
-    private List<ICode> takeColdPoolCode() throws InterruptedException {
+    /**
+     * 以一个生成器向冷池预留券码直至达到其份额
+     */
+    private void reserveColdPool(ColdGenerator generator) throws InterruptedException {
+        ICodeEngine engine = generator.factor.getEngine();
+        for (long delta; (delta = getColdReserveDelta(generator)) > 0; ) {
+            if (reserveColdCode(generator, engine, delta) < delta) {
+                // 回到x0，当前生成器已用完，已占用备用生成器时直接切换，不影响其他生成器
+                managedBlock(generator.codeGen::select);
+                generator.reload();
+                engine = generator.factor.getEngine();
+                generator.standbyRequested.set(false);
+            } else {
+                prepareStandbyIfNeeded(generator);
+            }
+        }
+    }
+
+    /**
+     * 提交填充任务：每个需要预留的生成器各一个预留任务，热池一个补货任务，已提交的不重复提交
+     */
+    private void scheduleFill() {
+        for (ColdGenerator generator : generators) {
+            if (getColdReserveDelta(generator) > 0) {
+                scheduleFillTask(generator.reserveScheduled, () -> runReserve(generator));
+            }
+        }
+        scheduleRefill();
+    }
+
+    /**
+     * 提交热池补货任务
+     */
+    private void scheduleRefill() {
+        scheduleFillTask(fillScheduled, this::runRefill);
+    }
+
+    private void scheduleFillTask(AtomicBoolean scheduled, Runnable task) {
+        if (scheduled.get() || !scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            scheduler.getExecutor().execute(task);
+        } catch (RejectedExecutionException e) {
+            // 调度器已关闭
+            scheduled.set(false);
+        }
+    }
+
+    /**
+     * 使用共享调度器时的预留任务：以一个生成器向冷池预留，各生成器的预留任务并行执行，之后补货热池
+     */
+    private void runReserve(ColdGenerator generator) {
+        if (runFillRound(generator.reserveScheduled, () -> reserveColdPool(generator))) {
+            if (getColdReserveDelta(generator) > 0) {
+                scheduleFillTask(generator.reserveScheduled, () -> runReserve(generator));
+            }
+            if (isRefillNeeded()) {
+                scheduleRefill();
+            }
+        }
+    }
+
+    /**
+     * 使用共享调度器时的补货任务：以冷池补货热池并完成异步等待者，冷池空缺由补货过程提交预留任务
+     */
+    private void runRefill() {
+        if (runFillRound(fillScheduled, this::refillHotPool) && isRefillNeeded()) {
+            scheduleRefill();
+        }
+    }
+
+    /**
+     * 在读锁内执行一轮填充，不在任何条件上等待
+     * <p>
+     * 结束前先重置提交标记，调用方再复查，期间的唤醒要么提交新任务，要么被复查发现，不会丢失
+     *
+     * @return 需要复查时返回true，异常时已延迟重试
+     */
+    private boolean runFillRound(AtomicBoolean scheduled, FillRound round) {
+        if (!isActive()) {
+            scheduled.set(false);
+            return false;
+        }
+        fillLock.readLock().lock();
         try {
-            if (coldPool.isEmpty()) {
-                awaitColdPoolNotEmpty();
+            round.run();
+        } catch (InterruptedException e) {
+            LOG.error("填充券码池发生中断异常", e);
+            scheduled.set(false);
+            return false;
+        } catch (Exception e) {
+            LOG.error("填充券码池发生异常", e);
+            // 延迟重试，避免生成器持续异常时空转
+            try {
+                scheduler.getTimer().schedule(() -> {
+                    scheduled.set(false);
+                    scheduleFill();
+                }, FILL_RETRY_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException ree) {
+                scheduled.set(false);
+            }
+            return false;
+        } finally {
+            fillLock.readLock().unlock();
+        }
+        scheduled.set(false);
+        return isActive();
+    }
+
+    /**
+     * 使用共享调度器时热池是否还需要补货：热池需要补货且冷池或回收队列非空
+     */
+    private boolean isRefillNeeded() {
+        return isActive() && isHotPoolNeedRefill() && (!coldPool.isEmpty() || !recycled.isEmpty());
+    }
+
+    /**
+     * 以{@link ForkJoinPool#managedBlock}执行访问数据库等阻塞操作，在共享调度器的任务线程中阻塞时由线程池补偿线程，
+     * 其他线程中直接执行
+     */
+    private static void managedBlock(FillRound action) throws InterruptedException {
+        if (!(Thread.currentThread() instanceof ForkJoinWorkerThread)) {
+            action.run();
+            return;
+        }
+        ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+            private boolean done;
+
+            @Override
+            public boolean block() throws InterruptedException {
+                if (!done) {
+                    action.run();
+                    done = true;
+                }
+                return true;
+            }
+
+            @Override
+            public boolean isReleasable() {
+                return done;
+            }
+        });
+    }
+
+    /**
+     * 生成器还可向冷池预留的数量，不超过冷池空缺及该生成器的份额
+     */
+    private long getColdReserveDelta(ColdGenerator generator) {
+        long share = Math.max(1L, ((long) this.maxColdPoolSize + generators.length - 1) / generators.length);
+        return Math.min(this.maxColdPoolSize - this.coldPool.size(), share - generator.reserved.get());
+    }
+
+    /**
+     * 从生成器的xn起向冷池预留至多delta个券码，只记录区间，不生成券码
+     *
+     * @return 预留数量，小于delta说明当前生成器已用完
+     */
+    private long reserveColdCode(ColdGenerator generator, ICodeEngine engine, long delta) throws InterruptedException {
+        ICode coldXn = generator.xn;
+        long x0 = generator.x0.getCode();
+        long xn = coldXn.getCode();
+        long count;
+        long last;
+        long steps = engine.distance(x0, xn);
+        if (steps >= 0) {
+            // 周期内x0之后还剩m-1-steps个状态
+            count = Math.min(delta, engine.getM() - 1 - steps);
+            last = engine.jump(xn, count);
+        } else if (coldFillParallelism > 1) {
+            // 运算引擎不支持反推步数，多条交错子序列并行查找x0
+            long index = LcgLeapfrog.indexOf(generator.factor, xn, x0, delta, coldFillExecutor, coldFillParallelism);
+            count = index < 0 ? delta : index;
+            last = engine.jump(xn, count);
+        } else {
+            // 运算引擎不支持反推步数，逐批推进直至回到x0
+            long[] buffer = generator.buffer;
+            count = 0;
+            last = xn;
+            while (count < delta) {
+                int length = (int) Math.min(delta - count, buffer.length);
+                int filled = engine.fill(last, x0, buffer, 0, length);
+                if (filled > 0) {
+                    last = buffer[filled - 1];
+                    count += filled;
+                }
+                if (filled < length) {
+                    break;
+                }
+            }
+        }
+        if (count > 0) {
+            long remaining = generator.remaining;
+            if (remaining >= 0) {
+                generator.remaining = Math.max(0L, remaining - count);
+            }
+            generator.reserved.addAndGet(count);
+            coldPool.append(generator.codeGen, coldXn.getNo(), generator.factor, x0, xn, count, last);
+            generator.xn = new PoolCode(coldXn.getNo(), last, coldXn.getFormat());
+        }
+        return count;
+    }
+
+    /**
+     * 生成器即将用完(剩余不足冷池最大大小的{@value #STANDBY_COLD_POOL_MULTIPLE}倍，或剩余数量未知)时，
+     * 异步占用备用生成器，用完时切换无需访问数据库
+     */
+    private void prepareStandbyIfNeeded(ColdGenerator generator) {
+        long remaining = generator.remaining;
+        if (remaining >= 0 && remaining > (long) maxColdPoolSize * STANDBY_COLD_POOL_MULTIPLE) {
+            return;
+        }
+        if (!generator.standbyRequested.compareAndSet(false, true)) {
+            return;
+        }
+        // 切换生成器后旧任务只作用于旧生成器
+        ICodeGen codeGen = generator.codeGen;
+        generator.standbyTask = standbyExecutor.submit(() -> {
+            try {
+                codeGen.prepare();
+            } catch (Exception e) {
+                LOG.error("占用备用生成器发生异常", e);
+                if (generator.codeGen == codeGen) {
+                    generator.standbyRequested.set(false);
+                }
             }
+        });
+    }
+
+    /**
+     * 等待占用备用生成器的任务结束，超时后由生成器在销毁后自行释放占用
+     */
+    private static void awaitStandby(Future<?> standbyTask) {
+        if (standbyTask == null) {
+            return;
+        }
+        try {
+            standbyTask.get(STANDBY_AWAIT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | CancellationException e) {
+            LOG.error("占用备用生成器发生异常", e);
+        } catch (TimeoutException e) {
+            LOG.warn("等待占用备用生成器超时");
+        }
+    }
 
-            List<ICode> coldCodeList = new LinkedList<>();
+    /**
+     * 从冷池拉取券码填充热池，按切片生成券码，先刷新生成器状态再放入热池
+     * <p>
+     * 多个生成器时每轮轮流从至多K个区间各切出一段，按生成器并行刷新，单个生成器刷新缓慢不会阻塞其他生成器的券码生成
+     */
+    private void takeColdPoolCode() throws InterruptedException {
+        try {
+            // 回收的券码已刷新，优先放入热池
             int delta = maxHotPoolSize - hotPool.size();
-            for (int i = 0; i < delta && !coldPool.isEmpty(); i++) {
-                coldCodeList.add(this.coldPool.poll());
+            for (PoolCode code; delta > 0 && (code = recycled.poll()) != null; delta--) {
+                offerHotPool(code.getNo(), code.getCode(), code.getFormat());
+            }
+            if (coldPool.isEmpty()) {
+                return;
+            }
+
+            long start = System.nanoTime();
+            long flushElapsed = 0;
+            long refilled = 0;
+            boolean rotate = generators.length > 1;
+            for (; delta > 0; ) {
+                int slices = 0;
+                int filled = 0;
+                for (ColdCodeRanges.Slice slice; slices < roundSlices.length && filled < delta
+                        && (slice = coldPool.take(delta - filled, rotate)) != null; slices++) {
+                    getGenerator(slice.getCodeGen()).reserved.addAndGet(-slice.getCount());
+                    roundSlices[slices] = slice;
+                    roundOffset[slices] = filled;
+                    roundFilled[slices] = slice.fill(hotBuffer, filled, coldFillExecutor, coldFillParallelism);
+                    filled += roundFilled[slices];
+                }
+                if (slices == 0) {
+                    break;
+                }
+                long flushNanos = flush(slices);
+                this.flushNanos.update(flushNanos);
+                flushElapsed += flushNanos;
+                Arrays.fill(roundSlices, 0, slices, null);
+                delta -= filled;
+                refilled += filled;
+            }
+            if (refilled > 0) {
+                long elapsed = System.nanoTime() - start;
+                refillNanos.update(elapsed - flushElapsed);
+                refillThroughput.update(refilled * 1e9 / Math.max(1L, elapsed));
             }
 
             if (coldPool.size() < maxColdPoolSize) {
                 signalColdPoolNotFull();
             }
-
-            return coldCodeList;
         } catch (InterruptedException e) {
             throw e;
         } catch (Exception e) {
             LOG.error("拉取冷池发生异常", e);
-            return Collections.emptyList();
+        }
+    }
+
+    private ColdGenerator getGenerator(ICodeGen codeGen) {
+        for (ColdGenerator generator : generators) {
+            if (generator.codeGen == codeGen) {
+                return generator;
+            }
+        }
+        throw new IllegalStateException("unknown codeGen");
+    }
+
+    /**
+     * 刷新本轮切片所属生成器的状态后将切片放入热池，同一生成器的切片合并为一次刷新(切片按序列顺序切出，最后一个切片的末尾即最新xn)，
+     * 不同生成器并行刷新，各生成器刷新完成后立即放入其切片，不等待其他生成器
+     * <p>
+     * 刷新失败的生成器丢弃其本轮切片(状态未持久化，不能发放)，其他生成器的切片照常放入热池
+     *
+     * @param slices 本轮切片数量
+     * @return 等待刷新的时间(纳秒)
+     */
+    private long flush(int slices) throws InterruptedException {
+        List<PoolCodeFlush> flushes = new ArrayList<>(slices);
+        for (int i = 0; i < slices; i++) {
+            if (roundFilled[i] == 0) {
+                continue;
+            }
+            ColdCodeRanges.Slice slice = roundSlices[i];
+            PoolCodeFlush flush = null;
+            for (PoolCodeFlush f : flushes) {
+                if (f.codeGen == slice.getCodeGen() && f.xn.getNo() == slice.getNo()) {
+                    flush = f;
+                    break;
+                }
+            }
+            if (flush == null) {
+                flush = new PoolCodeFlush(slice.getCodeGen(), slices);
+                flushes.add(flush);
+            }
+            flush.add(i, new PoolCode(slice.getNo(), hotBuffer[roundOffset[i] + roundFilled[i] - 1], slice.getFormat()), roundFilled[i]);
+        }
+        long start = System.nanoTime();
+        if (flushes.size() <= 1) {
+            for (PoolCodeFlush flush : flushes) {
+                managedBlock(flush::run);
+                offerHotPool(flush);
+            }
+            return System.nanoTime() - start;
+        }
+        CompletionService<PoolCodeFlush> completion = new ExecutorCompletionService<>(flushExecutor);
+        for (PoolCodeFlush flush : flushes) {
+            completion.submit(flush, flush);
+        }
+        long blocked = 0;
+        List<Future<PoolCodeFlush>> done = new ArrayList<>(1);
+        for (int i = 0; i < flushes.size(); i++) {
+            long takeStart = System.nanoTime();
+            managedBlock(() -> done.add(completion.take()));
+            blocked += System.nanoTime() - takeStart;
+            try {
+                offerHotPool(done.remove(0).get());
+            } catch (ExecutionException e) {
+                // PoolCodeFlush自行捕获刷新异常，此处只可能是Error
+                throw new IllegalStateException("刷新生成器发生异常", e.getCause());
+            }
+        }
+        return blocked;
+    }
+
+    /**
+     * 生成器刷新完成后将其本轮切片放入热池，刷新失败时丢弃
+     */
+    private void offerHotPool(PoolCodeFlush flush) {
+        if (flush.error != null) {
+            LOG.error("刷新生成器发生异常，丢弃生成器[{}]本轮的{}个券码", flush.xn.getNo(), flush.delta, flush.error);
+            return;
+        }
+        for (int k = 0; k < flush.sliceCount; k++) {
+            int i = flush.slices[k];
+            long no = roundSlices[i].getNo();
+            String format = roundSlices[i].getFormat();
+            for (int j = roundOffset[i]; j < roundOffset[i] + roundFilled[i]; j++) {
+                offerHotPool(no, hotBuffer[j], format);
+            }
+        }
+    }
+
+    /**
+     * 券码放入热池，仅由热池填充线程调用
+     * <p>
+     * 补货数量按热池大小计算，但消费者推进head后才释放槽位，槽位可能尚未释放，此时让出CPU等待而不是丢弃券码
+     */
+    private void offerHotPool(long no, long code, String format) {
+        while (!hotPool.offer(no, code, format)) {
+            Thread.yield();
         }
     }
 
     /**
      * 等待冷池券码空缺
      */
-    private void awaitColdPoolNotFull() throws InterruptedException {
+    private void awaitColdPoolNotFull(ColdGenerator generator) throws InterruptedException {
         coldPoolPutLock.lock();
         try {
-            for (; this.coldPool.size() >= this.maxColdPoolSize; ) {
+            for (; getColdReserveDelta(generator) <= 0 && !DESTROY.equals(status.get()); ) {
                 coldPoolNotFull.await();
             }
         } finally {
@@ -364,21 +1632,25 @@ public class CouponCodePool implements Generator<String> {
      * 唤醒冷池填充券码
      */
     private void signalColdPoolNotFull() {
+        if (isScheduled()) {
+            scheduleFill();
+            return;
+        }
         coldPoolPutLock.lock();
         try {
-            coldPoolNotFull.signal();
+            coldPoolNotFull.signalAll();
         } finally {
             coldPoolPutLock.unlock();
         }
     }
 
     /**
-     * 等待冷池券码非空
+     * 等待冷池或回收队列非空
      */
     private void awaitColdPoolNotEmpty() throws InterruptedException {
         coldPoolTakeLock.lock();
         try {
-            for (; coldPool.isEmpty(); ) {
+            for (; coldPool.isEmpty() && recycled.isEmpty() && !DESTROY.equals(status.get()); ) {
                 coldPoolNotEmpty.await();
             }
         } finally {
@@ -387,9 +1659,13 @@ public class CouponCodePool implements Generator<String> {
     }
 
     /**
-     * 唤醒冷池获取券码
+     * 冷池或回收队列有券码时唤醒热池填充线程
      */
     private void signalColdPoolNotEmpty() {
+        if (isScheduled()) {
+            // 预留任务结束后复查并提交补货任务
+            return;
+        }
         coldPoolTakeLock.lock();
         try {
             coldPoolNotEmpty.signal();
@@ -399,12 +1675,17 @@ public class CouponCodePool implements Generator<String> {
     }
 
     /**
-     * 等待热池券码空缺
+     * 等待热池券码低于低水位或有异步等待者
      */
     private void awaitHotPoolNotFull() throws InterruptedException {
         hotPoolPutLock.lock();
         try {
-            for (; hotPool.size() >= maxHotPoolSize; ) {
+            for (; !isHotPoolNeedRefill() && !DESTROY.equals(status.get()); ) {
+                // 先重置唤醒标记再复查，之后的消费者必定会在本线程等待时加锁唤醒
+                hotPoolRefillRequested.set(false);
+                if (isHotPoolNeedRefill()) {
+                    break;
+                }
                 hotPoolNotFull.await();
             }
         } finally {
@@ -413,9 +1694,16 @@ public class CouponCodePool implements Generator<String> {
     }
 
     /**
-     * 唤醒热池填充券码
+     * 唤醒热池填充券码，每轮补货只有首个低于低水位的消费者需要加锁
      */
     private void signalHotPoolNotFull() {
+        if (isScheduled()) {
+            scheduleFill();
+            return;
+        }
+        if (hotPoolRefillRequested.get() || !hotPoolRefillRequested.compareAndSet(false, true)) {
+            return;
+        }
         hotPoolPutLock.lock();
         try {
             hotPoolNotFull.signal();
@@ -424,6 +1712,222 @@ public class CouponCodePool implements Generator<String> {
         }
     }
 
+    /**
+     * 状态变更后唤醒所有在条件上等待的填充线程，状态已在唤醒前更新，等待线程复查条件时必定看到
+     */
+    private void signalAll() {
+        if (isScheduled()) {
+            return;
+        }
+        signalAll(coldPoolPutLock, coldPoolNotFull);
+        signalAll(coldPoolTakeLock, coldPoolNotEmpty);
+        signalAll(hotPoolPutLock, hotPoolNotFull);
+    }
+
+    private static void signalAll(ReentrantLock lock, Condition condition) {
+        lock.lock();
+        try {
+            condition.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 热池为空时的等待策略：先让出CPU，再指数退避休眠直至超时
+     */
+    private static final class HotPoolBackoff {
+        private final long deadline;
+        private long parkNanos = HOT_POOL_MIN_PARK_NANOS;
+        private int tries;
+
+        private HotPoolBackoff(long timeout, TimeUnit unit) {
+            this.deadline = System.nanoTime() + unit.toNanos(timeout);
+        }
+
+        /**
+         * 等待一次
+         *
+         * @return 已超时返回false
+         * @throws InterruptedException 中断异常
+         */
+        private boolean await() throws InterruptedException {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (tries++ < HOT_POOL_YIELD_TRIES) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(Math.min(parkNanos, remaining));
+                parkNanos = Math.min(parkNanos << 1, HOT_POOL_MAX_PARK_NANOS);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 冷池填充使用的生成器状态，由各自的冷池填充线程推进
+     */
+    private static final class ColdGenerator {
+        private volatile ICodeGen codeGen;
+        /**
+         * 运算引擎不支持反推步数时的推进缓冲区
+         */
+        private final long[] buffer = new long[COLD_FILL_BATCH_SIZE];
+        /**
+         * 是否已请求占用备用生成器，切换生成器后重置
+         */
+        private final AtomicBoolean standbyRequested = new AtomicBoolean();
+        /**
+         * 使用共享调度器时是否已提交该生成器的预留任务
+         */
+        private final AtomicBoolean reserveScheduled = new AtomicBoolean();
+        /**
+         * 进行中或最近一次占用备用生成器的任务
+         */
+        private volatile Future<?> standbyTask;
+        /**
+         * 该生成器在冷池中的券码数量
+         */
+        private final AtomicLong reserved = new AtomicLong();
+        private volatile ICode x0;
+        private volatile ICode xn;
+        private volatile IFactor factor;
+        /**
+         * 尚未预留至冷池的剩余券码数量，选取时按m-1-cnt计算，每次预留后扣减，生成器未提供cnt时为-1
+         */
+        private volatile long remaining = -1L;
+
+        private ColdGenerator(ICodeGen codeGen) {
+            this.codeGen = codeGen;
+        }
+
+        /**
+         * 读取生成器当前选取的参数
+         */
+        private void reload() {
+            this.x0 = codeGen.getX0();
+            this.xn = codeGen.getXn();
+            this.factor = codeGen.getFactor();
+            long cnt = codeGen.getCnt();
+            this.remaining = cnt < 0 || this.factor == null ? -1L : Math.max(0L, this.factor.getM() - 1 - cnt);
+        }
+
+        /**
+         * 替换为新的生成器，冷池已清空，仅在持有填充写锁时调用
+         */
+        private void swap(ICodeGen codeGen) {
+            this.codeGen = codeGen;
+            this.reserved.set(0L);
+            this.standbyRequested.set(false);
+            this.standbyTask = null;
+            reload();
+        }
+    }
+
+    /**
+     * 一轮填充或其中的阻塞操作
+     */
+    @FunctionalInterface
+    private interface FillRound {
+        void run() throws InterruptedException;
+    }
+
+    /**
+     * 一个生成器在一轮补货中的刷新
+     */
+    private static final class PoolCodeFlush implements Runnable {
+        private final ICodeGen codeGen;
+        /**
+         * 本次刷新包含的切片下标
+         */
+        private final int[] slices;
+        private int sliceCount;
+        private PoolCode xn;
+        private long delta;
+        private volatile RuntimeException error;
+
+        private PoolCodeFlush(ICodeGen codeGen, int maxSlices) {
+            this.codeGen = codeGen;
+            this.slices = new int[maxSlices];
+        }
+
+        private void add(int slice, PoolCode xn, long delta) {
+            this.slices[sliceCount++] = slice;
+            this.xn = xn;
+            this.delta += delta;
+        }
+
+        @Override
+        public void run() {
+            try {
+                codeGen.flush(xn.getNo(), xn, delta);
+            } catch (RuntimeException e) {
+                this.error = e;
+            }
+        }
+    }
+
+    /**
+     * 未确认的租约
+     */
+    private static final class Lease {
+        private final PoolCode code;
+        private final LeaseBatch batch;
+
+        private Lease(PoolCode code, LeaseBatch batch) {
+            this.code = code;
+            this.batch = batch;
+        }
+    }
+
+    /**
+     * 一次租用的所有租约共用一个到期任务，全部确认或释放后取消
+     */
+    private static final class LeaseBatch {
+        /**
+         * 尚未确认或释放的租约数量
+         */
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile ScheduledFuture<?> expiry;
+
+        private void expireAt(ScheduledFuture<?> expiry) {
+            this.expiry = expiry;
+            // 调度之前已全部确认或释放
+            if (pending.get() == 0) {
+                expiry.cancel(false);
+            }
+        }
+
+        private void settle() {
+            ScheduledFuture<?> current;
+            if (pending.decrementAndGet() == 0 && (current = expiry) != null) {
+                current.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * 租约券码
+     */
+    @Getter
+    public static class LeasedCode {
+        /**
+         * 租约ID，用于确认或释放
+         */
+        private final long id;
+        private final String code;
+
+        public LeasedCode(long id, String code) {
+            this.id = id;
+            this.code = code;
+        }
+    }
+
     @Getter
     public static class PoolCode implements ICode {
         private final long no;
@@ -450,6 +1954,10 @@ public class CouponCodePool implements Generator<String> {
          * 启动
          */
         RUNNING,
+        /**
+         * 暂停
+         */
+        PAUSED,
         /**
          * 销毁
          */
@@ -0,0 +1,163 @@
+package com.co.kc.couponcode.core;
+
+import com.co.kc.couponcode.core.persistence.ICodeGen;
+import com.co.kc.couponcode.core.persistence.ICodeGenHeartbeat;
+import com.google.common.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 券码池注册中心
+ * <p>
+ * 按名称管理多个券码池(如每个活动、每种券码长度一个)，所有券码池共用一个{@link CouponCodePoolScheduler}，
+ * 不为单个券码池创建线程；所有券码池占用的生成器由一个定时任务批量上报心跳。
+ *
+ * @author kc
+ */
+public class CouponCodePoolRegistry {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CouponCodePoolRegistry.class);
+
+    private static final long HEARTBEAT_INTERVAL_SECONDS = 2L;
+
+    private final CouponCodePoolScheduler scheduler;
+    /**
+     * 批量上报心跳，为null时逐个调用{@link ICodeGen#keepHeartbeat()}
+     */
+    private final ICodeGenHeartbeat heartbeat;
+    private final ConcurrentMap<String, CouponCodePool> pools = new ConcurrentHashMap<>();
+    /**
+     * 每个券码池的准入控制，按其补货吞吐量限流
+     */
+    private final ConcurrentMap<String, TokenBucketAdmission> admissions = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private ScheduledFuture<?> heartbeatTask;
+
+    /**
+     * @param scheduler 共享调度器
+     * @param heartbeat 批量上报心跳，为null时逐个生成器上报
+     */
+    public CouponCodePoolRegistry(CouponCodePoolScheduler scheduler, ICodeGenHeartbeat heartbeat) {
+        this.scheduler = Objects.requireNonNull(scheduler, "scheduler");
+        this.heartbeat = heartbeat;
+    }
+
+    /**
+     * 注册券码池，注册中心已初始化时立即初始化该券码池
+     *
+     * @param name            券码池名称
+     * @param codeGenSupplier 生成器工厂，每个生成器使用独立的ICodeGen
+     * @param generatorCount  同时使用的生成器数量
+     * @param maxHotPoolSize  热池最大大小
+     * @param maxColdPoolSize 冷池最大大小
+     * @return 券码池
+     */
+    public CouponCodePool register(String name, Supplier<ICodeGen> codeGenSupplier, int generatorCount,
+                                   int maxHotPoolSize, int maxColdPoolSize) {
+        CouponCodePool pool = new CouponCodePool(codeGenSupplier, generatorCount, maxHotPoolSize, maxColdPoolSize, scheduler);
+        synchronized (this) {
+            if (pools.putIfAbsent(name, pool) != null) {
+                throw new IllegalArgumentException("duplicate pool name: " + name);
+            }
+            admissions.put(name, TokenBucketAdmission.of(pool));
+            if (running) {
+                pool.init();
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * 获取券码池
+     *
+     * @param name 券码池名称
+     * @return 券码池，不存在时返回null
+     */
+    public CouponCodePool get(String name) {
+        return pools.get(name);
+    }
+
+    /**
+     * 获取券码池的准入控制
+     *
+     * @param name 券码池名称
+     * @return 准入控制，券码池不存在时返回null
+     */
+    public TokenBucketAdmission getAdmission(String name) {
+        return admissions.get(name);
+    }
+
+    /**
+     * 获取所有券码池名称
+     *
+     * @return 券码池名称
+     */
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(pools.keySet());
+    }
+
+    /**
+     * 初始化所有券码池并开始上报心跳
+     */
+    public synchronized void init() {
+        if (running) {
+            return;
+        }
+        for (CouponCodePool pool : pools.values()) {
+            pool.init();
+        }
+        // 定时线程只负责触发，上报心跳访问数据库，提交至I/O线程池执行
+        this.heartbeatTask = scheduler.getTimer().scheduleWithFixedDelay(
+                () -> scheduler.getIoExecutor().execute(this::reportHeartbeat),
+                0L, HEARTBEAT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        this.running = true;
+    }
+
+    /**
+     * 销毁所有券码池，调度器由调用方关闭
+     */
+    public synchronized void destroy() {
+        if (!running) {
+            return;
+        }
+        this.running = false;
+        this.heartbeatTask.cancel(false);
+        for (CouponCodePool pool : pools.values()) {
+            pool.destroy();
+        }
+    }
+
+    /**
+     * 上报心跳，所有券码池占用的生成器合并为一次上报
+     */
+    @VisibleForTesting
+    /* private */ void reportHeartbeat() {
+        try {
+            if (heartbeat == null) {
+                for (CouponCodePool pool : pools.values()) {
+                    pool.getCodeGens().forEach(ICodeGen::keepHeartbeat);
+                }
+                return;
+            }
+            Set<Long> noList = new HashSet<>();
+            for (CouponCodePool pool : pools.values()) {
+                for (ICodeGen codeGen : pool.getCodeGens()) {
+                    noList.addAll(codeGen.getOccupiedNoList());
+                }
+            }
+            if (!noList.isEmpty()) {
+                heartbeat.keepHeartbeat(noList);
+            }
+        } catch (Exception e) {
+            LOG.error("上报心跳发生异常", e);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.co.kc.couponcode.core;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 券码池共享调度器
+ * <p>
+ * 独立运行的券码池各自持有热池、冷池、心跳等线程；使用共享调度器的券码池不创建任何线程，
+ * 预留冷池、补货热池作为任务提交至同一个work-stealing线程池，其中刷新生成器等访问数据库的步骤以
+ * {@link java.util.concurrent.ForkJoinPool#managedBlock}执行，阻塞期间由线程池补偿线程；
+ * 只访问数据库的任务(并行刷新生成器、占用备用生成器、心跳)提交至线程数有限的I/O线程池。
+ * 超时与心跳等定时任务由同一个定时线程触发，券码池数量与线程数量无关。
+ *
+ * @author kc
+ */
+public class CouponCodePoolScheduler {
+
+    /**
+     * I/O线程池默认线程数，不超过数据库连接池大小
+     */
+    public static final int DEFAULT_IO_THREADS = 4;
+
+    private final ExecutorService executor;
+    private final ThreadPoolExecutor ioExecutor;
+    private final ScheduledThreadPoolExecutor timer;
+
+    public CouponCodePoolScheduler() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelism 任务线程池并行度
+     */
+    public CouponCodePoolScheduler(int parallelism) {
+        this(parallelism, DEFAULT_IO_THREADS);
+    }
+
+    /**
+     * @param parallelism 任务线程池并行度
+     * @param ioThreads   I/O线程池线程数
+     */
+    public CouponCodePoolScheduler(int parallelism, int ioThreads) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        if (ioThreads < 1) {
+            throw new IllegalArgumentException("ioThreads must be positive: " + ioThreads);
+        }
+        this.executor = Executors.newWorkStealingPool(parallelism);
+        this.ioExecutor = new ThreadPoolExecutor(ioThreads, ioThreads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        this.ioExecutor.allowCoreThreadTimeOut(true);
+        this.timer = new ScheduledThreadPoolExecutor(1);
+        // 异步等待者完成后取消超时任务，需要及时移除
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * 获取任务线程池，任务中的阻塞操作应以{@link java.util.concurrent.ForkJoinPool#managedBlock}执行
+     *
+     * @return 任务线程池
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * 获取I/O线程池，执行只访问数据库的任务
+     *
+     * @return I/O线程池
+     */
+    public ExecutorService getIoExecutor() {
+        return ioExecutor;
+    }
+
+    /**
+     * 获取定时线程，定时任务应尽快完成，耗时的工作提交至{@link #getExecutor()}或{@link #getIoExecutor()}
+     *
+     * @return 定时线程
+     */
+    public ScheduledExecutorService getTimer() {
+        return timer;
+    }
+
+    /**
+     * 关闭调度器
+     */
+    public void shutdown() {
+        this.timer.shutdownNow();
+        this.executor.shutdown();
+        this.ioExecutor.shutdown();
+        try {
+            if (!this.executor.awaitTermination(1L, TimeUnit.SECONDS)) {
+                this.executor.shutdownNow();
+            }
+            if (!this.ioExecutor.awaitTermination(1L, TimeUnit.SECONDS)) {
+                this.ioExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            this.executor.shutdownNow();
+            this.ioExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.co.kc.couponcode.core;
+
+/**
+ * 指数加权移动平均(EWMA)
+ * <p>
+ * 仅允许单线程更新，其他线程可随时读取最近的平均值。
+ *
+ * @author kc
+ */
+final class Ewma {
+
+    /**
+     * 平滑系数，越大越偏向最近的样本
+     */
+    private final double alpha;
+    private volatile double value;
+    private volatile boolean initialized;
+
+    Ewma(double alpha) {
+        if (!(alpha > 0 && alpha <= 1)) {
+            throw new IllegalArgumentException("alpha must be in (0, 1]: " + alpha);
+        }
+        this.alpha = alpha;
+    }
+
+    /**
+     * 加入样本，首个样本直接作为平均值
+     *
+     * @param sample 样本
+     */
+    void update(double sample) {
+        if (initialized) {
+            value += alpha * (sample - value);
+        } else {
+            value = sample;
+            initialized = true;
+        }
+    }
+
+    /**
+     * 获取平均值
+     *
+     * @return 平均值，尚无样本时为0
+     */
+    double get() {
+        return value;
+    }
+}
@@ -0,0 +1,238 @@
+package com.co.kc.couponcode.core;
+
+import com.co.kc.couponcode.core.model.ICode;
+import com.co.kc.couponcode.core.model.ICodeConsumer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * 有界无锁多生产者多消费者环形队列，存放热池券码(no, code)
+ * <p>
+ * 参考Dmitry Vyukov的bounded MPMC queue：每个槽位维护一个序号，生产者/消费者通过CAS竞争tail/head后
+ * 读写槽位，再发布序号，全程无锁。券码以原始long存储，不为每个券码创建对象；format为共享的字符串引用。
+ * head/tail前后填充至独占缓存行，避免生产者与消费者之间的伪共享。
+ *
+ * @author kc
+ */
+final class HotCodeRing {
+
+    private final int capacity;
+    private final int mask;
+    /**
+     * 槽位序号：等于pos表示可写入第pos个元素，等于pos+1表示第pos个元素可读取
+     */
+    private final AtomicLongArray sequences;
+    private final long[] nos;
+    private final long[] codes;
+    private final String[] formats;
+
+    private final PaddedCounter head = new PaddedCounter();
+    private final PaddedCounter tail = new PaddedCounter();
+
+    /**
+     * @param capacity 容量，向上取整为2的幂
+     */
+    HotCodeRing(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be in [1, 2^30]: " + capacity);
+        }
+        this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.sequences = new AtomicLongArray(this.capacity);
+        this.nos = new long[this.capacity];
+        this.codes = new long[this.capacity];
+        this.formats = new String[this.capacity];
+        for (int i = 0; i < this.capacity; i++) {
+            sequences.lazySet(i, i);
+        }
+    }
+
+    /**
+     * 写入券码
+     *
+     * @param no     编号
+     * @param code   券码
+     * @param format 格式
+     * @return 队列已满时返回false
+     */
+    boolean offer(long no, long code, String format) {
+        for (; ; ) {
+            long pos = tail.get();
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    nos[index] = no;
+                    codes[index] = code;
+                    formats[index] = format;
+                    sequences.set(index, pos + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 取出券码并转换，转换在槽位释放前完成，无需复制出中间对象
+     *
+     * @param mapper 转换函数
+     * @param <R>    转换结果类型
+     * @return 转换结果，队列为空时返回null
+     */
+    <R> R poll(CodeMapper<R> mapper) {
+        for (; ; ) {
+            long pos = head.get();
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - (pos + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    try {
+                        return mapper.map(nos[index], codes[index], formats[index]);
+                    } finally {
+                        release(index, pos);
+                    }
+                }
+            } else if (diff < 0) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 批量取出至多max个连续的券码，一次CAS占用全部槽位
+     * <p>
+     * consumer抛出异常时，本批剩余的槽位同样释放，其券码丢弃。
+     *
+     * @param consumer 券码消费者
+     * @param max      最大数量
+     * @return 取出数量，队列为空时返回0
+     */
+    int drain(ICodeConsumer consumer, int max) {
+        if (max <= 0) {
+            return 0;
+        }
+        for (; ; ) {
+            long pos = head.get();
+            long diff = sequences.get((int) (pos & mask)) - (pos + 1);
+            if (diff < 0) {
+                return 0;
+            }
+            if (diff > 0) {
+                continue;
+            }
+            // 槽位已发布后在被消费前保持可读，逐个确认连续可读的数量
+            int ready = 1;
+            for (int limit = Math.min(max, capacity); ready < limit
+                    && sequences.get((int) ((pos + ready) & mask)) == pos + ready + 1; ) {
+                ready++;
+            }
+            if (!head.compareAndSet(pos, pos + ready)) {
+                continue;
+            }
+            int i = 0;
+            try {
+                for (; i < ready; i++) {
+                    int index = (int) ((pos + i) & mask);
+                    consumer.accept(nos[index], codes[index], formats[index]);
+                    release(index, pos + i);
+                }
+            } finally {
+                for (; i < ready; i++) {
+                    release((int) ((pos + i) & mask), pos + i);
+                }
+            }
+            return ready;
+        }
+    }
+
+    private void release(int index, long pos) {
+        formats[index] = null;
+        sequences.set(index, pos + capacity);
+    }
+
+    /**
+     * 当前大小(并发时为近似值)
+     *
+     * @return 大小
+     */
+    int size() {
+        long h = head.get();
+        long t = tail.get();
+        return (int) Math.max(0, Math.min(t - h, capacity));
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * 获取当前券码快照(并发时为近似值)，仅用于监控与测试
+     *
+     * @return 券码列表
+     */
+    List<ICode> snapshot() {
+        List<ICode> list = new ArrayList<>();
+        for (long pos = head.get(), end = tail.get(); pos < end; pos++) {
+            int index = (int) (pos & mask);
+            String format = formats[index];
+            if (sequences.get(index) == pos + 1 && format != null) {
+                list.add(new CouponCodePool.PoolCode(nos[index], codes[index], format));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 券码转换函数
+     *
+     * @param <R> 转换结果类型
+     */
+    @FunctionalInterface
+    interface CodeMapper<R> {
+        /**
+         * 转换券码
+         *
+         * @param no     编号
+         * @param code   券码
+         * @param format 格式
+         * @return 转换结果
+         */
+        R map(long no, long code, String format);
+    }
+
+    /**
+     * 前后各填充7个long，使value独占一个缓存行
+     */
+    @SuppressWarnings("unused")
+    private abstract static class LeftPadding {
+        protected long p1, p2, p3, p4, p5, p6, p7;
+    }
+
+    private abstract static class Value extends LeftPadding {
+        protected volatile long value;
+    }
+
+    @SuppressWarnings("unused")
+    private static final class PaddedCounter extends Value {
+        private static final AtomicLongFieldUpdater<Value> UPDATER = AtomicLongFieldUpdater.newUpdater(Value.class, "value");
+
+        protected long p9, p10, p11, p12, p13, p14, p15;
+
+        long get() {
+            return value;
+        }
+
+        boolean compareAndSet(long expect, long update) {
+            return UPDATER.compareAndSet(this, expect, update);
+        }
+    }
+}
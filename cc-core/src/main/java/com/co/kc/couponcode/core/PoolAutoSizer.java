@@ -0,0 +1,165 @@
+package com.co.kc.couponcode.core;
+
+import com.google.common.annotations.VisibleForTesting;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 券码池大小自动调整
+ * <p>
+ * 定时采样每个券码池的发放速率(EWMA)，结合券码池记录的补货耗时与刷新生成器耗时(EWMA)，
+ * 使热池低水位足以覆盖一次补货期间的消耗：hot = rate * (refill + flush) * HEADROOM / 低水位比例，冷池为热池的COLD_HOT_RATIO倍。
+ * 速率上升时立即扩容；空闲时速率衰减，每个周期最多缩小一半，逐步回落至下限。
+ * 热池越大，宕机时已刷新但未发放的券码越多，因此只保留覆盖补货耗时所需的大小。
+ *
+ * @author kc
+ */
+public class PoolAutoSizer {
+    private static final Logger LOG = LoggerFactory.getLogger(PoolAutoSizer.class);
+
+    private static final double RATE_EWMA_ALPHA = 0.3;
+    /**
+     * 补货耗时放大系数，应对速率突增与耗时抖动
+     */
+    private static final double HEADROOM = 2.0;
+    private static final int COLD_HOT_RATIO = 10;
+
+    public static final int DEFAULT_MIN_HOT_POOL_SIZE = 10;
+    public static final int DEFAULT_MAX_HOT_POOL_SIZE = 1024;
+    public static final int DEFAULT_MIN_COLD_POOL_SIZE = 100;
+    public static final int DEFAULT_MAX_COLD_POOL_SIZE = 1_000_000;
+    public static final long DEFAULT_PERIOD_MILLIS = 1000L;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+    private final List<PoolSample> samples;
+    @Getter
+    private final int minHotPoolSize;
+    @Getter
+    private final int maxHotPoolSize;
+    @Getter
+    private final int minColdPoolSize;
+    @Getter
+    private final int maxColdPoolSize;
+    @Getter
+    private final long periodMillis;
+
+    public PoolAutoSizer(List<CouponCodePool> pools) {
+        this(pools, DEFAULT_MIN_HOT_POOL_SIZE, DEFAULT_MAX_HOT_POOL_SIZE,
+                DEFAULT_MIN_COLD_POOL_SIZE, DEFAULT_MAX_COLD_POOL_SIZE, DEFAULT_PERIOD_MILLIS);
+    }
+
+    public PoolAutoSizer(List<CouponCodePool> pools, int minHotPoolSize, int maxHotPoolSize,
+                         int minColdPoolSize, int maxColdPoolSize, long periodMillis) {
+        if (minHotPoolSize < 1 || minHotPoolSize > maxHotPoolSize
+                || minColdPoolSize < 1 || minColdPoolSize > maxColdPoolSize || periodMillis <= 0) {
+            throw new IllegalArgumentException("invalid pool size bounds or period");
+        }
+        this.samples = new ArrayList<>(pools.size());
+        for (CouponCodePool pool : pools) {
+            this.samples.add(new PoolSample(pool));
+        }
+        this.minHotPoolSize = minHotPoolSize;
+        this.maxHotPoolSize = maxHotPoolSize;
+        this.minColdPoolSize = minColdPoolSize;
+        this.maxColdPoolSize = maxColdPoolSize;
+        this.periodMillis = periodMillis;
+    }
+
+    /**
+     * 启动定时调整
+     */
+    public void init() {
+        this.executor.scheduleWithFixedDelay(this::tick, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止定时调整
+     */
+    public void destroy() {
+        this.executor.shutdown();
+    }
+
+    private void tick() {
+        try {
+            tick(System.nanoTime());
+        } catch (Exception e) {
+            LOG.error("调整券码池大小发生异常", e);
+        }
+    }
+
+    /**
+     * 采样发放速率并调整所有券码池
+     *
+     * @param now 当前时间(纳秒)
+     */
+    @VisibleForTesting
+    /* private */ void tick(long now) {
+        for (PoolSample sample : samples) {
+            long issuedCount = sample.pool.getIssuedCount();
+            if (sample.sampled && now > sample.lastTick) {
+                double rate = (issuedCount - sample.lastIssuedCount) * 1e9 / (now - sample.lastTick);
+                sample.rate.update(rate);
+                resize(sample.pool, sample.rate.get());
+            }
+            sample.lastIssuedCount = issuedCount;
+            sample.lastTick = now;
+            sample.sampled = true;
+        }
+    }
+
+    /**
+     * 按发放速率调整券码池大小
+     *
+     * @param pool 券码池
+     * @param rate 发放速率(个/秒)
+     */
+    @VisibleForTesting
+    /* private */ void resize(CouponCodePool pool, double rate) {
+        double refillSeconds = (pool.getRefillNanos() + pool.getFlushNanos()) / 1e9;
+        // 补货从低水位开始，低水位需覆盖一次补货期间的消耗
+        long hotTarget = (long) Math.ceil(rate * refillSeconds * HEADROOM / pool.getHotPoolLowWatermarkRatio());
+        int maxHot = Math.min(maxHotPoolSize, pool.getHotPoolCapacity());
+        int hot = adjust(pool.getMaxHotPoolSize(), hotTarget, Math.min(minHotPoolSize, maxHot), maxHot);
+        int cold = adjust(pool.getMaxColdPoolSize(), (long) hot * COLD_HOT_RATIO, minColdPoolSize, maxColdPoolSize);
+        if (hot != pool.getMaxHotPoolSize() || cold != pool.getMaxColdPoolSize()) {
+            LOG.info("调整券码池大小，发放速率:{}/s，补货耗时:{}ms，热池:{}->{}，冷池:{}->{}",
+                    (long) rate, refillSeconds * 1e3, pool.getMaxHotPoolSize(), hot, pool.getMaxColdPoolSize(), cold);
+            pool.setMaxColdPoolSize(cold);
+            pool.setMaxHotPoolSize(hot);
+        }
+    }
+
+    /**
+     * 扩容立即生效，缩容每次最多缩小一半
+     */
+    private static int adjust(int current, long target, int min, int max) {
+        long size = Math.max(min, Math.min(max, target));
+        if (size < current) {
+            size = Math.max(size, current / 2);
+        }
+        return (int) Math.max(min, Math.min(max, size));
+    }
+
+    /**
+     * 单个券码池的采样状态，仅由调整线程访问
+     */
+    private static class PoolSample {
+        private final CouponCodePool pool;
+        private final Ewma rate = new Ewma(RATE_EWMA_ALPHA);
+        private long lastIssuedCount;
+        private long lastTick;
+        private boolean sampled;
+
+        private PoolSample(CouponCodePool pool) {
+            this.pool = pool;
+        }
+    }
+}
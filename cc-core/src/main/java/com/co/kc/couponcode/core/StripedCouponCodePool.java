@@ -0,0 +1,322 @@
+package com.co.kc.couponcode.core;
+
+import com.co.kc.couponcode.common.exception.BusinessException;
+import com.co.kc.couponcode.common.model.Generator;
+import com.co.kc.couponcode.core.model.ICodeConsumer;
+import com.co.kc.couponcode.core.persistence.ICodeGen;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 分片券码池
+ * <p>
+ * 由N个独立的{@link CouponCodePool}组成，每个分片有各自的热池、冷池、填充线程和生成器(ICodeGen各自选取不同的生成器)，
+ * 调用线程按线程ID固定映射到一个分片，分片之间互不竞争。
+ * 所在分片热池为空时依次从其他分片窃取券码，所有分片均为空时才在所在分片上等待。
+ *
+ * @author kc
+ */
+public class StripedCouponCodePool implements Generator<String> {
+
+    private final CouponCodePool[] shards;
+
+    /**
+     * @param codeGenSupplier 生成器工厂，每个分片使用独立的ICodeGen
+     * @param shardCount      分片数量
+     */
+    public StripedCouponCodePool(Supplier<ICodeGen> codeGenSupplier, int shardCount) {
+        this(codeGenSupplier, shardCount, CouponCodePool.DEFAULT_HOT_POOL_SIZE, CouponCodePool.DEFAULT_COLD_POOL_SIZE);
+    }
+
+    /**
+     * @param codeGenSupplier 生成器工厂，每个分片使用独立的ICodeGen
+     * @param shardCount      分片数量
+     * @param maxHotPoolSize  每个分片的热池最大大小
+     * @param maxColdPoolSize 每个分片的冷池最大大小
+     */
+    public StripedCouponCodePool(Supplier<ICodeGen> codeGenSupplier, int shardCount, int maxHotPoolSize, int maxColdPoolSize) {
+        this(codeGenSupplier, shardCount, 1, maxHotPoolSize, maxColdPoolSize);
+    }
+
+    /**
+     * @param codeGenSupplier 生成器工厂，每个分片使用独立的ICodeGen
+     * @param shardCount      分片数量
+     * @param generatorCount  每个分片同时使用的生成器数量
+     */
+    public StripedCouponCodePool(Supplier<ICodeGen> codeGenSupplier, int shardCount, int generatorCount) {
+        this(codeGenSupplier, shardCount, generatorCount, CouponCodePool.DEFAULT_HOT_POOL_SIZE, CouponCodePool.DEFAULT_COLD_POOL_SIZE);
+    }
+
+    /**
+     * @param codeGenSupplier 生成器工厂，每个分片的每个生成器使用独立的ICodeGen
+     * @param shardCount      分片数量
+     * @param generatorCount  每个分片同时使用的生成器数量
+     * @param maxHotPoolSize  每个分片的热池最大大小
+     * @param maxColdPoolSize 每个分片的冷池最大大小
+     */
+    public StripedCouponCodePool(Supplier<ICodeGen> codeGenSupplier, int shardCount, int generatorCount,
+                                 int maxHotPoolSize, int maxColdPoolSize) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("shardCount must be positive: " + shardCount);
+        }
+        this.shards = new CouponCodePool[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            this.shards[i] = new CouponCodePool(codeGenSupplier, generatorCount, maxHotPoolSize, maxColdPoolSize);
+        }
+    }
+
+    /**
+     * 初始化所有分片
+     */
+    public void init() {
+        for (CouponCodePool shard : shards) {
+            shard.init();
+        }
+    }
+
+    /**
+     * 销毁所有分片
+     */
+    public void destroy() {
+        for (CouponCodePool shard : shards) {
+            shard.destroy();
+        }
+    }
+
+    @Override
+    public String next() throws InterruptedException {
+        String code = tryNext();
+        return code != null ? code : home(shardIndex()).next();
+    }
+
+    /**
+     * 非阻塞地获取券码，所在分片为空时窃取其他分片
+     *
+     * @return 券码，所有分片均为空时返回null
+     */
+    public String tryNext() {
+        int index = shardIndex();
+        home(index);
+        String[] code = new String[1];
+        steal((no, value, format) -> code[0] = CouponCodePool.format(no, value, format), index, 1);
+        return code[0];
+    }
+
+    /**
+     * 异步获取券码，所有分片均为空时在所在分片上登记等待者；所在分片暂停或未运行时以{@link BusinessException}异常完成
+     *
+     * @param timeout 超时时间
+     * @param unit    超时时间单位
+     * @return 券码
+     */
+    public CompletableFuture<String> nextAsync(long timeout, TimeUnit unit) {
+        try {
+            String code = tryNext();
+            if (code != null) {
+                return CompletableFuture.completedFuture(code);
+            }
+            return home(shardIndex()).nextAsync(timeout, unit);
+        } catch (BusinessException e) {
+            return CouponCodePool.failedFuture(e);
+        }
+    }
+
+    /**
+     * 批量获取券码，所有分片不足时在所在分片上最多等待1秒
+     *
+     * @param n 数量
+     * @return 券码列表，超时时返回已获取的部分
+     * @throws InterruptedException 中断异常
+     */
+    @Override
+    public List<String> next(int n) throws InterruptedException {
+        return next(n, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 批量获取券码，先取所在分片与其他分片现有的券码，不足时在所在分片上等待直至凑足n个或超时
+     *
+     * @param n       数量
+     * @param timeout 超时时间
+     * @param unit    超时时间单位
+     * @return 券码列表，超时时返回已获取的部分
+     * @throws InterruptedException 中断异常
+     */
+    public List<String> next(int n, long timeout, TimeUnit unit) throws InterruptedException {
+        List<String> list = new ArrayList<>(Math.max(n, 0));
+        drainTo(list::add, n);
+        if (list.size() < n) {
+            try {
+                list.addAll(home(shardIndex()).next(n - list.size(), timeout, unit));
+            } catch (BusinessException e) {
+                if (list.isEmpty()) {
+                    throw e;
+                }
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public int drainTo(Consumer<? super String> consumer, int maxElements) {
+        return drainTo((no, code, format) -> consumer.accept(CouponCodePool.format(no, code, format)), maxElements);
+    }
+
+    /**
+     * 非阻塞地从所在分片及其他分片批量获取现有的券码，按原始值交给consumer
+     *
+     * @param consumer    券码消费者
+     * @param maxElements 最大数量
+     * @return 实际数量
+     */
+    public int drainTo(ICodeConsumer consumer, int maxElements) {
+        int index = shardIndex();
+        home(index);
+        return steal(consumer, index, maxElements);
+    }
+
+    /**
+     * 从所在分片开始依次取出现有的券码，跳过未运行(包括暂停)的分片，不抛出异常
+     */
+    private int steal(ICodeConsumer consumer, int index, int maxElements) {
+        int drained = 0;
+        for (int i = 0; i < shards.length && drained < maxElements; i++) {
+            drained += shards[(index + i) % shards.length].steal(consumer, maxElements - drained);
+        }
+        return drained;
+    }
+
+    private CouponCodePool home(int index) {
+        CouponCodePool home = shards[index];
+        if (!CouponCodePool.PoolStatus.RUNNING.equals(home.getStatus())) {
+            throw new BusinessException("券码池状态异常");
+        }
+        return home;
+    }
+
+    private int shardIndex() {
+        return shards.length == 1 ? 0 : (int) (Thread.currentThread().getId() % shards.length);
+    }
+
+    /**
+     * 获取分片数量
+     *
+     * @return 分片数量
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * 获取所有分片
+     *
+     * @return 分片列表
+     */
+    public List<CouponCodePool> getShards() {
+        List<CouponCodePool> list = new ArrayList<>(shards.length);
+        Collections.addAll(list, shards);
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * 获取所有分片热池大小之和
+     *
+     * @return 热池大小
+     */
+    public int getHotPoolSize() {
+        int size = 0;
+        for (CouponCodePool shard : shards) {
+            size += shard.getHotPoolSize();
+        }
+        return size;
+    }
+
+    /**
+     * 获取所有分片热池最大大小之和
+     *
+     * @return 热池最大大小
+     */
+    public int getMaxHotPoolSize() {
+        int size = 0;
+        for (CouponCodePool shard : shards) {
+            size += shard.getMaxHotPoolSize();
+        }
+        return size;
+    }
+
+    /**
+     * 获取所有分片补货吞吐量之和，即可持续的发放速率
+     *
+     * @return 每秒券码数量
+     */
+    public double getRefillThroughput() {
+        double throughput = 0;
+        for (CouponCodePool shard : shards) {
+            throughput += shard.getRefillThroughput();
+        }
+        return throughput;
+    }
+
+    /**
+     * 获取所有分片冷池大小之和
+     *
+     * @return 冷池大小
+     */
+    public long getColdPoolSize() {
+        long size = 0;
+        for (CouponCodePool shard : shards) {
+            size += shard.getColdPoolSize();
+        }
+        return size;
+    }
+
+    /**
+     * 设置每个分片的热池最大容量
+     *
+     * @param maxHotPoolSize 最大容量
+     */
+    public void setMaxHotPoolSize(int maxHotPoolSize) {
+        for (CouponCodePool shard : shards) {
+            shard.setMaxHotPoolSize(maxHotPoolSize);
+        }
+    }
+
+    /**
+     * 设置每个分片的热池低水位比例
+     *
+     * @param hotPoolLowWatermarkRatio 低水位比例(0, 1]
+     */
+    public void setHotPoolLowWatermarkRatio(double hotPoolLowWatermarkRatio) {
+        for (CouponCodePool shard : shards) {
+            shard.setHotPoolLowWatermarkRatio(hotPoolLowWatermarkRatio);
+        }
+    }
+
+    /**
+     * 设置每个分片冷热池填充的并行度，只能在初始化前设置
+     *
+     * @param coldFillParallelism 并行度，1表示单线程
+     */
+    public void setColdFillParallelism(int coldFillParallelism) {
+        for (CouponCodePool shard : shards) {
+            shard.setColdFillParallelism(coldFillParallelism);
+        }
+    }
+
+    /**
+     * 设置每个分片的冷池最大容量
+     *
+     * @param maxColdPoolSize 最大容量
+     */
+    public void setMaxColdPoolSize(int maxColdPoolSize) {
+        for (CouponCodePool shard : shards) {
+            shard.setMaxColdPoolSize(maxColdPoolSize);
+        }
+    }
+}
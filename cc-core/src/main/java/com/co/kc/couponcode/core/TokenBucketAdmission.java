@@ -0,0 +1,121 @@
+package com.co.kc.couponcode.core;
+
+import com.co.kc.couponcode.common.exception.RateLimitException;
+import com.google.common.annotations.VisibleForTesting;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+
+/**
+ * 券码池准入控制(令牌桶)
+ * <p>
+ * 令牌生成速率取券码池的可持续发放速率，即补货吞吐量(热池补货期间每秒补入的券码数量)，桶容量取热池最大大小，
+ * 超出的请求立即以不记录堆栈的{@link RateLimitException}拒绝并给出重试等待时间，不再占用线程等待热池补货。
+ * <p>
+ * 以GCRA实现：只记录理论到达时间(TAT)，每个请求将其推后permits个令牌间隔，超出桶容量对应的时间则拒绝，
+ * 一次CAS完成，无需定时补充令牌。
+ *
+ * @author kc
+ */
+public class TokenBucketAdmission {
+
+    /**
+     * 尚无补货吞吐量样本(或吞吐量过低)时的最低速率(每秒)
+     */
+    public static final double DEFAULT_MIN_RATE = 100.0;
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final long NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1L);
+
+    private final DoubleSupplier rateSupplier;
+    private final IntSupplier burstSupplier;
+    private final double minRate;
+    /**
+     * 理论到达时间(纳秒)，早于当前时间说明桶已满
+     */
+    private final AtomicLong theoreticalArrival = new AtomicLong(System.nanoTime());
+
+    /**
+     * @param rateSupplier  可持续发放速率(每秒)
+     * @param burstSupplier 桶容量，即允许的突发数量
+     * @param minRate       最低速率(每秒)
+     */
+    public TokenBucketAdmission(DoubleSupplier rateSupplier, IntSupplier burstSupplier, double minRate) {
+        if (!(minRate > 0)) {
+            throw new IllegalArgumentException("minRate must be positive: " + minRate);
+        }
+        this.rateSupplier = rateSupplier;
+        this.burstSupplier = burstSupplier;
+        this.minRate = minRate;
+    }
+
+    /**
+     * 以券码池的补货吞吐量及热池最大大小控制准入
+     *
+     * @param pool 券码池
+     * @return 准入控制
+     */
+    public static TokenBucketAdmission of(CouponCodePool pool) {
+        return new TokenBucketAdmission(pool::getRefillThroughput, pool::getMaxHotPoolSize, DEFAULT_MIN_RATE);
+    }
+
+    /**
+     * 以所有分片的补货吞吐量之和及热池最大大小之和控制准入
+     *
+     * @param pool 分片券码池
+     * @return 准入控制
+     */
+    public static TokenBucketAdmission of(StripedCouponCodePool pool) {
+        return new TokenBucketAdmission(pool::getRefillThroughput, pool::getMaxHotPoolSize, DEFAULT_MIN_RATE);
+    }
+
+    /**
+     * 申请令牌，不足时立即拒绝
+     *
+     * @param permits 令牌数量，即券码数量
+     * @throws RateLimitException 令牌不足
+     */
+    public void acquire(int permits) {
+        long waitNanos = tryAcquire(permits, System.nanoTime());
+        if (waitNanos > 0) {
+            long retryAfterMillis = (waitNanos + NANOS_PER_MILLI - 1) / NANOS_PER_MILLI;
+            throw new RateLimitException("请求太频繁，请稍后重试", retryAfterMillis);
+        }
+    }
+
+    /**
+     * 申请令牌，超过桶容量的申请只在桶满时通过
+     *
+     * @param permits 令牌数量
+     * @param now     当前时间(纳秒)
+     * @return 0表示通过，否则为需要等待的纳秒数
+     */
+    @VisibleForTesting
+    /* private */ long tryAcquire(int permits, long now) {
+        double rate = getRate();
+        long cost = (long) Math.ceil(permits * NANOS_PER_SECOND / rate);
+        long tolerance = (long) (Math.max(Math.max(1, burstSupplier.getAsInt()), permits) * NANOS_PER_SECOND / rate);
+        for (; ; ) {
+            long tat = theoreticalArrival.get();
+            long start = tat - now < 0 ? now : tat;
+            long next = start + cost;
+            long waitNanos = next - now - tolerance;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (theoreticalArrival.compareAndSet(tat, next)) {
+                return 0L;
+            }
+        }
+    }
+
+    /**
+     * 获取当前令牌生成速率
+     *
+     * @return 每秒令牌数量
+     */
+    public double getRate() {
+        return Math.max(minRate, rateSupplier.getAsDouble());
+    }
+}
@@ -0,0 +1,42 @@
+package com.co.kc.couponcode.core.algo;
+
+import com.co.kc.couponcode.core.model.IFactor;
+import lombok.Getter;
+
+/**
+ * 线性同余算法生成器(Linear congruential generator)
+ * <p>
+ * For m = 10^e, 券码空间与十进制位数完全一致，没有浪费的号段。
+ * 根据赫尔-多贝尔(Hull–Dobell)定理，m = 2^e * 5^e时需满足：
+ * c与10互质，a ≡ 1 (mod 20)；另取(a-1)/20与10互质，使势(potency)达到最大值e。
+ * <p>
+ * a取m*(√5-1)/2附近，c取m*(1/2-√3/6)附近的合法值；运算使用Barrett约减，无需除法。
+ *
+ * @author kc
+ */
+@Getter
+public enum DecimalLcgFactor implements IFactor {
+    PERIOD_100000000(61803381L, 21132487L, 100000000L, "%08d"),
+    PERIOD_1000000000(618033981L, 211324867L, 1000000000L, "%09d"),
+    PERIOD_10000000000(6180339941L, 2113248657L, 10000000000L, "%010d"),
+    PERIOD_100000000000(61803398861L, 21132486541L, 100000000000L, "%011d"),
+    PERIOD_1000000000000(618033988741L, 211324865407L, 1000000000000L, "%012d"),
+    PERIOD_10000000000000(6180339887541L, 2113248654051L, 10000000000000L, "%013d"),
+    PERIOD_1000000000000000(618033988749941L, 211324865405187L, 1000000000000000L, "%015d"),
+    PERIOD_1000000000000000000(618033988749894941L, 211324865405187137L, 1000000000000000000L, "%018d"),
+    ;
+
+    private final long a;
+    private final long c;
+    private final long m;
+    private final String format;
+    private final LcgEngine engine;
+
+    DecimalLcgFactor(long a, long c, long m, String format) {
+        this.a = a;
+        this.c = c;
+        this.m = m;
+        this.format = format;
+        this.engine = LcgEngine.of(a, c, m);
+    }
+}
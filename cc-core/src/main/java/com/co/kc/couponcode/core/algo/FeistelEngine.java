@@ -0,0 +1,171 @@
+package com.co.kc.couponcode.core.algo;
+
+import com.co.kc.couponcode.core.model.ICodeEngine;
+import lombok.Getter;
+
+/**
+ * 基于计数器的Feistel置换引擎
+ * <p>
+ * 以密钥构造[0, 2^(2h))上的平衡Feistel网络(2^(2h) >= m)，再通过循环遍历(cycle-walking)
+ * 将结果限制在[0, m)内，得到[0, m)上的可逆置换P：第index个券码为P(index)。
+ * <li>任意下标的券码均可O(1)计算，券码也可逆推回下标，生成器状态退化为计数器。</li>
+ * <li>Xn+1 = P(P^-1(Xn) + 1)，因此与线性同余算法一样可用券码本身作为状态，从任意x0出发走m步回到x0。</li>
+ * <li>每一位都经过轮函数充分混合，不存在m为2的幂时线性同余算法低位周期短的问题。</li>
+ * <p>
+ * 2^(2h) < 4m，因此循环遍历平均不超过4次。轮函数不是密码学安全的，仅用于打散券码。
+ *
+ * @author kc
+ */
+public final class FeistelEngine implements ICodeEngine {
+
+    /**
+     * 支持的最大modulo，保证2h <= 62
+     */
+    public static final long MAX_MODULO = 1L << 62;
+    /**
+     * 默认轮数
+     */
+    public static final int DEFAULT_ROUNDS = 8;
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    @Getter
+    private final long m;
+    @Getter
+    private final int rounds;
+    /**
+     * 半块位数h
+     */
+    private final int halfBits;
+    private final long halfMask;
+    private final long[] roundKeys;
+
+    /**
+     * @param key    密钥
+     * @param tweak  调整值(如生成器编号no)，不同的tweak得到不同的置换
+     * @param m      modulo，取值[2, 2^62]
+     * @param rounds 轮数(>= 2)
+     */
+    public FeistelEngine(long key, long tweak, long m, int rounds) {
+        if (m < 2 || m > MAX_MODULO) {
+            throw new IllegalArgumentException("m must be in [2, 2^62]: " + m);
+        }
+        if (rounds < 2) {
+            throw new IllegalArgumentException("rounds must be at least 2: " + rounds);
+        }
+        this.m = m;
+        this.rounds = rounds;
+        int bits = Long.SIZE - Long.numberOfLeadingZeros(m - 1);
+        this.halfBits = (bits + 1) >>> 1;
+        this.halfMask = (1L << halfBits) - 1;
+        this.roundKeys = new long[rounds];
+        long seed = mix(key) ^ mix(tweak + GOLDEN_GAMMA);
+        for (int i = 0; i < rounds; i++) {
+            seed += GOLDEN_GAMMA;
+            roundKeys[i] = mix(seed);
+        }
+    }
+
+    /**
+     * 计算第index个券码P(index)
+     *
+     * @param index 下标，取值[0, m)
+     * @return 券码
+     */
+    public long encode(long index) {
+        long x = index;
+        do {
+            x = encrypt(x);
+        } while (x >= m);
+        return x;
+    }
+
+    /**
+     * 由券码逆推下标P^-1(code)
+     *
+     * @param code 券码，取值[0, m)
+     * @return 下标
+     */
+    public long decode(long code) {
+        long x = code;
+        do {
+            x = decrypt(x);
+        } while (x >= m);
+        return x;
+    }
+
+    @Override
+    public long next(long xn) {
+        return encode(increase(decode(reduce(xn)), 1));
+    }
+
+    @Override
+    public int fill(long xn, long end, long[] out, int offset, int length) {
+        long index = decode(reduce(xn));
+        for (int i = 0; i < length; i++) {
+            index = increase(index, 1);
+            long x = encode(index);
+            if (x == end) {
+                return i;
+            }
+            out[offset + i] = x;
+        }
+        return length;
+    }
+
+    @Override
+    public long jump(long xn, long steps) {
+        if (steps < 0) {
+            throw new IllegalArgumentException("steps must not be negative: " + steps);
+        }
+        return encode(increase(decode(reduce(xn)), steps % m));
+    }
+
+    @Override
+    public long distance(long x0, long xn) {
+        return Math.floorMod(decode(reduce(xn)) - decode(reduce(x0)), m);
+    }
+
+    /**
+     * (index + delta) mod m，index、delta均在[0, m)内，m <= 2^62不会溢出
+     */
+    private long increase(long index, long delta) {
+        long next = index + delta;
+        return next >= m ? next - m : next;
+    }
+
+    private long reduce(long xn) {
+        return xn >= 0 && xn < m ? xn : Math.floorMod(xn, m);
+    }
+
+    private long encrypt(long x) {
+        long left = x >>> halfBits;
+        long right = x & halfMask;
+        for (long roundKey : roundKeys) {
+            long t = left ^ (mix(right ^ roundKey) & halfMask);
+            left = right;
+            right = t;
+        }
+        return (left << halfBits) | right;
+    }
+
+    private long decrypt(long x) {
+        long left = x >>> halfBits;
+        long right = x & halfMask;
+        for (int i = roundKeys.length - 1; i >= 0; i--) {
+            long t = right ^ (mix(left ^ roundKeys[i]) & halfMask);
+            right = left;
+            left = t;
+        }
+        return (left << halfBits) | right;
+    }
+
+    /**
+     * MurmurHash3的64位终结函数
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+}
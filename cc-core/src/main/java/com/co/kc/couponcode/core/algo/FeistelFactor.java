@@ -0,0 +1,55 @@
+package com.co.kc.couponcode.core.algo;
+
+import com.co.kc.couponcode.core.model.IFactor;
+import lombok.Getter;
+
+/**
+ * Feistel置换生成器参数
+ * <p>
+ * 复用a存储密钥，c固定为0以区别于线性同余算法参数(满周期要求c与m互质，不可能为0)，
+ * 因此无需修改生成器表结构即可按(a, c, m)匹配生成器。
+ * 每个生成器通过{@link #withNo(long)}以编号no作为tweak派生独立的置换，即券码 = P(no, index)。
+ *
+ * @author kc
+ * @see FeistelEngine
+ */
+@Getter
+public class FeistelFactor implements IFactor {
+
+    private static final long NO_TWEAK = -1L;
+
+    private final long key;
+    private final long m;
+    private final String format;
+    private final int rounds;
+    private final long no;
+    private final FeistelEngine engine;
+
+    public FeistelFactor(long key, long m, String format) {
+        this(key, m, format, FeistelEngine.DEFAULT_ROUNDS, NO_TWEAK);
+    }
+
+    public FeistelFactor(long key, long m, String format, int rounds, long no) {
+        this.key = key;
+        this.m = m;
+        this.format = format;
+        this.rounds = rounds;
+        this.no = no;
+        this.engine = new FeistelEngine(key, no, m, rounds);
+    }
+
+    @Override
+    public long getA() {
+        return key;
+    }
+
+    @Override
+    public long getC() {
+        return 0L;
+    }
+
+    @Override
+    public FeistelFactor withNo(long no) {
+        return no == this.no ? this : new FeistelFactor(key, m, format, rounds, no);
+    }
+}
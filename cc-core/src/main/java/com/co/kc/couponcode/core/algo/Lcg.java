@@ -16,12 +16,100 @@ public class Lcg {
 
 
     /**
+     * 使用Factor预选的运算引擎计算，避免BigInteger运算
+     *
      * @param factor The factor of LCG
      * @param xn     Xn
      * @return Xn+1
+     * @see LcgEngine
      */
     public static long next(IFactor factor, long xn) {
-        return next(factor.getA(), xn, factor.getC(), factor.getM());
+        return factor.getEngine().next(xn);
+    }
+
+    /**
+     * 跳跃计算X(n+steps)，无需逐步迭代steps次
+     * <p>
+     * 由于f(x) = (a*x + c) mod m为仿射变换，f^(2^i)可由倍增得到，
+     * 因此按steps的二进制位组合即可在O(log steps)内得到结果。
+     *
+     * @param factor The factor of LCG
+     * @param xn     Xn
+     * @param steps  跳跃步数(>= 0)
+     * @return X(n+steps)
+     */
+    public static long jump(IFactor factor, long xn, long steps) {
+        return factor.getEngine().jump(xn, steps);
+    }
+
+    /**
+     * 从Xn开始批量生成后续状态并填满out，若回到x0(周期结束)则提前停止
+     *
+     * @param factor The factor of LCG
+     * @param xn     Xn
+     * @param x0     X0，即周期结束状态
+     * @param out    输出数组
+     * @return 实际生成数量，小于out.length说明已到达周期结束
+     */
+    public static int fill(IFactor factor, long xn, long x0, long[] out) {
+        return factor.getEngine().fill(xn, x0, out, 0, out.length);
+    }
+
+    /**
+     * 根据赫尔-多贝尔(Hull–Dobell)定理判断参数能否达到最大周期m
+     *
+     * @param factor The factor of LCG
+     * @return 是否满周期
+     * @see #next(long, long, long, long)
+     */
+    public static boolean isFullPeriod(IFactor factor) {
+        return isFullPeriod(factor.getA(), factor.getC(), factor.getM());
+    }
+
+    /**
+     * 根据赫尔-多贝尔(Hull–Dobell)定理判断参数能否达到最大周期m
+     *
+     * @param a multiplier
+     * @param c addend
+     * @param m modulo
+     * @return 是否满周期
+     * @see #next(long, long, long, long)
+     */
+    public static boolean isFullPeriod(long a, long c, long m) {
+        if (m <= 1 || a < 0 || a >= m || c <= 0 || c >= m) {
+            return false;
+        }
+        // 1. m和c互质
+        if (gcd(m, c) != 1) {
+            return false;
+        }
+        // 3. a-1能被4整除，如果m能被4整除
+        long a1 = a - 1;
+        if (m % 4 == 0 && a1 % 4 != 0) {
+            return false;
+        }
+        // 2. a-1能被m的所有质因子整除
+        long rest = m;
+        for (long p = 2; p <= rest / p; p++) {
+            if (rest % p == 0) {
+                if (a1 % p != 0) {
+                    return false;
+                }
+                while (rest % p == 0) {
+                    rest /= p;
+                }
+            }
+        }
+        return rest == 1 || a1 % rest == 0;
+    }
+
+    private static long gcd(long x, long y) {
+        while (y != 0) {
+            long t = y;
+            y = x % y;
+            x = t;
+        }
+        return x;
     }
 
     /**
@@ -41,7 +129,7 @@ public class Lcg {
      * @return Xn+1
      */
     public static long next(long a, long xn, long c, long m) {
-        // (a * xn + c) % m, 在运算过程中可能会存在字段溢出，因此这里转为BigInteger进行运算
+        // (a * xn + c) % m, 在运算过程中可能会存在字段溢出，因此这里转为BigInteger进行运算(仅作为LcgEngine的兜底)
         BigInteger abi = BigInteger.valueOf(a);
         BigInteger xnbi = BigInteger.valueOf(xn);
         BigInteger cbi = BigInteger.valueOf(c);
@@ -0,0 +1,119 @@
+package com.co.kc.couponcode.core.algo;
+
+import com.co.kc.couponcode.core.model.ICode;
+import com.co.kc.couponcode.core.model.IWideCode;
+import com.co.kc.couponcode.core.model.IWideFactor;
+import lombok.Getter;
+
+/**
+ * 128位线性同余算法(Linear congruential generator)，用于超出2^60的券码空间
+ * <p>
+ * 券码池以long表示券码，128位Factor以{@link ICode}表示时code为生成器内的位置：编号为no的生成器占用序列
+ * X(0) = 0 起第 no * 2^{@value #POSITION_BITS} 个状态开始的2^{@value #POSITION_BITS}个位置，
+ * 位置p对应的128位券码为X(no * 2^{@value #POSITION_BITS} + p)。
+ *
+ * @author kc
+ * @see Lcg128Engine
+ */
+public class Lcg128 {
+
+    /**
+     * 每个生成器占用的位置数量为2^POSITION_BITS
+     */
+    public static final int POSITION_BITS = 62;
+
+    private Lcg128() {
+    }
+
+    /**
+     * 原地计算Xn+1 = (a*Xn + c) mod 2^bits
+     *
+     * @param factor The factor of 128-bit LCG
+     * @param xn     Xn，xn[0]为高64位，xn[1]为低64位
+     */
+    public static void next(IWideFactor factor, long[] xn) {
+        factor.getWideEngine().next(xn);
+    }
+
+    /**
+     * 从Xn开始批量生成后续状态，按(高64位, 低64位)交替填满out，若回到x0(周期结束)则提前停止
+     *
+     * @param factor The factor of 128-bit LCG
+     * @param xn     Xn，xn[0]为高64位，xn[1]为低64位
+     * @param x0     X0，即周期结束状态
+     * @param out    输出数组，长度为生成数量的2倍
+     * @return 实际生成数量，小于out.length/2说明已到达周期结束
+     */
+    public static int fill(IWideFactor factor, long[] xn, long[] x0, long[] out) {
+        return factor.getWideEngine().fill(xn[0], xn[1], x0[0], x0[1], out, 0, out.length >> 1);
+    }
+
+    /**
+     * 格式化券码：编号 + 左侧补0的十进制code
+     *
+     * @param code 128位券码
+     * @return 券码字符串
+     */
+    public static String format(IWideCode code) {
+        return code.getNo() + UnsignedMath.toString(code.getCodeHigh(), code.getCodeLow(), code.getWidth());
+    }
+
+    /**
+     * 格式化券码：编号 + 左侧补0的十进制code，与{@link #format(IWideCode)}一致但不创建中间对象
+     *
+     * @param factor   The factor of 128-bit LCG
+     * @param no       编号
+     * @param position 生成器内的位置
+     * @return 券码字符串
+     */
+    public static String format(IWideFactor factor, long no, long position) {
+        long[] xn = locate(factor, no, position);
+        return no + UnsignedMath.toString(xn[0], xn[1], factor.getWidth());
+    }
+
+    /**
+     * 将以位置表示的券码转换为128位券码
+     *
+     * @param factor The factor of 128-bit LCG
+     * @param code   券码，code为生成器内的位置
+     * @return 128位券码
+     */
+    public static IWideCode toWideCode(IWideFactor factor, ICode code) {
+        long[] xn = locate(factor, code.getNo(), code.getCode());
+        return new WideCode(code.getNo(), xn[0], xn[1], factor.getWidth());
+    }
+
+    /**
+     * 计算编号为no的生成器中位置position的128位状态X(no * 2^{@value #POSITION_BITS} + position)
+     * <p>
+     * 跳跃次数为步数中1的位数，无需逐步迭代；2^64等较小的周期中生成器的位置区间循环使用，券码仍以编号区分。
+     *
+     * @param factor   The factor of 128-bit LCG
+     * @param no       编号
+     * @param position 生成器内的位置，[0, 2^{@value #POSITION_BITS})
+     * @return 128位状态，[0]为高64位，[1]为低64位
+     */
+    public static long[] locate(IWideFactor factor, long no, long position) {
+        if (no < 0 || position < 0 || position >= 1L << POSITION_BITS) {
+            throw new IllegalArgumentException("no or position out of range: " + no + ", " + position);
+        }
+        long[] xn = new long[2];
+        factor.getWideEngine().jump(xn, no >>> (Long.SIZE - POSITION_BITS), (no << POSITION_BITS) | position);
+        return xn;
+    }
+
+    @Getter
+    private static class WideCode implements IWideCode {
+        private final long no;
+        private final long codeHigh;
+        private final long codeLow;
+        private final int width;
+
+        private WideCode(long no, long codeHigh, long codeLow, int width) {
+            this.no = no;
+            this.codeHigh = codeHigh;
+            this.codeLow = codeLow;
+            this.width = width;
+        }
+    }
+}
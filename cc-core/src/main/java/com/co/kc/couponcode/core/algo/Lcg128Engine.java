@@ -0,0 +1,177 @@
+package com.co.kc.couponcode.core.algo;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * 128位线性同余算法运算引擎，m = 2^bits (64 <= bits <= 128)
+ * <p>
+ * 128位数值拆分为高低两个long表示，乘法只需保留乘积的低128位，
+ * 因此全程仅使用long运算，不依赖BigInteger且不分配对象。
+ *
+ * @author kc
+ */
+@Getter
+public final class Lcg128Engine {
+
+    /**
+     * multiplier
+     */
+    private final long aHigh;
+    private final long aLow;
+    /**
+     * addend
+     */
+    private final long cHigh;
+    private final long cLow;
+    /**
+     * modulo = 2^bits
+     */
+    private final int bits;
+    /**
+     * 高64位掩码
+     */
+    private final long highMask;
+    /**
+     * 跳跃表：X(n+2^i) = (jumpA[i]*Xn + jumpC[i]) mod 2^bits，按(高64位, 低64位)交替存放
+     */
+    @Getter(AccessLevel.NONE)
+    private final long[] jumpA;
+    @Getter(AccessLevel.NONE)
+    private final long[] jumpC;
+
+    public Lcg128Engine(long aHigh, long aLow, long cHigh, long cLow, int bits) {
+        if (bits < Long.SIZE || bits > 2 * Long.SIZE) {
+            throw new IllegalArgumentException("bits must be in [64, 128]: " + bits);
+        }
+        this.bits = bits;
+        this.highMask = bits == 2 * Long.SIZE ? -1L : (1L << (bits - Long.SIZE)) - 1;
+        this.aHigh = aHigh & highMask;
+        this.aLow = aLow;
+        this.cHigh = cHigh & highMask;
+        this.cLow = cLow;
+        this.jumpA = new long[bits << 1];
+        this.jumpC = new long[bits << 1];
+        // f(x) = a*x + c, f(f(x)) = a^2*x + c*(a+1)，依次倍增得到f^(2^i)
+        jumpA[0] = this.aHigh;
+        jumpA[1] = aLow;
+        jumpC[0] = this.cHigh;
+        jumpC[1] = cLow;
+        for (int i = 2; i < jumpA.length; i += 2) {
+            long ah = jumpA[i - 2];
+            long al = jumpA[i - 1];
+            long ch = jumpC[i - 2];
+            long cl = jumpC[i - 1];
+            jumpA[i] = multiplyAddHigh(ah, al, ah, al, 0L, 0L) & highMask;
+            jumpA[i + 1] = al * al;
+            jumpC[i] = multiplyAddHigh(ah, al, ch, cl, ch, cl) & highMask;
+            jumpC[i + 1] = al * cl + cl;
+        }
+    }
+
+    /**
+     * 计算a*x + c的高64位(未掩码)，低64位即a的低64位*x的低64位 + c的低64位
+     */
+    private static long multiplyAddHigh(long aHigh, long aLow, long xHigh, long xLow, long cHigh, long cLow) {
+        long product = aLow * xLow;
+        long low = product + cLow;
+        long carry = Long.compareUnsigned(low, product) < 0 ? 1L : 0L;
+        return UnsignedMath.multiplyHigh(aLow, xLow) + aLow * xHigh + aHigh * xLow + cHigh + carry;
+    }
+
+    /**
+     * 计算Xn+1的高64位
+     *
+     * @param xnHigh Xn的高64位
+     * @param xnLow  Xn的低64位
+     * @return Xn+1的高64位
+     */
+    public long nextHigh(long xnHigh, long xnLow) {
+        return multiplyAddHigh(aHigh, aLow, xnHigh, xnLow, cHigh, cLow) & highMask;
+    }
+
+    /**
+     * 计算Xn+1的低64位
+     *
+     * @param xnLow Xn的低64位
+     * @return Xn+1的低64位
+     */
+    public long nextLow(long xnLow) {
+        return aLow * xnLow + cLow;
+    }
+
+    /**
+     * 原地计算Xn+1
+     *
+     * @param xn Xn，xn[0]为高64位，xn[1]为低64位
+     */
+    public void next(long[] xn) {
+        long high = nextHigh(xn[0], xn[1]);
+        xn[1] = nextLow(xn[1]);
+        xn[0] = high;
+    }
+
+    /**
+     * 原地跳跃计算X(n+steps)，steps为128位无符号整数，无需逐步迭代
+     * <p>
+     * 周期为2^bits，steps中不低于2^bits的部分不影响结果。
+     *
+     * @param xn        Xn，xn[0]为高64位，xn[1]为低64位
+     * @param stepsHigh 跳跃步数的高64位
+     * @param stepsLow  跳跃步数的低64位
+     */
+    public void jump(long[] xn, long stepsHigh, long stepsLow) {
+        long high = xn[0];
+        long low = xn[1];
+        for (int i = 0; i < bits; i++) {
+            long steps = i < Long.SIZE ? stepsLow : stepsHigh;
+            if ((steps >>> (i & (Long.SIZE - 1)) & 1L) == 0) {
+                continue;
+            }
+            int index = i << 1;
+            long nextHigh = multiplyAddHigh(jumpA[index], jumpA[index + 1], high, low, jumpC[index], jumpC[index + 1]) & highMask;
+            low = jumpA[index + 1] * low + jumpC[index + 1];
+            high = nextHigh;
+        }
+        xn[0] = high;
+        xn[1] = low;
+    }
+
+    /**
+     * 从Xn开始批量生成后续状态，按(高64位, 低64位)交替写入out[2*offset, 2*(offset+length))
+     * <p>
+     * 若生成的状态等于end(即周期结束，回到生成器的x0)，则提前停止，end本身不写入。
+     *
+     * @param xnHigh  Xn的高64位
+     * @param xnLow   Xn的低64位
+     * @param endHigh 周期结束状态的高64位
+     * @param endLow  周期结束状态的低64位
+     * @param out     输出数组
+     * @param offset  输出起始位置(以状态计)
+     * @param length  最大生成数量
+     * @return 实际生成数量，小于length说明已到达周期结束
+     */
+    public int fill(long xnHigh, long xnLow, long endHigh, long endLow, long[] out, int offset, int length) {
+        final long aHigh = this.aHigh;
+        final long aLow = this.aLow;
+        final long cHigh = this.cHigh;
+        final long cLow = this.cLow;
+        final long highMask = this.highMask;
+        long high = xnHigh;
+        long low = xnLow;
+        for (int i = 0; i < length; i++) {
+            long product = aLow * low;
+            long nextLow = product + cLow;
+            long carry = Long.compareUnsigned(nextLow, product) < 0 ? 1L : 0L;
+            high = (UnsignedMath.multiplyHigh(aLow, low) + aLow * high + aHigh * low + cHigh + carry) & highMask;
+            low = nextLow;
+            if (high == endHigh && low == endLow) {
+                return i;
+            }
+            int index = (offset + i) << 1;
+            out[index] = high;
+            out[index + 1] = low;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,95 @@
+package com.co.kc.couponcode.core.algo;
+
+import com.co.kc.couponcode.core.model.ICodeEngine;
+import com.co.kc.couponcode.core.model.IFactor;
+import com.co.kc.couponcode.core.model.IWideFactor;
+import lombok.Getter;
+
+/**
+ * 128位线性同余算法生成器(Linear congruential generator)
+ * <p>
+ * For m = 2^e (64 <= e <= 128) and c odd, a ≡ 5 (mod 8)
+ * <p>
+ * 作为{@link IFactor}时code为生成器内的位置(见{@link Lcg128})，按X(n+1) = X(n) + 1 (mod 2^{@value Lcg128#POSITION_BITS})迭代，
+ * 券码池按位置预留、发放与刷新，渲染时才换算为128位券码；format的宽度均超过long券码的19位，渲染时据此识别。
+ *
+ * @author kc
+ */
+@Getter
+public enum Lcg128Factor implements IWideFactor, IFactor {
+    /**
+     * 2^64: Knuth MMIX (m, a)
+     */
+    PERIOD_18446744073709551616(0L, 0x5851F42D4C957F2DL, 0L, 1442695040888963407L, 64, 20),
+    /**
+     * 2^80 ~ 2^128: L'Ecuyer (m = 2^128, a)，低位截断后仍满足a ≡ 5 (mod 8)
+     */
+    PERIOD_1208925819614629174706176(0x2360ED051FC65DA4L, 0x4385DF649FCCF645L, 0L, 1442695040888963407L, 80, 25),
+    PERIOD_79228162514264337593543950336(0x2360ED051FC65DA4L, 0x4385DF649FCCF645L, 0L, 1442695040888963407L, 96, 29),
+    PERIOD_340282366920938463463374607431768211456(0x2360ED051FC65DA4L, 0x4385DF649FCCF645L, 0L, 1442695040888963407L, 128, 39),
+    ;
+
+    private final long aHigh;
+    private final long aLow;
+    private final long cHigh;
+    private final long cLow;
+    private final int bits;
+    private final int width;
+    private final String format;
+    private final Lcg128Engine wideEngine;
+    /**
+     * 生成器内位置的运算引擎
+     */
+    private final ICodeEngine engine;
+
+    Lcg128Factor(long aHigh, long aLow, long cHigh, long cLow, int bits, int width) {
+        this.wideEngine = new Lcg128Engine(aHigh, aLow, cHigh, cLow, bits);
+        this.aHigh = wideEngine.getAHigh();
+        this.aLow = aLow;
+        this.cHigh = wideEngine.getCHigh();
+        this.cLow = cLow;
+        this.bits = bits;
+        this.width = width;
+        this.format = "%0" + width + "d";
+        this.engine = LcgEngine.of(getA(), getC(), getM());
+    }
+
+    /**
+     * 生成器内位置的multiplier
+     */
+    @Override
+    public long getA() {
+        return 1L;
+    }
+
+    /**
+     * 生成器内位置的addend
+     */
+    @Override
+    public long getC() {
+        return 1L;
+    }
+
+    /**
+     * 每个生成器的位置数量
+     */
+    @Override
+    public long getM() {
+        return 1L << Lcg128.POSITION_BITS;
+    }
+
+    /**
+     * 根据format查找Factor
+     *
+     * @param format 券码格式
+     * @return Factor，不存在时返回null
+     */
+    public static Lcg128Factor ofFormat(String format) {
+        for (Lcg128Factor factor : values()) {
+            if (factor.format.equals(format)) {
+                return factor;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,54 @@
+package com.co.kc.couponcode.core.algo;
+
+import com.co.kc.couponcode.core.model.ICodeEngine;
+import com.co.kc.couponcode.core.model.IFactor;
+
+/**
+ * 线性同余算法批量生成(离线大批量场景)
+ * <p>
+ * 将序列拆分为K条交错(leapfrog)子序列：第i条子序列为X(n+i+1), X(n+i+1+K), ...，
+ * 每条子序列本身是步长为K的线性同余算法(见{@link LcgEngine#leap(long)})，各条之间没有依赖，可同时推进。
+ * 每轮推进K条子序列得到连续的K个状态，输出顺序与逐步迭代完全一致。
+ * <p>
+ * 本实现为Java 8的标量版本，K条子序列打破了乘法的依赖链，便于CPU指令级并行；
+ * 多版本jar中META-INF/versions/17下的同名类在启用jdk.incubator.vector模块时使用向量指令推进各条子序列。
+ * 仅m为2的幂的参数走批量路径，其他参数回退至{@link ICodeEngine#fill(long, long, long[], int, int)}。
+ *
+ * @author kc
+ */
+public final class LcgBatch {
+
+    private LcgBatch() {
+    }
+
+    /**
+     * 是否使用向量指令
+     *
+     * @return 是否使用向量指令
+     */
+    public static boolean isVectorized() {
+        return false;
+    }
+
+    /**
+     * 从Xn开始批量生成后续状态并写入out[offset, offset+length)，若回到end(周期结束)则提前停止，end本身不写入
+     *
+     * @param factor The factor of LCG
+     * @param xn     Xn
+     * @param end    周期结束状态
+     * @param out    输出数组
+     * @param offset 输出起始位置
+     * @param length 最大生成数量
+     * @return 实际生成数量，小于length说明已到达周期结束
+     */
+    public static int fill(IFactor factor, long xn, long end, long[] out, int offset, int length) {
+        ICodeEngine engine = factor.getEngine();
+        long m = engine.getM();
+        if (!(engine instanceof LcgEngine) || (m & (m - 1)) != 0 || length < 2 * LcgBatchScalar.LANES) {
+            return engine.fill(xn, end, out, offset, length);
+        }
+        LcgEngine lcg = (LcgEngine) engine;
+        int filled = LcgBatchScalar.fill(lcg, xn, end, out, offset, length);
+        return LcgBatchScalar.complete(lcg, filled, end, out, offset, length);
+    }
+}
@@ -0,0 +1,75 @@
+package com.co.kc.couponcode.core.algo;
+
+/**
+ * {@link LcgBatch}的标量路径，Java 8版本与多版本jar中的Java 17版本共用
+ * <p>
+ * 以{@value #LANES}条交错子序列推进，打破乘法的依赖链，便于CPU指令级并行。
+ *
+ * @author kc
+ */
+final class LcgBatchScalar {
+
+    /**
+     * 子序列数量
+     */
+    static final int LANES = 4;
+
+    private LcgBatchScalar() {
+    }
+
+    /**
+     * 按整轮生成，返回生成数量；若遇到end则返回-(生成数量)-1
+     */
+    static int fill(LcgEngine lcg, long xn, long end, long[] out, int offset, int length) {
+        LcgEngine leap = lcg.cachedLeap(LANES);
+        final long a = leap.getA();
+        final long c = leap.getC();
+        final long mask = lcg.getM() - 1;
+
+        long x0 = lcg.next(xn);
+        long x1 = lcg.next(x0);
+        long x2 = lcg.next(x1);
+        long x3 = lcg.next(x2);
+        int rounds = length / LANES;
+        for (int r = 0, i = offset; r < rounds; r++, i += LANES) {
+            if (x0 == end || x1 == end || x2 == end || x3 == end) {
+                return -fillUntil(end, out, i, offset, x0, x1, x2, x3) - 1;
+            }
+            out[i] = x0;
+            out[i + 1] = x1;
+            out[i + 2] = x2;
+            out[i + 3] = x3;
+            x0 = (a * x0 + c) & mask;
+            x1 = (a * x1 + c) & mask;
+            x2 = (a * x2 + c) & mask;
+            x3 = (a * x3 + c) & mask;
+        }
+        return rounds * LANES;
+    }
+
+    /**
+     * 按整轮生成的结果之后，以逐步迭代补齐不足一轮的部分
+     *
+     * @param filled 按整轮生成的结果，负数表示遇到end
+     * @return 实际生成数量
+     */
+    static int complete(LcgEngine lcg, int filled, long end, long[] out, int offset, int length) {
+        if (filled < 0) {
+            return -filled - 1;
+        }
+        return filled + lcg.fill(out[offset + filled - 1], end, out, offset + filled, length - filled);
+    }
+
+    /**
+     * 本轮包含end，按顺序写入end之前的状态
+     */
+    private static int fillUntil(long end, long[] out, int index, int offset, long... lanes) {
+        for (long x : lanes) {
+            if (x == end) {
+                break;
+            }
+            out[index++] = x;
+        }
+        return index - offset;
+    }
+}
@@ -0,0 +1,346 @@
+package com.co.kc.couponcode.core.algo;
+
+import com.co.kc.couponcode.core.model.ICodeEngine;
+import com.co.kc.couponcode.core.model.IFactor;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 线性同余算法运算引擎
+ * <p>
+ * 根据(a, c, m)预先选定运算方式，避免每次计算都通过BigInteger处理溢出：
+ * <li>m为2的幂：利用long乘法溢出即对2^64取模的特性，直接掩码取模。</li>
+ * <li>m < 2^62：计算128位乘积后使用Barrett约减取模，避免除法运算。</li>
+ * <li>其他合法参数：计算128位乘积后再做128位除法取模。</li>
+ * <li>非法参数(如a、c不在[0, m)区间)：回退至BigInteger运算。</li>
+ *
+ * @author kc
+ */
+@Getter
+public abstract class LcgEngine implements ICodeEngine {
+
+    /**
+     * multiplier
+     */
+    protected final long a;
+    /**
+     * addend
+     */
+    protected final long c;
+    /**
+     * modulo
+     */
+    protected final long m;
+
+    /**
+     * 跳跃表：X(n+2^i) = (jumpA[i]*Xn + jumpC[i]) mod m
+     */
+    @Getter(AccessLevel.NONE)
+    private final long[] jumpA;
+    @Getter(AccessLevel.NONE)
+    private final long[] jumpC;
+    /**
+     * 批量生成与交错子序列使用的跳跃引擎，步长只有少数几种，缓存后每个切片无需重新构建跳跃表
+     */
+    @Getter(AccessLevel.NONE)
+    private final Map<Long, LcgEngine> leaps = new ConcurrentHashMap<>();
+
+    protected LcgEngine(long a, long c, long m) {
+        this.a = a;
+        this.c = c;
+        this.m = m;
+        this.jumpA = new long[m > 0 ? Long.SIZE : 0];
+        this.jumpC = new long[m > 0 ? Long.SIZE : 0];
+        if (m > 0) {
+            // f(x) = a*x + c, f(f(x)) = a^2*x + c*(a+1)，依次倍增得到f^(2^i)
+            jumpA[0] = Math.floorMod(a, m);
+            jumpC[0] = Math.floorMod(c, m);
+            for (int i = 1; i < Long.SIZE; i++) {
+                jumpA[i] = UnsignedMath.multiplyAddMod(jumpA[i - 1], jumpA[i - 1], 0, m);
+                jumpC[i] = UnsignedMath.multiplyAddMod(jumpC[i - 1], jumpA[i - 1], jumpC[i - 1], m);
+            }
+        }
+    }
+
+    /**
+     * 根据Factor选择运算引擎
+     *
+     * @param factor The factor of LCG
+     * @return 运算引擎
+     */
+    public static LcgEngine of(IFactor factor) {
+        return of(factor.getA(), factor.getC(), factor.getM());
+    }
+
+    /**
+     * 根据参数选择运算引擎
+     *
+     * @param a multiplier
+     * @param c addend
+     * @param m modulo
+     * @return 运算引擎
+     */
+    public static LcgEngine of(long a, long c, long m) {
+        if (m <= 0 || a < 0 || a >= m || c < 0 || c >= m) {
+            return new BigIntegerEngine(a, c, m);
+        }
+        if ((m & (m - 1)) == 0) {
+            return new PowerOfTwoEngine(a, c, m);
+        }
+        if (m < BarrettEngine.MAX_MODULO) {
+            return new BarrettEngine(a, c, m);
+        }
+        return new WideEngine(a, c, m);
+    }
+
+    /**
+     * 计算Xn+1 = (a*Xn + c) mod m
+     *
+     * @param xn Xn
+     * @return Xn+1
+     */
+    @Override
+    public abstract long next(long xn);
+
+    /**
+     * 从Xn开始批量生成后续状态X(n+1), X(n+2), ...并写入out[offset, offset+length)
+     * <p>
+     * 若生成的状态等于end(即周期结束，回到生成器的x0)，则提前停止，end本身不写入。
+     *
+     * @param xn     Xn
+     * @param end    周期结束状态
+     * @param out    输出数组
+     * @param offset 输出起始位置
+     * @param length 最大生成数量
+     * @return 实际生成数量，小于length说明已到达周期结束
+     */
+    @Override
+    public int fill(long xn, long end, long[] out, int offset, int length) {
+        long x = xn;
+        for (int i = 0; i < length; i++) {
+            x = next(x);
+            if (x == end) {
+                return i;
+            }
+            out[offset + i] = x;
+        }
+        return length;
+    }
+
+    /**
+     * 跳跃计算X(n+steps)，时间复杂度O(log steps)
+     *
+     * @param xn    Xn
+     * @param steps 跳跃步数(>= 0)
+     * @return X(n+steps)
+     */
+    @Override
+    public long jump(long xn, long steps) {
+        if (steps < 0) {
+            throw new IllegalArgumentException("steps must not be negative: " + steps);
+        }
+        long x = reduce(xn);
+        for (int i = 0; steps != 0; i++, steps >>>= 1) {
+            if ((steps & 1) != 0) {
+                x = UnsignedMath.multiplyAddMod(jumpA[i], x, jumpC[i], m);
+            }
+        }
+        return x;
+    }
+
+    /**
+     * 计算从x0到xn的步数，仅支持m为2的幂的满周期参数
+     * <p>
+     * 满周期时X(n) mod 2^(j+1)也是周期为2^(j+1)的序列，若X(n) ≡ xn (mod 2^j)，
+     * 则X(n)与X(n+2^j)中恰有一个满足 ≡ xn (mod 2^(j+1))，因此从低位到高位逐位确定n，只需O(log m)次跳跃。
+     *
+     * @param x0 X0
+     * @param xn Xn
+     * @return 步数，m不为2的幂或无法到达时返回-1
+     */
+    @Override
+    public long distance(long x0, long xn) {
+        if (m <= 0 || (m & (m - 1)) != 0) {
+            return -1L;
+        }
+        long target = reduce(xn);
+        long x = reduce(x0);
+        long n = 0;
+        for (int j = 0; (1L << j) < m; j++) {
+            long mask = (1L << (j + 1)) - 1;
+            if (((x ^ target) & mask) != 0) {
+                x = UnsignedMath.multiplyAddMod(jumpA[j], x, jumpC[j], m);
+                n |= 1L << j;
+            }
+        }
+        return x == target ? n : -1L;
+    }
+
+    /**
+     * 获取步长为steps的跳跃引擎，即X(n+steps) = (A*Xn + C) mod m，其本身也是一个线性同余算法
+     *
+     * @param steps 跳跃步数(>= 0)
+     * @return 跳跃引擎
+     */
+    public LcgEngine leap(long steps) {
+        if (steps < 0) {
+            throw new IllegalArgumentException("steps must not be negative: " + steps);
+        }
+        long leapA = 1 % m;
+        long leapC = 0;
+        for (int i = 0; steps != 0; i++, steps >>>= 1) {
+            if ((steps & 1) != 0) {
+                leapA = UnsignedMath.multiplyAddMod(jumpA[i], leapA, 0, m);
+                leapC = UnsignedMath.multiplyAddMod(jumpA[i], leapC, jumpC[i], m);
+            }
+        }
+        return of(leapA, leapC, m);
+    }
+
+    /**
+     * 获取步长为steps的跳跃引擎，同一步长只构建一次
+     *
+     * @param steps 跳跃步数(>= 0)
+     * @return 跳跃引擎
+     */
+    LcgEngine cachedLeap(long steps) {
+        LcgEngine leap = leaps.get(steps);
+        return leap != null ? leap : leaps.computeIfAbsent(steps, this::leap);
+    }
+
+    /**
+     * 将Xn规约至[0, m)区间
+     */
+    protected long reduce(long xn) {
+        return xn >= 0 && xn < m ? xn : Math.floorMod(xn, m);
+    }
+
+    /**
+     * m = 2^k，long乘法溢出等价于对2^64取模，因此直接掩码即可得到对2^k取模的结果
+     */
+    static final class PowerOfTwoEngine extends LcgEngine {
+        private final long mask;
+
+        PowerOfTwoEngine(long a, long c, long m) {
+            super(a, c, m);
+            this.mask = m - 1;
+        }
+
+        @Override
+        public long next(long xn) {
+            return (a * xn + c) & mask;
+        }
+
+        @Override
+        public int fill(long xn, long end, long[] out, int offset, int length) {
+            final long a = this.a;
+            final long c = this.c;
+            final long mask = this.mask;
+            long x = xn;
+            for (int i = offset, limit = offset + length; i < limit; i++) {
+                x = (a * x + c) & mask;
+                if (x == end) {
+                    return i - offset;
+                }
+                out[i] = x;
+            }
+            return length;
+        }
+    }
+
+    /**
+     * Barrett约减：m < 2^62且非2的幂
+     * <p>
+     * 设m的位数为n，预先计算mu = floor(2^(2n) / m)，则对P = a*Xn + c < m^2有
+     * q = floor(floor(P / 2^(n-1)) * mu / 2^(n+1))，且P - q*m < 3m，
+     * 因此只需两次乘法和至多两次减法即可完成取模，无需除法。
+     */
+    static final class BarrettEngine extends LcgEngine {
+        static final long MAX_MODULO = 1L << 62;
+
+        private final long mu;
+        private final int preShift;
+        private final int postShift;
+
+        BarrettEngine(long a, long c, long m) {
+            super(a, c, m);
+            int n = Long.SIZE - Long.numberOfLeadingZeros(m);
+            this.preShift = n - 1;
+            this.postShift = n + 1;
+            // 2^(2n) / m，当2n >= 64时2^(2n)的高64位为2^(2n-64) < m，满足128/64除法要求
+            this.mu = 2 * n >= Long.SIZE
+                    ? UnsignedMath.divide(1L << (2 * n - Long.SIZE), 0L, m)
+                    : Long.divideUnsigned(1L << (2 * n), m);
+        }
+
+        @Override
+        public long next(long xn) {
+            return step(reduce(xn), a, c, m, mu, preShift, postShift);
+        }
+
+        @Override
+        public int fill(long xn, long end, long[] out, int offset, int length) {
+            final long a = this.a;
+            final long c = this.c;
+            final long m = this.m;
+            final long mu = this.mu;
+            final int preShift = this.preShift;
+            final int postShift = this.postShift;
+            long x = reduce(xn);
+            for (int i = offset, limit = offset + length; i < limit; i++) {
+                x = step(x, a, c, m, mu, preShift, postShift);
+                if (x == end) {
+                    return i - offset;
+                }
+                out[i] = x;
+            }
+            return length;
+        }
+
+        private static long step(long x, long a, long c, long m, long mu, int preShift, int postShift) {
+            long product = a * x;
+            long lo = product + c;
+            long hi = UnsignedMath.multiplyHigh(a, x) + (Long.compareUnsigned(lo, product) < 0 ? 1L : 0L);
+            long t = (hi << (Long.SIZE - preShift)) | (lo >>> preShift);
+            long q = (UnsignedMath.multiplyHigh(t, mu) << (Long.SIZE - postShift)) | ((t * mu) >>> postShift);
+            long r = lo - q * m;
+            while (Long.compareUnsigned(r, m) >= 0) {
+                r -= m;
+            }
+            return r;
+        }
+    }
+
+    /**
+     * a*Xn + c可能超出long范围，计算128位乘积后再取模
+     */
+    static final class WideEngine extends LcgEngine {
+
+        WideEngine(long a, long c, long m) {
+            super(a, c, m);
+        }
+
+        @Override
+        public long next(long xn) {
+            return UnsignedMath.multiplyAddMod(a, reduce(xn), c, m);
+        }
+    }
+
+    /**
+     * 兜底使用BigInteger运算
+     */
+    static final class BigIntegerEngine extends LcgEngine {
+
+        BigIntegerEngine(long a, long c, long m) {
+            super(a, c, m);
+        }
+
+        @Override
+        public long next(long xn) {
+            return Lcg.next(a, xn, c, m);
+        }
+    }
+}
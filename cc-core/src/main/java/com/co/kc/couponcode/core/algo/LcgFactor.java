@@ -1,7 +1,6 @@
 package com.co.kc.couponcode.core.algo;
 
 import com.co.kc.couponcode.core.model.IFactor;
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 
 /**
@@ -12,7 +11,6 @@ import lombok.Getter;
  * @author kc
  */
 @Getter
-@AllArgsConstructor
 public enum LcgFactor implements IFactor {
     /**
      * the best value in M8 (m, a)
@@ -33,4 +31,13 @@ public enum LcgFactor implements IFactor {
     private final long c;
     private final long m;
     private final String format;
+    private final LcgEngine engine;
+
+    LcgFactor(long a, long c, long m, String format) {
+        this.a = a;
+        this.c = c;
+        this.m = m;
+        this.format = format;
+        this.engine = LcgEngine.of(a, c, m);
+    }
 }
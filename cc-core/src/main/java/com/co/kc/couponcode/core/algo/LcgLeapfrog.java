@@ -0,0 +1,154 @@
+package com.co.kc.couponcode.core.algo;
+
+import com.co.kc.couponcode.core.model.ICodeEngine;
+import com.co.kc.couponcode.core.model.IFactor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 线性同余算法多线程交错生成
+ * <p>
+ * K个线程各自推进一条交错(leapfrog)子序列：第j条为X(n+j+1), X(n+j+1+K), ...，
+ * 其本身是步长为K的线性同余算法(见{@link LcgEngine#leap(long)})，起点由跳跃计算得到，各线程之间没有依赖。
+ * 合并后的结果与逐步迭代完全一致；遇到end(周期结束)时记录其最小位置，其他线程越过该位置后停止。
+ * 非线性同余算法的运算引擎或数量较少时回退至单线程。
+ *
+ * @author kc
+ */
+public final class LcgLeapfrog {
+
+    /**
+     * 每条子序列的最少数量，数量过少时线程调度的开销大于收益
+     */
+    private static final int MIN_LANE_LENGTH = 1024;
+    /**
+     * 每推进若干步检查一次其他线程是否已遇到end
+     */
+    private static final int CHECK_INTERVAL = 1024;
+
+    private LcgLeapfrog() {
+    }
+
+    /**
+     * 多线程生成Xn之后的状态并写入out[offset, offset+length)，若回到end则提前停止，end本身不写入
+     *
+     * @param factor      The factor of LCG
+     * @param xn          Xn
+     * @param end         周期结束状态
+     * @param out         输出数组
+     * @param offset      输出起始位置
+     * @param length      最大生成数量
+     * @param executor    执行其余子序列的线程池，调用线程推进第一条子序列
+     * @param parallelism 子序列数量K
+     * @return 实际生成数量，小于length说明已到达周期结束
+     * @throws InterruptedException 中断异常
+     */
+    public static int fill(IFactor factor, long xn, long end, long[] out, int offset, int length,
+                           ExecutorService executor, int parallelism) throws InterruptedException {
+        ICodeEngine engine = factor.getEngine();
+        if (!(engine instanceof LcgEngine) || parallelism <= 1 || length < (long) parallelism * MIN_LANE_LENGTH) {
+            return LcgBatch.fill(factor, xn, end, out, offset, length);
+        }
+        LcgEngine lcg = (LcgEngine) engine;
+        LcgEngine leap = lcg.cachedLeap(parallelism);
+        AtomicLong endIndex = new AtomicLong(length);
+        run(executor, parallelism, lane -> {
+            long x = lcg.jump(xn, lane + 1);
+            for (int i = lane, n = 1; i < length; i += parallelism, n++, x = leap.next(x)) {
+                if (x == end) {
+                    accumulateMin(endIndex, i);
+                    return;
+                }
+                if (n % CHECK_INTERVAL == 0 && i > endIndex.get()) {
+                    return;
+                }
+                out[offset + i] = x;
+            }
+        });
+        return (int) endIndex.get();
+    }
+
+    /**
+     * 多线程查找Xn之后首次出现target的位置，不保存状态
+     *
+     * @param factor      The factor of LCG
+     * @param xn          Xn
+     * @param target      目标状态
+     * @param length      查找数量
+     * @param executor    执行其余子序列的线程池，调用线程推进第一条子序列
+     * @param parallelism 子序列数量K
+     * @return 位置i，即X(n+i+1) = target，在length之内未出现时返回-1
+     * @throws InterruptedException 中断异常
+     */
+    public static long indexOf(IFactor factor, long xn, long target, long length,
+                               ExecutorService executor, int parallelism) throws InterruptedException {
+        ICodeEngine engine = factor.getEngine();
+        if (!(engine instanceof LcgEngine) || parallelism <= 1 || length < (long) parallelism * MIN_LANE_LENGTH) {
+            long x = xn;
+            for (long i = 0; i < length; i++) {
+                x = engine.next(x);
+                if (x == target) {
+                    return i;
+                }
+            }
+            return -1L;
+        }
+        LcgEngine lcg = (LcgEngine) engine;
+        LcgEngine leap = lcg.cachedLeap(parallelism);
+        AtomicLong index = new AtomicLong(length);
+        run(executor, parallelism, lane -> {
+            long x = lcg.jump(xn, lane + 1);
+            for (long i = lane, n = 1; i < length; i += parallelism, n++, x = leap.next(x)) {
+                if (x == target) {
+                    accumulateMin(index, i);
+                    return;
+                }
+                if (n % CHECK_INTERVAL == 0 && i > index.get()) {
+                    return;
+                }
+            }
+        });
+        return index.get() < length ? index.get() : -1L;
+    }
+
+    private static void accumulateMin(AtomicLong value, long candidate) {
+        for (long current; candidate < (current = value.get()); ) {
+            if (value.compareAndSet(current, candidate)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 调用线程执行第0条子序列，其余提交至线程池，等待全部完成
+     */
+    private static void run(ExecutorService executor, int parallelism, Lane lane) throws InterruptedException {
+        List<Future<?>> futures = new ArrayList<>(parallelism - 1);
+        try {
+            for (int j = 1; j < parallelism; j++) {
+                final int index = j;
+                futures.add(executor.submit(() -> lane.walk(index)));
+            }
+            lane.walk(0);
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("交错子序列生成失败", e.getCause());
+        } finally {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Lane {
+        void walk(int lane);
+    }
+}
@@ -0,0 +1,251 @@
+package com.co.kc.couponcode.core.algo;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * 谱检验(Spectral test)
+ * <p>
+ * 线性同余算法产生的t维点集(Xn, Xn+1, ..., Xn+t-1)落在若干平行超平面上，
+ * ν_t为相邻超平面间距的倒数，即对偶格中最短非零向量的长度，ν_t越大说明t维分布越均匀。
+ * <p>
+ * 实现参考Knuth《计算机程序设计艺术》卷2第3.3.4节算法S，中间结果可能达到m^2，
+ * 因此使用BigInteger精确计算；该检验仅用于离线搜索参数，不在券码生成路径上。
+ *
+ * @author kc
+ */
+public final class SpectralTest {
+
+    /**
+     * Hermite常数γ_t (t = 0..8)，ν_t的理论上界为sqrt(γ_t) * m^(1/t)
+     */
+    private static final double[] HERMITE = {
+            0, 1, 2 / Math.sqrt(3), Math.pow(2, 1.0 / 3), Math.sqrt(2),
+            Math.pow(8, 1.0 / 5), Math.pow(64.0 / 3, 1.0 / 6), Math.pow(64, 1.0 / 7), 2
+    };
+
+    /**
+     * 支持的最大维度
+     */
+    public static final int MAX_DIMENSION = HERMITE.length - 1;
+
+    private SpectralTest() {
+    }
+
+    /**
+     * 计算归一化谱检验得分：min(ν_t / (sqrt(γ_t) * m^(1/t)))，t = 2..dimension，取值(0, 1]，越大越好
+     *
+     * @param a         multiplier
+     * @param m         modulo
+     * @param dimension 最大维度(2..8)
+     * @return 归一化得分
+     */
+    public static double score(long a, long m, int dimension) {
+        return score(nuSquared(a, m, dimension), m);
+    }
+
+    /**
+     * 根据ν_t^2计算归一化谱检验得分
+     *
+     * @param nuSquared ν_t^2，下标为t-2
+     * @param m         modulo
+     * @return 归一化得分
+     */
+    public static double score(BigInteger[] nuSquared, long m) {
+        double score = Double.MAX_VALUE;
+        for (int i = 0; i < nuSquared.length; i++) {
+            int t = i + 2;
+            double bound = Math.sqrt(HERMITE[t]) * Math.pow(m, 1.0 / t);
+            score = Math.min(score, Math.sqrt(nuSquared[i].doubleValue()) / bound);
+        }
+        return score;
+    }
+
+    /**
+     * 计算ν_t^2，t = 2..dimension
+     *
+     * @param a         multiplier
+     * @param m         modulo
+     * @param dimension 最大维度(2..8)
+     * @return ν_t^2，下标为t-2
+     */
+    public static BigInteger[] nuSquared(long a, long m, int dimension) {
+        if (dimension < 2 || dimension > MAX_DIMENSION) {
+            throw new IllegalArgumentException("dimension must be in [2, " + MAX_DIMENSION + "]: " + dimension);
+        }
+        if (m <= 1 || a <= 0 || a >= m) {
+            throw new IllegalArgumentException("require 0 < a < m: a=" + a + ", m=" + m);
+        }
+        BigInteger[] result = new BigInteger[dimension - 1];
+        BigInteger bm = BigInteger.valueOf(m);
+
+        // S1. [Initialize.]
+        BigInteger h = BigInteger.valueOf(a);
+        BigInteger hp = bm;
+        BigInteger p = BigInteger.ONE;
+        BigInteger pp = BigInteger.ZERO;
+        BigInteger r = h;
+        BigInteger s = BigInteger.ONE.add(h.multiply(h));
+        BigInteger u;
+        BigInteger v;
+
+        // S2. [Euclidean step.]
+        for (; ; ) {
+            BigInteger q = hp.divide(h);
+            u = hp.subtract(q.multiply(h));
+            v = pp.subtract(q.multiply(p));
+            BigInteger uv = u.multiply(u).add(v.multiply(v));
+            if (uv.compareTo(s) >= 0 || u.signum() == 0) {
+                break;
+            }
+            s = uv;
+            hp = h;
+            h = u;
+            pp = p;
+            p = v;
+        }
+
+        // S3. [Compute ν2.]
+        u = u.subtract(h);
+        v = v.subtract(p);
+        BigInteger uv = u.multiply(u).add(v.multiply(v));
+        if (uv.compareTo(s) < 0) {
+            s = uv;
+            hp = u;
+            pp = v;
+        }
+        result[0] = s;
+
+        BigInteger[][] bu = zeros(dimension);
+        BigInteger[][] bv = zeros(dimension);
+        bu[0][0] = h.negate();
+        bu[0][1] = p;
+        bu[1][0] = hp.negate();
+        bu[1][1] = pp;
+        // U * V^T = m * I
+        boolean negate = p.multiply(hp).subtract(h.multiply(pp)).signum() < 0;
+        bv[0][0] = negate ? pp.negate() : pp;
+        bv[0][1] = negate ? hp.negate() : hp;
+        bv[1][0] = negate ? p : p.negate();
+        bv[1][1] = negate ? h : h.negate();
+
+        for (int t = 3; t <= dimension; t++) {
+            // S4. [Advance t.]
+            int n = t - 1;
+            r = r.multiply(BigInteger.valueOf(a)).mod(bm);
+            bu[n][0] = r.negate();
+            bu[n][n] = BigInteger.ONE;
+            bv[n][n] = bm;
+            for (int i = 0; i < n; i++) {
+                BigInteger q = roundDivide(bv[i][0].multiply(r), bm);
+                bv[i][n] = bv[i][0].multiply(r).subtract(q.multiply(bm));
+                addMultiple(bu[n], bu[i], q, t);
+            }
+            s = s.min(dot(bu[n], bu[n], t));
+
+            // S5. [Transform.] S6. [Advance j.]
+            int k = n;
+            int j = 0;
+            do {
+                BigInteger vjvj = dot(bv[j], bv[j], t);
+                for (int i = 0; i < t; i++) {
+                    if (i == j) {
+                        continue;
+                    }
+                    BigInteger vivj = dot(bv[i], bv[j], t);
+                    if (vivj.abs().shiftLeft(1).compareTo(vjvj) > 0) {
+                        BigInteger q = roundDivide(vivj, vjvj);
+                        addMultiple(bv[i], bv[j], q.negate(), t);
+                        addMultiple(bu[j], bu[i], q, t);
+                        s = s.min(dot(bu[j], bu[j], t));
+                        k = j;
+                    }
+                }
+                j = j == n ? 0 : j + 1;
+            } while (j != k);
+
+            // S7. [Prepare for search.] 最短向量Σx_j*U_j满足|x_j| <= z_j
+            BigInteger mm = bm.multiply(bm);
+            long[] z = new long[t];
+            for (int i = 0; i < t; i++) {
+                z[i] = sqrt(dot(bv[i], bv[i], t).multiply(s).divide(mm));
+            }
+            // S8 ~ S10. [Search.]
+            s = search(bu, z, t, 0, zeroVector(t), true, s);
+            result[t - 2] = s;
+        }
+        return result;
+    }
+
+    /**
+     * 深度优先枚举x_j ∈ [-z_j, z_j]，计算非零向量Y = Σx_j*U_j的最小长度
+     */
+    private static BigInteger search(BigInteger[][] bu, long[] z, int t, int index, BigInteger[] y, boolean zero, BigInteger s) {
+        if (index == t) {
+            return zero ? s : s.min(dot(y, y, t));
+        }
+        for (long x = -z[index]; x <= z[index]; x++) {
+            BigInteger[] next = y;
+            if (x != 0) {
+                next = y.clone();
+                addMultiple(next, bu[index], BigInteger.valueOf(x), t);
+            }
+            s = search(bu, z, t, index + 1, next, zero && x == 0, s);
+        }
+        return s;
+    }
+
+    /**
+     * 整数平方根floor(sqrt(n))，n >= 0
+     */
+    private static long sqrt(BigInteger n) {
+        long x = (long) Math.sqrt(n.doubleValue());
+        BigInteger bx = BigInteger.valueOf(x);
+        while (bx.multiply(bx).compareTo(n) > 0) {
+            bx = bx.subtract(BigInteger.ONE);
+        }
+        while (bx.add(BigInteger.ONE).multiply(bx.add(BigInteger.ONE)).compareTo(n) <= 0) {
+            bx = bx.add(BigInteger.ONE);
+        }
+        return bx.longValueExact();
+    }
+
+    private static BigInteger[][] zeros(int dimension) {
+        BigInteger[][] matrix = new BigInteger[dimension][];
+        for (int i = 0; i < dimension; i++) {
+            matrix[i] = zeroVector(dimension);
+        }
+        return matrix;
+    }
+
+    private static BigInteger[] zeroVector(int dimension) {
+        BigInteger[] vector = new BigInteger[dimension];
+        Arrays.fill(vector, BigInteger.ZERO);
+        return vector;
+    }
+
+    private static BigInteger dot(BigInteger[] x, BigInteger[] y, int t) {
+        BigInteger sum = BigInteger.ZERO;
+        for (int i = 0; i < t; i++) {
+            sum = sum.add(x[i].multiply(y[i]));
+        }
+        return sum;
+    }
+
+    /**
+     * x ← x + q*y
+     */
+    private static void addMultiple(BigInteger[] x, BigInteger[] y, BigInteger q, int t) {
+        for (int i = 0; i < t; i++) {
+            x[i] = x[i].add(q.multiply(y[i]));
+        }
+    }
+
+    /**
+     * 四舍五入整除：floor(n/d + 1/2)，d > 0
+     */
+    private static BigInteger roundDivide(BigInteger n, BigInteger d) {
+        BigInteger[] qr = n.shiftLeft(1).add(d).divideAndRemainder(d.shiftLeft(1));
+        return qr[1].signum() < 0 ? qr[0].subtract(BigInteger.ONE) : qr[0];
+    }
+}
@@ -0,0 +1,159 @@
+package com.co.kc.couponcode.core.algo;
+
+/**
+ * 无符号64位/128位整数运算工具
+ * <p>
+ * 兼容Java 8(无Math.multiplyHigh)，所有运算均不产生对象分配。
+ *
+ * @author kc
+ */
+public final class UnsignedMath {
+
+    private static final long MASK_32 = 0xFFFFFFFFL;
+    private static final long BASE_32 = 1L << 32;
+    private static final long TEN_18 = 1_000_000_000_000_000_000L;
+    private static final int TEN_18_DIGITS = 18;
+    /**
+     * 2^128的十进制位数
+     */
+    private static final int MAX_128_DIGITS = 39;
+
+    private UnsignedMath() {
+    }
+
+    /**
+     * 计算x*y(无符号)的128位乘积的高64位
+     *
+     * @param x 乘数
+     * @param y 被乘数
+     * @return 乘积的高64位
+     */
+    public static long multiplyHigh(long x, long y) {
+        long x0 = x & MASK_32;
+        long x1 = x >>> 32;
+        long y0 = y & MASK_32;
+        long y1 = y >>> 32;
+
+        long w0 = x0 * y0;
+        long t = x1 * y0 + (w0 >>> 32);
+        long w1 = (t & MASK_32) + x0 * y1;
+        long w2 = t >>> 32;
+        return x1 * y1 + w2 + (w1 >>> 32);
+    }
+
+    /**
+     * 计算128位无符号整数(hi:lo)对64位无符号整数m的余数
+     * <p>
+     * 要求hi < m(无符号)，即商不超过64位。
+     *
+     * @param hi 被除数高64位
+     * @param lo 被除数低64位
+     * @param m  除数
+     * @return (hi:lo) mod m
+     */
+    public static long remainder(long hi, long lo, long m) {
+        // (hi:lo) = q*m + r且r < m，因此低64位即可还原余数
+        return lo - divide(hi, lo, m) * m;
+    }
+
+    /**
+     * 计算128位无符号整数(hi:lo)除以64位无符号整数m的商
+     * <p>
+     * 要求hi < m(无符号)，即商不超过64位；算法参考Hacker's Delight中的divlu。
+     *
+     * @param hi 被除数高64位
+     * @param lo 被除数低64位
+     * @param m  除数
+     * @return (hi:lo) / m
+     */
+    public static long divide(long hi, long lo, long m) {
+        int s = Long.numberOfLeadingZeros(m);
+        long v = m << s;
+        long vn1 = v >>> 32;
+        long vn0 = v & MASK_32;
+
+        long un32 = s == 0 ? hi : (hi << s) | (lo >>> (64 - s));
+        long un10 = lo << s;
+        long un1 = un10 >>> 32;
+        long un0 = un10 & MASK_32;
+
+        long q1 = Long.divideUnsigned(un32, vn1);
+        long rhat = un32 - q1 * vn1;
+        while (Long.compareUnsigned(q1, BASE_32) >= 0
+                || Long.compareUnsigned(q1 * vn0, (rhat << 32) + un1) > 0) {
+            q1--;
+            rhat += vn1;
+            if (Long.compareUnsigned(rhat, BASE_32) >= 0) {
+                break;
+            }
+        }
+
+        long un21 = (un32 << 32) + un1 - q1 * v;
+        long q0 = Long.divideUnsigned(un21, vn1);
+        rhat = un21 - q0 * vn1;
+        while (Long.compareUnsigned(q0, BASE_32) >= 0
+                || Long.compareUnsigned(q0 * vn0, (rhat << 32) + un0) > 0) {
+            q0--;
+            rhat += vn1;
+            if (Long.compareUnsigned(rhat, BASE_32) >= 0) {
+                break;
+            }
+        }
+
+        return (q1 << 32) | q0;
+    }
+
+    /**
+     * 计算(a*x + c) mod m，其中0 <= a, x, c < m，全程不溢出且不分配对象
+     *
+     * @param a multiplier
+     * @param x x
+     * @param c addend
+     * @param m modulo
+     * @return (a*x + c) mod m
+     */
+    public static long multiplyAddMod(long a, long x, long c, long m) {
+        if ((m & (m - 1)) == 0) {
+            return (a * x + c) & (m - 1);
+        }
+        long lo = a * x;
+        long hi = multiplyHigh(a, x);
+        long sum = lo + c;
+        if (Long.compareUnsigned(sum, lo) < 0) {
+            hi++;
+        }
+        return remainder(hi, sum, m);
+    }
+
+    /**
+     * 将128位无符号整数(hi:lo)转换为十进制字符串，不足width位时左侧补0
+     *
+     * @param hi    高64位
+     * @param lo    低64位
+     * @param width 最小宽度
+     * @return 十进制字符串
+     */
+    public static String toString(long hi, long lo, int width) {
+        char[] chars = new char[Math.max(width, MAX_128_DIGITS)];
+        int pos = chars.length;
+        // 每次拆出低18位十进制数
+        while (hi != 0) {
+            long remainderHigh = Long.remainderUnsigned(hi, TEN_18);
+            long quotientLow = divide(remainderHigh, lo, TEN_18);
+            long chunk = lo - quotientLow * TEN_18;
+            for (int i = 0; i < TEN_18_DIGITS; i++, chunk /= 10) {
+                chars[--pos] = (char) ('0' + chunk % 10);
+            }
+            hi = Long.divideUnsigned(hi, TEN_18);
+            lo = quotientLow;
+        }
+        do {
+            chars[--pos] = (char) ('0' + Long.remainderUnsigned(lo, 10));
+            lo = Long.divideUnsigned(lo, 10);
+        } while (lo != 0);
+        for (int start = chars.length - width; pos > start; ) {
+            chars[--pos] = '0';
+        }
+        return new String(chars, pos, chars.length - pos);
+    }
+}
@@ -0,0 +1,22 @@
+package com.co.kc.couponcode.core.model;
+
+/**
+ * The class ICodeConsumer is used to receive the codes drained from code pool without creating any object per code
+ * <p>
+ * The code can be rendered by {@link com.co.kc.couponcode.core.CodeRenderer}, which also renders the factor whose code
+ * is the position in its generator, such as {@link com.co.kc.couponcode.core.algo.Lcg128Factor}.
+ *
+ * @author kc
+ */
+@FunctionalInterface
+public interface ICodeConsumer {
+
+    /**
+     * Accept a code
+     *
+     * @param no     The unique serial number
+     * @param code   code
+     * @param format The format of code
+     */
+    void accept(long no, long code, String format);
+}
@@ -0,0 +1,60 @@
+package com.co.kc.couponcode.core.model;
+
+/**
+ * The class ICodeEngine is used to iterate the states of a code generator over [0, m).
+ * <p>
+ * Every state is a code, and the sequence starting from any x0 must visit all m codes before returning to x0.
+ *
+ * @author kc
+ */
+public interface ICodeEngine {
+
+    /**
+     * Get the modulo, i.e. the period of the sequence
+     *
+     * @return modulo
+     */
+    long getM();
+
+    /**
+     * Get the next state
+     *
+     * @param xn Xn
+     * @return Xn+1
+     */
+    long next(long xn);
+
+    /**
+     * Generate the states X(n+1), X(n+2), ... into out[offset, offset+length).
+     * <p>
+     * It stops early if the generated state equals end (the x0 of the generator), and end itself is not written.
+     *
+     * @param xn     Xn
+     * @param end    the state which ends the period
+     * @param out    the output array
+     * @param offset the start index of out
+     * @param length the max amount of states
+     * @return the amount of generated states, less than length if the period ends
+     */
+    int fill(long xn, long end, long[] out, int offset, int length);
+
+    /**
+     * Get the state X(n+steps) without iterating steps times
+     *
+     * @param xn    Xn
+     * @param steps the steps to jump (>= 0)
+     * @return X(n+steps)
+     */
+    long jump(long xn, long steps);
+
+    /**
+     * Get the steps from x0 to xn, i.e. the smallest n such that X(n) = xn when starting from x0
+     *
+     * @param x0 X0
+     * @param xn Xn
+     * @return the steps, or -1 if it is not supported by the engine or xn is unreachable
+     */
+    default long distance(long x0, long xn) {
+        return -1L;
+    }
+}
@@ -1,5 +1,7 @@
 package com.co.kc.couponcode.core.model;
 
+import com.co.kc.couponcode.core.algo.LcgEngine;
+
 /**
  * The class IFactor is used to represent the factor of LCG
  *
@@ -33,4 +35,29 @@ public interface IFactor {
      * @return format
      */
     String getFormat();
+
+    /**
+     * Get the engine of LCG
+     * <p>
+     * The engine is chosen by (a, c, m). Implementations must cache it (e.g. in a final field) instead of creating it for
+     * every call, callers fetch it on hot paths such as every flush. This default creates a new engine per call and is only
+     * suitable for factors that are never used on such paths.
+     *
+     * @return engine
+     */
+    default ICodeEngine getEngine() {
+        return LcgEngine.of(this);
+    }
+
+    /**
+     * Get the factor used by the generator with the given serial number
+     * <p>
+     * The factor of LCG is shared by all generators, while a keyed factor may derive a distinct permutation for every generator.
+     *
+     * @param no the unique serial number of generator
+     * @return factor
+     */
+    default IFactor withNo(long no) {
+        return this;
+    }
 }
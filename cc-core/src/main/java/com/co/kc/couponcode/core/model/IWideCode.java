@@ -0,0 +1,38 @@
+package com.co.kc.couponcode.core.model;
+
+/**
+ * The class IWideCode is used to represent the 128-bit output of code pool
+ *
+ * @author kc
+ */
+public interface IWideCode {
+
+    /**
+     * Get the unique serial number
+     *
+     * @return The unique serial number
+     */
+    long getNo();
+
+    /**
+     * Get the high 64 bits of code
+     *
+     * @return the high 64 bits of code
+     */
+    long getCodeHigh();
+
+    /**
+     * Get the low 64 bits of code
+     *
+     * @return the low 64 bits of code
+     */
+    long getCodeLow();
+
+    /**
+     * Get the width of code
+     *
+     * @return The width of code
+     */
+    int getWidth();
+
+}
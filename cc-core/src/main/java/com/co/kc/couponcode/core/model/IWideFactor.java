@@ -0,0 +1,65 @@
+package com.co.kc.couponcode.core.model;
+
+import com.co.kc.couponcode.core.algo.Lcg128Engine;
+
+/**
+ * The class IWideFactor is used to represent the factor of 128-bit LCG, whose modulo is 2^bits (64 <= bits <= 128).
+ * <p>
+ * Every 128-bit value is split into two longs, the high 64 bits and the low 64 bits.
+ *
+ * @author kc
+ */
+public interface IWideFactor {
+    /**
+     * Get the high 64 bits of the multiplier
+     *
+     * @return the high 64 bits of multiplier
+     */
+    long getAHigh();
+
+    /**
+     * Get the low 64 bits of the multiplier
+     *
+     * @return the low 64 bits of multiplier
+     */
+    long getALow();
+
+    /**
+     * Get the high 64 bits of the addend
+     *
+     * @return the high 64 bits of addend
+     */
+    long getCHigh();
+
+    /**
+     * Get the low 64 bits of the addend
+     *
+     * @return the low 64 bits of addend
+     */
+    long getCLow();
+
+    /**
+     * Get the exponent of the modulo, the modulo is 2^bits
+     *
+     * @return the exponent of modulo
+     */
+    int getBits();
+
+    /**
+     * Get the width of code, the code is left-padded with zero to the width
+     *
+     * @return the width of code
+     */
+    int getWidth();
+
+    /**
+     * Get the engine of 128-bit LCG
+     * <p>
+     * Implementations should cache it instead of creating it for every call.
+     *
+     * @return engine
+     */
+    default Lcg128Engine getWideEngine() {
+        return new Lcg128Engine(getAHigh(), getALow(), getCHigh(), getCLow(), getBits());
+    }
+}
@@ -3,6 +3,9 @@ package com.co.kc.couponcode.core.persistence;
 import com.co.kc.couponcode.core.model.ICode;
 import com.co.kc.couponcode.core.model.IFactor;
 
+import java.util.Collection;
+import java.util.Collections;
+
 /**
  * The class ICodeGen is used to store the state of LCG. Specifically,
  * <li>It needs to initialize the parameter of LCG, such as `no`, `multiplier`, `addend`, `modulo`, `x0`, `xn`,
@@ -46,6 +49,21 @@ public interface ICodeGen {
      */
     boolean select();
 
+    /**
+     * Prepare a standby code generator in advance.
+     * <p>
+     * Typically, this method claims the parameter of LCG for the next {@link #select()} exclusively
+     * without switching to it, so that the next selection can switch over without accessing the storage.
+     * It is called asynchronously before the current parameter is used up, and the standby parameter
+     * must be kept alive by {@link #keepHeartbeat()} and released by {@link #destroy()}.
+     * A parameter claimed after {@link #destroy()} must be released at once instead of being kept.
+     *
+     * @return the result of preparing, false if it is not supported
+     */
+    default boolean prepare() {
+        return false;
+    }
+
     /**
      * Get the factor of LCG
      *
@@ -74,6 +92,18 @@ public interface ICodeGen {
      */
     ICode getXn();
 
+    /**
+     * Get the amount of generated code of the running parameter, i.e. the steps from X0 to Xn.
+     * <p>
+     * It lets the pool know how many codes are left before the parameter is used up,
+     * even if the engine can not calculate the steps from X0 to Xn.
+     *
+     * @return the amount of generated code, return -1 if unknown
+     */
+    default long getCnt() {
+        return -1L;
+    }
+
     /**
      * Flush the last code Xn and the amount of generated code.
      *
@@ -93,4 +123,16 @@ public interface ICodeGen {
      */
     boolean keepHeartbeat();
 
+    /**
+     * Get the serial numbers occupied by this code generator, including the running and the standby one.
+     * <p>
+     * It allows the heartbeats of many code generators to be kept in one batch by {@link ICodeGenHeartbeat}.
+     *
+     * @return the occupied serial numbers, empty if none is occupied
+     */
+    default Collection<Long> getOccupiedNoList() {
+        Long no = getNo();
+        return no == null ? Collections.emptyList() : Collections.singletonList(no);
+    }
+
 }
@@ -0,0 +1,24 @@
+package com.co.kc.couponcode.core.persistence;
+
+import java.util.Collection;
+
+/**
+ * The class ICodeGenHeartbeat is used to keep the heartbeat of many code generators in one batch.
+ * <p>
+ * Typically, it updates the heartbeat of all the parameters of LCG occupied by the pools in a registry
+ * with one statement, instead of one statement per code generator.
+ *
+ * @author kc
+ */
+@FunctionalInterface
+public interface ICodeGenHeartbeat {
+
+    /**
+     * Keep the heartbeat of the occupied serial numbers.
+     *
+     * @param noList the serial numbers collected by {@link ICodeGen#getOccupiedNoList()}
+     * @return the result of keeping
+     */
+    boolean keepHeartbeat(Collection<Long> noList);
+
+}
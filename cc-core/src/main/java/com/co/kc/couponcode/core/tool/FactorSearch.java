@@ -0,0 +1,247 @@
+package com.co.kc.couponcode.core.tool;
+
+import com.co.kc.couponcode.core.algo.Lcg;
+import com.co.kc.couponcode.core.algo.LcgEngine;
+import com.co.kc.couponcode.core.algo.SpectralTest;
+import com.co.kc.couponcode.core.model.IFactor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Collectors;
+
+/**
+ * 线性同余算法参数搜索工具
+ * <p>
+ * 对任意模数m，枚举满足赫尔-多贝尔(Hull–Dobell)定理且势(potency)最大的乘数a = 1 + L*k，
+ * 其中L为m的所有质因子之积(m能被4整除时再乘2)，k与m的质因子互质；
+ * 候选均匀分布在[1, (m-2)/L]内，使用Fork/Join并行计算谱检验得分，输出得分最高的参数。
+ * <p>
+ * 用法：FactorSearch &lt;m&gt; [format] [dimension] [candidates] [top]
+ *
+ * @author kc
+ */
+public class FactorSearch {
+
+    private static final int DEFAULT_DIMENSION = 6;
+    private static final long DEFAULT_CANDIDATES = 100000L;
+    private static final int DEFAULT_TOP = 10;
+    /**
+     * 单个任务处理的最大候选数
+     */
+    private static final int SEQUENTIAL_THRESHOLD = 256;
+
+    private FactorSearch() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: FactorSearch <m> [format] [dimension] [candidates] [top]");
+            return;
+        }
+        long m = Long.parseLong(args[0]);
+        String format = args.length > 1 ? args[1] : "%0" + String.valueOf(m - 1).length() + "d";
+        int dimension = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_DIMENSION;
+        long candidates = args.length > 3 ? Long.parseLong(args[3]) : DEFAULT_CANDIDATES;
+        int top = args.length > 4 ? Integer.parseInt(args[4]) : DEFAULT_TOP;
+
+        for (FactorCandidate candidate : search(m, format, dimension, candidates, top)) {
+            System.out.println(candidate.toDefinition() + " // score=" + candidate.getScore());
+        }
+    }
+
+    /**
+     * 在公共Fork/Join线程池中搜索参数
+     *
+     * @param m          modulo
+     * @param format     券码格式
+     * @param dimension  谱检验最大维度
+     * @param candidates 候选乘数数量
+     * @param top        返回数量
+     * @return 按得分降序排列的参数
+     */
+    public static List<FactorCandidate> search(long m, String format, int dimension, long candidates, int top) {
+        return search(ForkJoinPool.commonPool(), m, format, dimension, candidates, top);
+    }
+
+    /**
+     * 在指定Fork/Join线程池中搜索参数
+     *
+     * @param pool       线程池
+     * @param m          modulo
+     * @param format     券码格式
+     * @param dimension  谱检验最大维度
+     * @param candidates 候选乘数数量
+     * @param top        返回数量
+     * @return 按得分降序排列的参数
+     */
+    public static List<FactorCandidate> search(ForkJoinPool pool, long m, String format, int dimension, long candidates, int top) {
+        if (m <= 4) {
+            throw new IllegalArgumentException("m must be greater than 4: " + m);
+        }
+        long radical = radical(m);
+        long step = m % 4 == 0 ? radical * 2 : radical;
+        long maxK = (m - 2) / step;
+        if (maxK < 1) {
+            return new ArrayList<>();
+        }
+        long count = Math.min(candidates, maxK);
+        SearchContext context = new SearchContext(m, format, dimension, top, radical, step, maxK / count, addend(m));
+        return pool.invoke(new SearchTask(context, 0, count));
+    }
+
+    /**
+     * 取m*(1/2 - √3/6)附近与m互质的c (Knuth推荐值)
+     */
+    private static long addend(long m) {
+        long c = (long) (m * (0.5 - Math.sqrt(3) / 6));
+        while (gcd(c, m) != 1) {
+            c++;
+        }
+        return c;
+    }
+
+    /**
+     * m的所有质因子之积
+     */
+    private static long radical(long m) {
+        long radical = 1;
+        long rest = m;
+        for (long p = 2; p <= rest / p; p++) {
+            if (rest % p == 0) {
+                radical *= p;
+                while (rest % p == 0) {
+                    rest /= p;
+                }
+            }
+        }
+        return rest > 1 ? radical * rest : radical;
+    }
+
+    private static long gcd(long x, long y) {
+        while (y != 0) {
+            long t = y;
+            y = x % y;
+            x = t;
+        }
+        return x;
+    }
+
+    private static List<FactorCandidate> merge(List<FactorCandidate> left, List<FactorCandidate> right, int top) {
+        List<FactorCandidate> merged = new ArrayList<>(left.size() + right.size());
+        merged.addAll(left);
+        merged.addAll(right);
+        return merged.stream()
+                .sorted(Comparator.comparingDouble(FactorCandidate::getScore).reversed())
+                .limit(top)
+                .collect(Collectors.toList());
+    }
+
+    @Getter
+    private static class SearchContext {
+        private final long m;
+        private final String format;
+        private final int dimension;
+        private final int top;
+        private final long radical;
+        private final long step;
+        private final long stride;
+        private final long c;
+
+        SearchContext(long m, String format, int dimension, int top, long radical, long step, long stride, long c) {
+            this.m = m;
+            this.format = format;
+            this.dimension = dimension;
+            this.top = top;
+            this.radical = radical;
+            this.step = step;
+            this.stride = stride;
+            this.c = c;
+        }
+    }
+
+    /**
+     * 处理第[from, to)个候选乘数
+     */
+    private static class SearchTask extends RecursiveTask<List<FactorCandidate>> {
+        private final SearchContext context;
+        private final long from;
+        private final long to;
+
+        SearchTask(SearchContext context, long from, long to) {
+            this.context = context;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<FactorCandidate> compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                return computeDirectly();
+            }
+            long middle = (from + to) >>> 1;
+            SearchTask left = new SearchTask(context, from, middle);
+            SearchTask right = new SearchTask(context, middle, to);
+            right.fork();
+            List<FactorCandidate> leftResult = left.compute();
+            return merge(leftResult, right.join(), context.getTop());
+        }
+
+        private List<FactorCandidate> computeDirectly() {
+            List<FactorCandidate> result = new ArrayList<>();
+            long m = context.getM();
+            for (long i = from; i < to; i++) {
+                long k = 1 + i * context.getStride();
+                // k与m的质因子互质，保证势最大
+                if (gcd(k, context.getRadical()) != 1) {
+                    continue;
+                }
+                long a = 1 + k * context.getStep();
+                if (!Lcg.isFullPeriod(a, context.getC(), m)) {
+                    continue;
+                }
+                double score = SpectralTest.score(a, m, context.getDimension());
+                result.add(new FactorCandidate(a, context.getC(), m, context.getFormat(), score));
+            }
+            return merge(result, Collections.emptyList(), context.getTop());
+        }
+    }
+
+    /**
+     * 搜索得到的参数
+     */
+    @Getter
+    public static class FactorCandidate implements IFactor {
+        private final long a;
+        private final long c;
+        private final long m;
+        private final String format;
+        /**
+         * 归一化谱检验得分
+         */
+        private final double score;
+        private final LcgEngine engine;
+
+        public FactorCandidate(long a, long c, long m, String format, double score) {
+            this.a = a;
+            this.c = c;
+            this.m = m;
+            this.format = format;
+            this.score = score;
+            this.engine = LcgEngine.of(a, c, m);
+        }
+
+        /**
+         * 生成可直接加入Factor枚举的定义
+         *
+         * @return 枚举常量定义
+         */
+        public String toDefinition() {
+            return String.format("PERIOD_%d(%dL, %dL, %dL, \"%s\"),", m, a, c, m, format);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.co.kc.couponcode.core.tool;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+
+/**
+ * 基于内存映射文件的堆外位图
+ * <p>
+ * 位图存储在临时稀疏文件中并按1GiB分段映射，不占用Java堆，2^33位仅需1GiB。
+ * 读写long以分段锁保护(按long下标取锁)，多个线程并发置位同一个long也不会丢失；不同long大多落在不同锁上，竞争很少。
+ * <p>
+ * Java 8没有受支持的方式立即解除映射，{@link #close()}关闭并删除文件、丢弃映射的引用，映射内存在GC回收缓冲区时释放。
+ * 遗留的映射最多为位图本身的大小(size/8字节)，文件已删除，磁盘空间在映射释放后回收(Windows上映射有效时无法删除，退出时删除)，
+ * 因此不应频繁创建大位图。
+ *
+ * @author kc
+ */
+public class MappedBitSet implements Closeable {
+
+    private static final int CHUNK_SHIFT = 30;
+    private static final long CHUNK_SIZE = 1L << CHUNK_SHIFT;
+    private static final long CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /**
+     * 锁数量，2的幂
+     */
+    private static final int LOCK_STRIPES = 1 << 10;
+
+    private final long size;
+    private final File file;
+    private final RandomAccessFile randomAccessFile;
+    private MappedByteBuffer[] chunks;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    /**
+     * @param size 位数
+     * @param dir  临时文件目录，null表示系统临时目录
+     * @throws IOException 创建或映射文件失败
+     */
+    public MappedBitSet(long size, File dir) throws IOException {
+        this.size = size;
+        long bytes = ((size + Long.SIZE - 1) >>> 6) << 3;
+        this.file = (dir == null ? Files.createTempFile("bitset", ".bin") : Files.createTempFile(dir.toPath(), "bitset", ".bin")).toFile();
+        this.file.deleteOnExit();
+        this.randomAccessFile = new RandomAccessFile(file, "rw");
+        this.randomAccessFile.setLength(bytes);
+        FileChannel channel = randomAccessFile.getChannel();
+        this.chunks = new MappedByteBuffer[(int) ((bytes + CHUNK_SIZE - 1) >>> CHUNK_SHIFT)];
+        for (int i = 0; i < chunks.length; i++) {
+            long position = (long) i << CHUNK_SHIFT;
+            chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE, position, Math.min(CHUNK_SIZE, bytes - position));
+            chunks[i].order(ByteOrder.nativeOrder());
+        }
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * 原子地置位并返回原值
+     *
+     * @param index 位下标
+     * @return 置位前是否已置位
+     */
+    public boolean getAndSet(long index) {
+        // 最后一个long中超出size的位也在映射范围内，需要单独检查
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        }
+        long offset = (index >>> 6) << 3;
+        MappedByteBuffer chunk = chunks[(int) (offset >>> CHUNK_SHIFT)];
+        int position = (int) (offset & CHUNK_MASK);
+        long bit = 1L << index;
+        synchronized (locks[(int) (index >>> 6) & (LOCK_STRIPES - 1)]) {
+            long word = chunk.getLong(position);
+            if ((word & bit) != 0) {
+                return true;
+            }
+            chunk.putLong(position, word | bit);
+            return false;
+        }
+    }
+
+    /**
+     * 获取位值
+     *
+     * @param index 位下标
+     * @return 是否已置位
+     */
+    public boolean get(long index) {
+        long offset = (index >>> 6) << 3;
+        synchronized (locks[(int) (index >>> 6) & (LOCK_STRIPES - 1)]) {
+            return (chunks[(int) (offset >>> CHUNK_SHIFT)].getLong((int) (offset & CHUNK_MASK)) & (1L << index)) != 0;
+        }
+    }
+
+    /**
+     * 统计已置位数量，应在所有置位完成后调用
+     *
+     * @return 已置位数量
+     */
+    public long cardinality() {
+        long count = 0;
+        for (MappedByteBuffer chunk : chunks) {
+            for (int position = 0, limit = chunk.capacity(); position < limit; position += Long.BYTES) {
+                count += Long.bitCount(chunk.getLong(position));
+            }
+        }
+        return count;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * 关闭并删除文件，关闭后不可再使用
+     * <p>
+     * 映射内存在GC回收缓冲区时释放，见类注释
+     */
+    @Override
+    public void close() throws IOException {
+        chunks = null;
+        randomAccessFile.close();
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            // 映射仍有效时部分系统(Windows)不允许删除，已登记退出时删除
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.co.kc.couponcode.core.tool;
+
+import com.co.kc.couponcode.core.algo.DecimalLcgFactor;
+import com.co.kc.couponcode.core.algo.LcgFactor;
+import com.co.kc.couponcode.core.model.ICodeEngine;
+import com.co.kc.couponcode.core.model.IFactor;
+import lombok.Getter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 满周期校验工具
+ * <p>
+ * 从x0出发走完m步，在堆外位图{@link MappedBitSet}中标记每个状态，位图大小为m/8字节(2^33仅需1GiB)。
+ * 周期被切分为若干段，每段起点由跳跃计算得到，各段并行迭代。
+ * <p>
+ * 位图原子置位，并发时不会丢失置位：一旦发现已置位即为真实重复；
+ * 走完m步后置位数等于m且第m步回到x0即证明满周期。
+ * <p>
+ * 并行时后置位的段可能是重复状态的首次出现，因此发现重复后以该状态所在的环重新计算真实的首个重复位置。
+ * <p>
+ * 用法：PeriodVerifier &lt;factor&gt; [x0] [parallelism] [dir]
+ *
+ * @author kc
+ */
+public class PeriodVerifier {
+
+    /**
+     * 每个线程分配的段数，用于平衡各段耗时
+     */
+    private static final int SEGMENTS_PER_THREAD = 4;
+
+    private PeriodVerifier() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: PeriodVerifier <factor> [x0] [parallelism] [dir]");
+            return;
+        }
+        IFactor factor = factor(args[0]);
+        long x0 = args.length > 1 ? Long.parseLong(args[1]) : 0L;
+        int parallelism = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        File dir = args.length > 3 ? new File(args[3]) : null;
+        System.out.println(verify(factor, x0, parallelism, dir));
+    }
+
+    private static IFactor factor(String name) {
+        for (LcgFactor factor : LcgFactor.values()) {
+            if (factor.name().equals(name)) {
+                return factor;
+            }
+        }
+        return DecimalLcgFactor.valueOf(name);
+    }
+
+    /**
+     * 校验参数是否满周期
+     *
+     * @param factor      参数
+     * @param x0          起点，取值[0, m)
+     * @param parallelism 并行线程数
+     * @param dir         位图临时文件目录，null表示系统临时目录
+     * @return 校验结果
+     * @throws IOException 位图文件创建失败
+     */
+    public static VerifyResult verify(IFactor factor, long x0, int parallelism, File dir) throws IOException {
+        long m = factor.getM();
+        if (x0 < 0 || x0 >= m) {
+            throw new IllegalArgumentException("x0 must be in [0, m): " + x0);
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        ICodeEngine engine = factor.getEngine();
+        long start = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try (MappedBitSet bitSet = new MappedBitSet(m, dir)) {
+            long segments = Math.min(m, (long) parallelism * SEGMENTS_PER_THREAD);
+            long length = (m + segments - 1) / segments;
+            List<Future<Segment>> futures = new ArrayList<>();
+            for (long from = 0; from < m; from += length) {
+                long begin = from;
+                long end = Math.min(m, from + length);
+                futures.add(executor.submit(() -> walk(engine, bitSet, x0, begin, end)));
+            }
+
+            long period = -1;
+            long duplicatePosition = -1;
+            long duplicateState = -1;
+            for (Future<Segment> future : futures) {
+                Segment segment = future.get();
+                if (segment.getReturnPosition() > 0 && (period < 0 || segment.getReturnPosition() < period)) {
+                    period = segment.getReturnPosition();
+                }
+                if (segment.getDuplicatePosition() > 0 && (duplicatePosition < 0 || segment.getDuplicatePosition() < duplicatePosition)) {
+                    duplicatePosition = segment.getDuplicatePosition();
+                    duplicateState = segment.getDuplicateState();
+                }
+            }
+            long cardinality = bitSet.cardinality();
+            if (period < 0 && duplicatePosition < 0 && cardinality == m && engine.jump(x0, m) == x0) {
+                period = m;
+            }
+            if (duplicatePosition > 0) {
+                long[] repeat = firstRepeat(engine, x0, duplicateState);
+                duplicatePosition = repeat[0];
+                duplicateState = repeat[1];
+            }
+            return new VerifyResult(m, x0, period, cardinality, duplicatePosition, duplicateState, System.currentTimeMillis() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("verify interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("verify failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 迭代第(from, end]步，位置n的状态为X(n)
+     */
+    private static Segment walk(ICodeEngine engine, MappedBitSet bitSet, long x0, long from, long end) {
+        long m = engine.getM();
+        long duplicatePosition = -1;
+        long duplicateState = -1;
+        long xn = engine.jump(x0, from);
+        for (long n = from + 1; n <= end; n++) {
+            xn = engine.next(xn);
+            // 发现重复后不再标记，仅继续寻找回到x0的位置(其他段可能先标记了本段之后的状态)
+            if (duplicatePosition < 0 && bitSet.getAndSet(xn)) {
+                duplicatePosition = n;
+                duplicateState = xn;
+            }
+            if (xn == x0 && n < m) {
+                return new Segment(n, duplicatePosition, duplicateState);
+            }
+        }
+        return new Segment(-1, duplicatePosition, duplicateState);
+    }
+
+    /**
+     * 由已知的重复状态求序列的首个重复位置及其状态
+     * <p>
+     * 重复状态必在环上，从它出发回到自身的步数即环长λ；X(k) = X(k + λ)当且仅当k >= μ(前导长度)，
+     * 以跳跃二分求μ，首个重复位置为μ + λ，状态为X(μ)。
+     *
+     * @return {首个重复位置, 重复状态}
+     */
+    private static long[] firstRepeat(ICodeEngine engine, long x0, long duplicateState) {
+        long cycle = 1;
+        for (long xn = engine.next(duplicateState); xn != duplicateState; xn = engine.next(xn)) {
+            cycle++;
+        }
+        long low = 0;
+        long high = engine.getM();
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            long xm = engine.jump(x0, mid);
+            if (xm == engine.jump(xm, cycle)) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return new long[]{low + cycle, engine.jump(x0, low)};
+    }
+
+    @Getter
+    private static class Segment {
+        private final long returnPosition;
+        private final long duplicatePosition;
+        private final long duplicateState;
+
+        Segment(long returnPosition, long duplicatePosition, long duplicateState) {
+            this.returnPosition = returnPosition;
+            this.duplicatePosition = duplicatePosition;
+            this.duplicateState = duplicateState;
+        }
+    }
+
+    /**
+     * 校验结果
+     */
+    @Getter
+    public static class VerifyResult {
+        private final long m;
+        private final long x0;
+        /**
+         * 周期长度，-1表示m步内未回到x0
+         */
+        private final long period;
+        /**
+         * 位图置位数，即观察到的不同状态数
+         */
+        private final long cardinality;
+        /**
+         * 发现的最早重复状态的位置(第n步)，-1表示未发现
+         */
+        private final long duplicatePosition;
+        private final long duplicateState;
+        private final long elapsed;
+
+        public VerifyResult(long m, long x0, long period, long cardinality, long duplicatePosition, long duplicateState, long elapsed) {
+            this.m = m;
+            this.x0 = x0;
+            this.period = period;
+            this.cardinality = cardinality;
+            this.duplicatePosition = duplicatePosition;
+            this.duplicateState = duplicateState;
+            this.elapsed = elapsed;
+        }
+
+        public boolean isFullPeriod() {
+            return period == m;
+        }
+
+        @Override
+        public String toString() {
+            return "VerifyResult{m=" + m + ", x0=" + x0 + ", fullPeriod=" + isFullPeriod() + ", period=" + period
+                    + ", cardinality=" + cardinality + ", duplicatePosition=" + duplicatePosition
+                    + ", duplicateState=" + duplicateState + ", elapsed=" + elapsed + "ms}";
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.co.kc.couponcode.core.algo;
+
+import com.co.kc.couponcode.core.model.ICodeEngine;
+import com.co.kc.couponcode.core.model.IFactor;
+
+/**
+ * 线性同余算法批量生成(离线大批量场景)，Java 17版本
+ * <p>
+ * 与Java 8版本接口一致。若运行时加载了jdk.incubator.vector模块(--add-modules jdk.incubator.vector)，
+ * 则由{@link LcgVectorKernel}以向量指令同时推进K条交错子序列，K为当前CPU首选向量的long通道数；
+ * 否则使用与Java 8版本相同的标量路径。
+ *
+ * @author kc
+ */
+public final class LcgBatch {
+
+    private static final boolean VECTORIZED = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+            && LcgVectorKernel.lanes() >= 2;
+
+    private LcgBatch() {
+    }
+
+    /**
+     * 是否使用向量指令
+     *
+     * @return 是否使用向量指令
+     */
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    /**
+     * 从Xn开始批量生成后续状态并写入out[offset, offset+length)，若回到end(周期结束)则提前停止，end本身不写入
+     *
+     * @param factor The factor of LCG
+     * @param xn     Xn
+     * @param end    周期结束状态
+     * @param out    输出数组
+     * @param offset 输出起始位置
+     * @param length 最大生成数量
+     * @return 实际生成数量，小于length说明已到达周期结束
+     */
+    public static int fill(IFactor factor, long xn, long end, long[] out, int offset, int length) {
+        ICodeEngine engine = factor.getEngine();
+        long m = engine.getM();
+        int lanes = VECTORIZED ? LcgVectorKernel.lanes() : LcgBatchScalar.LANES;
+        if (!(engine instanceof LcgEngine) || (m & (m - 1)) != 0 || length < 2 * lanes) {
+            return engine.fill(xn, end, out, offset, length);
+        }
+        LcgEngine lcg = (LcgEngine) engine;
+        int filled = VECTORIZED
+                ? LcgVectorKernel.fill(lcg, xn, end, out, offset, length)
+                : LcgBatchScalar.fill(lcg, xn, end, out, offset, length);
+        return LcgBatchScalar.complete(lcg, filled, end, out, offset, length);
+    }
+}
@@ -0,0 +1,54 @@
+package com.co.kc.couponcode.core.algo;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * 向量化推进交错子序列，仅在jdk.incubator.vector模块可用时由{@link LcgBatch}加载
+ *
+ * @author kc
+ */
+final class LcgVectorKernel {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    private LcgVectorKernel() {
+    }
+
+    static int lanes() {
+        return SPECIES.length();
+    }
+
+    /**
+     * 按整轮生成，返回生成数量；若遇到end则返回-(生成数量)-1
+     */
+    static int fill(LcgEngine lcg, long xn, long end, long[] out, int offset, int length) {
+        int lanes = SPECIES.length();
+        LcgEngine leap = lcg.cachedLeap(lanes);
+        long a = leap.getA();
+        long c = leap.getC();
+        long mask = lcg.getM() - 1;
+
+        long[] start = new long[lanes];
+        long x = xn;
+        for (int i = 0; i < lanes; i++) {
+            x = lcg.next(x);
+            start[i] = x;
+        }
+        LongVector v = LongVector.fromArray(SPECIES, start, 0);
+        int rounds = length / lanes;
+        for (int r = 0, i = offset; r < rounds; r++, i += lanes) {
+            VectorMask<Long> hit = v.compare(VectorOperators.EQ, end);
+            if (hit.anyTrue()) {
+                int first = hit.firstTrue();
+                v.intoArray(out, i, SPECIES.indexInRange(0, first));
+                return -(i - offset + first) - 1;
+            }
+            v.intoArray(out, i);
+            v = v.mul(a).add(c).and(mask);
+        }
+        return rounds * lanes;
+    }
+}
@@ -0,0 +1,76 @@
+package com.co.kc.couponcode.core;
+
+import com.co.kc.couponcode.core.algo.DecimalLcgFactor;
+import com.co.kc.couponcode.core.algo.LcgFactor;
+import com.co.kc.couponcode.core.model.IFactor;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+public class CodeRendererTests {
+
+    private static final long[] CODES = {0L, 1L, 9L, 10L, 123456789L, 9999999999L, 10000000000L, Long.MAX_VALUE};
+
+    private static void assertIdentical(String format, long no, long code) {
+        CodeRenderer renderer = CodeRenderer.of(format);
+        String expected = no + String.format(format, code);
+        Assert.assertEquals(expected, renderer.render(no, code));
+
+        char[] chars = new char[renderer.getMaxLength() + 3];
+        int length = renderer.render(no, code, chars, 3);
+        Assert.assertEquals(expected, new String(chars, 3, length));
+
+        byte[] bytes = new byte[renderer.getMaxLength() * 3 + 3];
+        length = renderer.render(no, code, bytes, 3);
+        Assert.assertArrayEquals(expected.getBytes(StandardCharsets.UTF_8), Arrays.copyOfRange(bytes, 3, 3 + length));
+    }
+
+    @Test
+    public void testFactorFormats() {
+        List<IFactor> factors = new ArrayList<>();
+        Collections.addAll(factors, LcgFactor.values());
+        Collections.addAll(factors, DecimalLcgFactor.values());
+        Random random = new Random(20240101L);
+        for (IFactor factor : factors) {
+            Assert.assertTrue(CodeRenderer.of(factor.getFormat()).isCompiled());
+            Assert.assertSame(CodeRenderer.of(factor.getFormat()), CodeRenderer.of(new String(factor.getFormat())));
+            for (long code : CODES) {
+                assertIdentical(factor.getFormat(), 1L, code);
+            }
+            for (int i = 0; i < 1000; i++) {
+                long no = random.nextInt(100000);
+                assertIdentical(factor.getFormat(), no, Math.floorMod(random.nextLong(), factor.getM()));
+            }
+        }
+    }
+
+    @Test
+    public void testOtherFormats() {
+        for (String format : new String[]{"%d", "%5d", "%012d", "CP-%08d", "%06d-X", "%x", "%,d", "%-8d", "%%%d"}) {
+            for (long code : CODES) {
+                assertIdentical(format, 42L, code);
+            }
+            assertIdentical(format, 0L, -123L);
+            assertIdentical(format, -1L, 123L);
+        }
+        Assert.assertTrue(CodeRenderer.of("CP-%08d").isCompiled());
+        Assert.assertFalse(CodeRenderer.of("%x").isCompiled());
+    }
+
+    @Test
+    public void testLocalizedDigits() {
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        try {
+            Locale.setDefault(Locale.Category.FORMAT, Locale.forLanguageTag("th-TH-u-nu-thai"));
+            assertIdentical("%010d", 7L, 123456L);
+            assertIdentical("%10d", 7L, 123456L);
+            Locale.setDefault(Locale.Category.FORMAT, Locale.GERMANY);
+            assertIdentical("%010d", 7L, 123456L);
+        } finally {
+            Locale.setDefault(Locale.Category.FORMAT, locale);
+        }
+        assertIdentical("%010d", 7L, 123456L);
+    }
+}
@@ -0,0 +1,102 @@
+package com.co.kc.couponcode.core;
+
+import com.co.kc.couponcode.core.model.ICode;
+import com.co.kc.couponcode.core.persistence.TestCodeGen;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class CouponCodePoolRegistryTests {
+
+    @Test
+    public void testManyPoolsOnSharedScheduler() throws InterruptedException {
+        CouponCodePoolScheduler scheduler = new CouponCodePoolScheduler(2);
+        List<Collection<Long>> heartbeats = new CopyOnWriteArrayList<>();
+        CouponCodePoolRegistry registry = new CouponCodePoolRegistry(scheduler, noList -> heartbeats.add(noList));
+        int threadCount = Thread.activeCount();
+        try {
+            int poolCount = 100;
+            for (int i = 0; i < poolCount; i++) {
+                long startNo = i * 1000L + 1;
+                registry.register("pool-" + i, () -> new TestCodeGen(startNo), 1, 10, 100);
+            }
+            try {
+                registry.register("pool-0", TestCodeGen::new, 1, 10, 100);
+                Assert.fail();
+            } catch (IllegalArgumentException ignored) {
+            }
+            Assert.assertEquals(poolCount, registry.getNames().size());
+            Assert.assertNull(registry.get("unknown"));
+
+            registry.init();
+            for (int i = 0; i < poolCount; i++) {
+                CouponCodePool pool = registry.get("pool-" + i);
+                Assert.assertTrue(pool.isScheduled());
+                Set<String> codes = new HashSet<>();
+                for (int j = 0; j < 50; j++) {
+                    codes.add(pool.next());
+                }
+                Assert.assertEquals(50, codes.size());
+                Assert.assertEquals(50, pool.getIssuedCount());
+            }
+            // async waiters are completed by fill tasks
+            Assert.assertNotNull(registry.get("pool-0").nextAsync(1, TimeUnit.SECONDS).join());
+
+            // no thread per pool
+            Assert.assertTrue(Thread.activeCount() - threadCount < 20);
+
+            // one batched heartbeat for all pools
+            registry.reportHeartbeat();
+            Collection<Long> noList = heartbeats.get(heartbeats.size() - 1);
+            Assert.assertEquals(poolCount, noList.size());
+            Assert.assertTrue(noList.contains(1L));
+            Assert.assertTrue(noList.contains(99001L));
+
+            // a pool registered after init starts immediately
+            CouponCodePool late = registry.register("late", () -> new TestCodeGen(100001L), 1, 10, 100);
+            Assert.assertNotNull(late.next());
+        } finally {
+            registry.destroy();
+            scheduler.shutdown();
+        }
+        Assert.assertEquals(CouponCodePool.PoolStatus.DESTROY, registry.get("pool-0").getStatus());
+    }
+
+    @Test
+    public void testBlockingFlushDoesNotStallOtherPools() throws InterruptedException {
+        CouponCodePoolScheduler scheduler = new CouponCodePoolScheduler(1);
+        CouponCodePoolRegistry registry = new CouponCodePoolRegistry(scheduler, noList -> true);
+        CountDownLatch flushBlocked = new CountDownLatch(1);
+        CountDownLatch unblock = new CountDownLatch(1);
+        try {
+            registry.register("slow", () -> new TestCodeGen(1L) {
+                @Override
+                public boolean flush(Long no, ICode xn, Long delta) {
+                    flushBlocked.countDown();
+                    try {
+                        unblock.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return super.flush(no, xn, delta);
+                }
+            }, 1, 10, 100);
+            registry.init();
+
+            // the only worker blocks in the slow pool's flush, the pool compensates and a new pool still refills
+            Assert.assertTrue(flushBlocked.await(5, TimeUnit.SECONDS));
+            registry.register("fast", () -> new TestCodeGen(1001L), 1, 10, 100);
+            Set<String> codes = new HashSet<>(registry.get("fast").next(10, 5, TimeUnit.SECONDS));
+            Assert.assertEquals(10, codes.size());
+            Assert.assertEquals(0, registry.get("slow").getHotPoolSize());
+        } finally {
+            unblock.countDown();
+            registry.destroy();
+            scheduler.shutdown();
+        }
+    }
+}
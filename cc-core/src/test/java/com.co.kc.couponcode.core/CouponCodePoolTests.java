@@ -1,8 +1,14 @@
 package com.co.kc.couponcode.core;
 
 import com.co.kc.couponcode.common.exception.BusinessException;
+import com.co.kc.couponcode.core.algo.DecimalLcgFactor;
 import com.co.kc.couponcode.core.algo.Lcg;
+import com.co.kc.couponcode.core.algo.Lcg128;
+import com.co.kc.couponcode.core.algo.Lcg128Factor;
+import com.co.kc.couponcode.core.algo.LcgFactor;
+import com.co.kc.couponcode.core.algo.UnsignedMath;
 import com.co.kc.couponcode.core.model.ICode;
+import com.co.kc.couponcode.core.model.IFactor;
 import com.co.kc.couponcode.core.persistence.ICodeGen;
 import com.co.kc.couponcode.core.persistence.TestCodeGen;
 import org.junit.Assert;
@@ -10,6 +16,14 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 public class CouponCodePoolTests {
 
@@ -40,6 +54,36 @@ public class CouponCodePoolTests {
         Assert.assertEquals(100, pool.getColdPoolSize());
     }
 
+    @Test
+    public void testFillColdPoolByRange() {
+        CouponCodePool pool = new CouponCodePool(CODE_GEN);
+        pool.setColdX0(CODE_GEN.getX0());
+        pool.setColdXn(CODE_GEN.getXn());
+        pool.setColdFactor(CODE_GEN.getFactor());
+        pool.setMaxHotPoolSize(100);
+        pool.setMaxColdPoolSize(5_000_000);
+
+        // only the cursor is advanced, codes are generated when the hot pool takes them
+        ICode xn = pool.getColdXn();
+        Thread.currentThread().interrupt();
+        pool.fillColdPool();
+        Assert.assertEquals(5_000_000, pool.getColdPoolSize());
+        Assert.assertEquals(pool.getColdFactor().getEngine().jump(xn.getCode(), 5_000_000), pool.getColdXn().getCode());
+
+        Thread.currentThread().interrupt();
+        pool.fillHotPool();
+        Assert.assertEquals(100, pool.getHotPoolSize());
+        Assert.assertEquals(5_000_000 - 100, pool.getColdPoolSize());
+
+        // hot pool codes follow the sequence from the cold pool cursor
+        long code = xn.getCode();
+        for (ICode hotCode : pool.getHotPoolCodeList()) {
+            code = Lcg.next(pool.getColdFactor(), code);
+            Assert.assertEquals(xn.getNo(), hotCode.getNo());
+            Assert.assertEquals(code, hotCode.getCode());
+        }
+    }
+
     @Test
     public void testFillHotPoolIfColdPoolIsEmpty() {
         CouponCodePool pool = new CouponCodePool(CODE_GEN);
@@ -173,6 +217,48 @@ public class CouponCodePoolTests {
         Assert.assertEquals(80, pool.getColdPoolSize());
     }
 
+    @Test
+    public void testFillHotPoolByWatermark() throws InterruptedException {
+        CouponCodePool pool = new CouponCodePool(CODE_GEN);
+        pool.setColdX0(CODE_GEN.getX0());
+        pool.setColdXn(CODE_GEN.getXn());
+        pool.setColdFactor(CODE_GEN.getFactor());
+        pool.setMaxHotPoolSize(10);
+        pool.setHotPoolLowWatermarkRatio(0.5);
+        pool.setMaxColdPoolSize(100);
+        pool.setStatus(CouponCodePool.PoolStatus.RUNNING);
+        Assert.assertEquals(5, pool.getHotPoolLowWatermark());
+
+        Thread.currentThread().interrupt();
+        pool.fillColdPool();
+        Thread.currentThread().interrupt();
+        pool.fillHotPool();
+        Assert.assertEquals(10, pool.getHotPoolSize());
+        Assert.assertEquals(90, pool.getColdPoolSize());
+
+        // not below the low watermark, no refill
+        for (int i = 0; i < 5; i++) {
+            pool.next();
+        }
+        Thread.currentThread().interrupt();
+        pool.fillHotPool();
+        Assert.assertEquals(5, pool.getHotPoolSize());
+        Assert.assertEquals(90, pool.getColdPoolSize());
+
+        // below the low watermark, top up to the high watermark in one batch
+        pool.next();
+        Thread.currentThread().interrupt();
+        pool.fillHotPool();
+        Assert.assertEquals(10, pool.getHotPoolSize());
+        Assert.assertEquals(84, pool.getColdPoolSize());
+
+        try {
+            pool.setHotPoolLowWatermarkRatio(0);
+            Assert.fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
     @Test
     public void testFillColdPoolIfMaxSizeChanged() {
         CouponCodePool pool = new CouponCodePool(CODE_GEN);
@@ -248,6 +334,499 @@ public class CouponCodePoolTests {
         }
     }
 
+    @Test
+    public void testNextBatchAndDrainTo() throws InterruptedException {
+        CouponCodePool pool = new CouponCodePool(CODE_GEN);
+        pool.setColdX0(CODE_GEN.getX0());
+        pool.setColdXn(CODE_GEN.getXn());
+        pool.setColdFactor(CODE_GEN.getFactor());
+        pool.setMaxHotPoolSize(100);
+        pool.setMaxColdPoolSize(1000);
+        pool.setStatus(CouponCodePool.PoolStatus.RUNNING);
+
+        Thread.currentThread().interrupt();
+        pool.fillColdPool();
+        Thread.currentThread().interrupt();
+        pool.fillHotPool();
+        List<ICode> hotCodeList = pool.getHotPoolCodeList();
+
+        // batch in order of the hot pool
+        List<String> codes = pool.next(30);
+        Assert.assertEquals(30, codes.size());
+        for (int i = 0; i < 30; i++) {
+            ICode code = hotCodeList.get(i);
+            Assert.assertEquals(code.getNo() + String.format(code.getFormat(), code.getCode()), codes.get(i));
+        }
+
+        // drain the primitive codes without blocking
+        List<Long> drained = new ArrayList<>();
+        Assert.assertEquals(20, pool.drainTo((no, code, format) -> drained.add(code), 20));
+        Assert.assertEquals(hotCodeList.get(30).getCode(), drained.get(0).longValue());
+        Assert.assertEquals(40, pool.drainTo((Consumer<String>) codes::add, 40));
+        Assert.assertEquals(70, codes.size());
+        Assert.assertEquals(10, pool.getHotPoolSize());
+        Assert.assertEquals(90, pool.getIssuedCount());
+
+        // return the partial batch if it times out
+        Assert.assertEquals(10, pool.next(20, 10, TimeUnit.MILLISECONDS).size());
+        Assert.assertEquals(0, pool.drainTo((no, code, format) -> Assert.fail(), 10));
+        try {
+            pool.next(20, 10, TimeUnit.MILLISECONDS);
+            Assert.fail();
+        } catch (BusinessException ignored) {
+        }
+    }
+
+    @Test
+    public void testTryNextAndNextAsync() throws Exception {
+        CouponCodePool pool = new CouponCodePool(CODE_GEN);
+        pool.setColdX0(CODE_GEN.getX0());
+        pool.setColdXn(CODE_GEN.getXn());
+        pool.setColdFactor(CODE_GEN.getFactor());
+        pool.setMaxHotPoolSize(10);
+        pool.setMaxColdPoolSize(100);
+        pool.setStatus(CouponCodePool.PoolStatus.RUNNING);
+
+        Thread.currentThread().interrupt();
+        pool.fillColdPool();
+        Assert.assertNull(pool.tryNext());
+
+        // the expired waiter is skipped by the refill thread
+        CompletableFuture<String> expired = pool.nextAsync(10, TimeUnit.MILLISECONDS);
+        try {
+            expired.get(5, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertEquals(BusinessException.class, e.getCause().getClass());
+        }
+
+        // the waiter is completed by the refill thread
+        CompletableFuture<String> waiter = pool.nextAsync(5, TimeUnit.SECONDS);
+        Assert.assertFalse(waiter.isDone());
+        Thread.currentThread().interrupt();
+        pool.fillHotPool();
+        Assert.assertTrue(waiter.isDone());
+        Assert.assertEquals(9, pool.getHotPoolSize());
+        Assert.assertEquals(90, pool.getColdPoolSize());
+        Assert.assertEquals(1, pool.getIssuedCount());
+
+        // completed immediately if the hot pool is not empty
+        ICode hotCode = pool.getHotPoolCodeList().get(0);
+        Assert.assertEquals(hotCode.getNo() + String.format(hotCode.getFormat(), hotCode.getCode()), pool.tryNext());
+        Assert.assertNotEquals(waiter.get(), pool.nextAsync(0, TimeUnit.MILLISECONDS).getNow(null));
+        Assert.assertEquals(3, pool.getIssuedCount());
+    }
+
+    @Test
+    public void testLeaseConfirmAndRecycle() throws InterruptedException {
+        CouponCodePool pool = new CouponCodePool(CODE_GEN);
+        pool.setColdX0(CODE_GEN.getX0());
+        pool.setColdXn(CODE_GEN.getXn());
+        pool.setColdFactor(CODE_GEN.getFactor());
+        pool.setMaxHotPoolSize(10);
+        pool.setMaxColdPoolSize(100);
+        pool.setStatus(CouponCodePool.PoolStatus.RUNNING);
+        Thread.currentThread().interrupt();
+        pool.fillColdPool();
+        Thread.currentThread().interrupt();
+        pool.fillHotPool();
+
+        List<CouponCodePool.LeasedCode> leased = pool.lease(5, 1000, 100, TimeUnit.MILLISECONDS);
+        Assert.assertEquals(5, leased.size());
+        Assert.assertEquals(5, pool.getLeaseSize());
+        Assert.assertEquals(5, pool.getHotPoolSize());
+        Assert.assertEquals(5, pool.getIssuedCount());
+        Assert.assertEquals(5, leased.stream().map(CouponCodePool.LeasedCode::getId).filter(id -> id > 0).distinct().count());
+
+        // confirmed codes are issued, released codes are recycled at once, the others when expired
+        List<Long> ids = Arrays.asList(leased.get(0).getId(), leased.get(1).getId());
+        Assert.assertEquals(ids, pool.confirm(ids));
+        Assert.assertEquals(1, pool.release(Collections.singletonList(leased.get(2).getId())));
+        Assert.assertEquals(1, pool.getRecycledSize());
+        Assert.assertEquals(4, pool.getIssuedCount());
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (pool.getRecycledSize() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+        Assert.assertEquals(3, pool.getRecycledSize());
+        Assert.assertEquals(0, pool.getLeaseSize());
+        // recycled codes are no longer counted as issued
+        Assert.assertEquals(2, pool.getIssuedCount());
+        Assert.assertTrue(pool.confirm(Collections.singletonList(leased.get(3).getId())).isEmpty());
+
+        // the recycled codes are refilled into the hot pool before the cold pool
+        pool.next(5);
+        Thread.currentThread().interrupt();
+        pool.fillHotPool();
+        Assert.assertEquals(0, pool.getRecycledSize());
+        Set<String> recycled = new HashSet<>();
+        for (int i = 2; i < 5; i++) {
+            recycled.add(leased.get(i).getCode());
+        }
+        Assert.assertEquals(recycled, new HashSet<>(pool.next(3)));
+        Assert.assertEquals(83, pool.getColdPoolSize());
+    }
+
+    @Test
+    public void testRecycleWakesHotPoolFiller() throws InterruptedException {
+        CouponCodePool pool = new CouponCodePool(CODE_GEN);
+        pool.setColdX0(CODE_GEN.getX0());
+        pool.setColdXn(CODE_GEN.getXn());
+        pool.setColdFactor(CODE_GEN.getFactor());
+        pool.setMaxHotPoolSize(10);
+        pool.setMaxColdPoolSize(10);
+        pool.setStatus(CouponCodePool.PoolStatus.RUNNING);
+        Thread.currentThread().interrupt();
+        pool.fillColdPool();
+        Thread.currentThread().interrupt();
+        pool.fillHotPool();
+        List<CouponCodePool.LeasedCode> leased = pool.lease(10, 1000, 1, TimeUnit.MINUTES);
+        Assert.assertEquals(0, pool.getHotPoolSize());
+        Assert.assertEquals(0, pool.getColdPoolSize());
+
+        // the hot pool filler waits while both the cold pool and the recycle queue are empty
+        Thread filler = new Thread(pool::fillHotPool);
+        filler.start();
+        try {
+            long deadline = System.currentTimeMillis() + 5000L;
+            while (filler.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10L);
+            }
+            Assert.assertEquals(Thread.State.WAITING, filler.getState());
+
+            // released codes wake it up without any cold pool refill
+            Assert.assertEquals(10, pool.release(leased.stream().map(CouponCodePool.LeasedCode::getId).collect(Collectors.toList())));
+            while (pool.getHotPoolSize() < 10 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10L);
+            }
+            Assert.assertEquals(10, pool.getHotPoolSize());
+            Assert.assertEquals(0, pool.getRecycledSize());
+        } finally {
+            filler.interrupt();
+            filler.join();
+        }
+    }
+
+    @Test
+    public void testFillByLeapfrog() throws InterruptedException {
+        TestCodeGen testCodeGen = new TestCodeGen();
+        CouponCodePool pool = new CouponCodePool(testCodeGen, 16384, 100_000);
+        pool.setColdFillParallelism(4);
+        pool.init();
+        try {
+            // 新选取的生成器xn = x0，多线程生成的券码仍按序列顺序发放
+            long code = testCodeGen.getRepository().get(1L).getX0();
+            String format = testCodeGen.getFactor().getFormat();
+            for (int issued = 0; issued < 50_000; ) {
+                for (String hotcode : pool.next(16384, 5, TimeUnit.SECONDS)) {
+                    code = Lcg.next(testCodeGen.getFactor(), code);
+                    Assert.assertEquals(1L + String.format(format, code), hotcode);
+                    issued++;
+                }
+            }
+        } finally {
+            pool.destroy();
+        }
+    }
+
+    @Test
+    public void testPrepareStandbyBeforeUsedUp() throws InterruptedException {
+        // 运算引擎支持与不支持反推步数时，均按cnt得到剩余数量
+        prepareStandbyBeforeUsedUp(LcgFactor.PERIOD_2147483648);
+        prepareStandbyBeforeUsedUp(DecimalLcgFactor.PERIOD_100000000);
+    }
+
+    private void prepareStandbyBeforeUsedUp(IFactor codeFactor) throws InterruptedException {
+        TestCodeGen testCodeGen = new TestCodeGen(1L, codeFactor);
+        testCodeGen.init();
+
+        CouponCodePool pool = new CouponCodePool(testCodeGen);
+        IFactor factor = testCodeGen.getFactor();
+        ICode x0 = testCodeGen.getX0();
+        // 当前生成器只剩150个券码
+        long xn = factor.getEngine().jump(x0.getCode(), factor.getM() - 1 - 150);
+        pool.setColdX0(x0);
+        pool.setColdXn(new CouponCodePool.PoolCode(x0.getNo(), xn, x0.getFormat()));
+        pool.setColdFactor(factor);
+        pool.setColdRemaining(150);
+        pool.setMaxColdPoolSize(100);
+
+        Thread.currentThread().interrupt();
+        pool.fillColdPool();
+        Assert.assertEquals(100, pool.getColdPoolSize());
+        Assert.assertEquals(50, pool.getColdRemaining());
+
+        // 剩余不足冷池的2倍，异步占用备用生成器
+        for (int i = 0; i < 500 && testCodeGen.getStandby().get() == null; i++) {
+            Thread.sleep(10);
+        }
+        TestCodeGen.CodeStatus standby = testCodeGen.getStandby().get();
+        Assert.assertNotNull(standby);
+        Assert.assertEquals(2, testCodeGen.getRepository().size());
+
+        // 用完当前生成器后直接切换至备用生成器
+        pool.setMaxColdPoolSize(300);
+        Thread.currentThread().interrupt();
+        pool.fillColdPool();
+        Assert.assertEquals(300, pool.getColdPoolSize());
+        Assert.assertEquals(standby.getNo().longValue(), pool.getColdXn().getNo());
+        Assert.assertEquals(standby.getX0().longValue(), pool.getColdX0().getCode());
+        Assert.assertNull(testCodeGen.getStandby().get());
+        Assert.assertEquals(2, testCodeGen.getRepository().size());
+    }
+
+    @Test
+    public void testRemainingWithoutDistance() throws InterruptedException {
+        IFactor factor = DecimalLcgFactor.PERIOD_100000000;
+        Assert.assertEquals(-1L, factor.getEngine().distance(0L, factor.getEngine().next(0L)));
+        TestCodeGen testCodeGen = new TestCodeGen(1L, factor);
+        CouponCodePool pool = new CouponCodePool(testCodeGen, 10, 100);
+        pool.init();
+        try {
+            for (int i = 0; i < 500 && pool.getColdPoolSize() < 100; i++) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(100, pool.getColdPoolSize());
+            // 运算引擎不支持反推步数时，仍按m-1-cnt得到剩余数量，远未用完不占用备用生成器
+            long remaining = pool.getColdRemaining();
+            Assert.assertTrue(remaining > factor.getM() - 1 - 200);
+            Thread.sleep(100);
+            Assert.assertNull(testCodeGen.getStandby().get());
+            Assert.assertEquals(1, testCodeGen.getRepository().size());
+        } finally {
+            pool.destroy();
+        }
+    }
+
+    @Test
+    public void testWideFactor() throws InterruptedException {
+        Lcg128Factor factor = Lcg128Factor.PERIOD_340282366920938463463374607431768211456;
+        TestCodeGen testCodeGen = new TestCodeGen(1L, factor);
+        CouponCodePool pool = new CouponCodePool(testCodeGen, 100, 1000);
+        pool.init();
+        List<String> hotcodes = new ArrayList<>();
+        try {
+            for (; hotcodes.size() < 3000; ) {
+                hotcodes.addAll(pool.next(3000 - hotcodes.size(), 5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.destroy();
+        }
+
+        // 券码池按位置发放，渲染后依次为128位序列的后续状态
+        TestCodeGen.CodeStatus codeStatus = testCodeGen.getRepository().get(1L);
+        long[] xn = Lcg128.locate(factor, 1L, codeStatus.getX0());
+        for (String hotcode : hotcodes) {
+            Lcg128.next(factor, xn);
+            Assert.assertEquals(1 + factor.getWidth(), hotcode.length());
+            Assert.assertEquals("1" + UnsignedMath.toString(xn[0], xn[1], factor.getWidth()), hotcode);
+        }
+        Assert.assertTrue(codeStatus.getCnt() >= hotcodes.size());
+    }
+
+    @Test
+    public void testMultipleGenerators() throws InterruptedException {
+        List<TestCodeGen> codeGens = new ArrayList<>();
+        CouponCodePool pool = new CouponCodePool(() -> {
+            TestCodeGen codeGen = new TestCodeGen(codeGens.size() * 1000L + 1);
+            codeGens.add(codeGen);
+            return codeGen;
+        }, 3, 256, 1000);
+        Assert.assertEquals(3, pool.getGeneratorCount());
+        pool.init();
+        List<String> hotcodes = new ArrayList<>();
+        try {
+            for (; hotcodes.size() < 3000; ) {
+                hotcodes.addAll(pool.next(3000 - hotcodes.size(), 5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.destroy();
+        }
+
+        // 每个生成器的序列位置
+        List<Map<String, Integer>> positions = new ArrayList<>();
+        for (TestCodeGen codeGen : codeGens) {
+            Map<String, Integer> position = new HashMap<>();
+            long no = codeGen.getRepository().keySet().iterator().next();
+            long code = codeGen.getRepository().get(no).getX0();
+            for (int i = 0; i < 5000; i++) {
+                code = Lcg.next(codeGen.getFactor(), code);
+                position.put(no + String.format(codeGen.getFactor().getFormat(), code), i);
+            }
+            positions.add(position);
+        }
+
+        // 券码交替取自3个生成器，每个生成器内按序列顺序发放且刷新数量覆盖已发放数量
+        int[] last = {-1, -1, -1};
+        int[] issued = new int[3];
+        for (String hotcode : hotcodes) {
+            int generator = -1;
+            for (int i = 0; i < 3; i++) {
+                if (positions.get(i).containsKey(hotcode)) {
+                    generator = i;
+                }
+            }
+            Assert.assertNotEquals(-1, generator);
+            Assert.assertEquals(last[generator] + 1, positions.get(generator).get(hotcode).intValue());
+            last[generator]++;
+            issued[generator]++;
+        }
+        for (int i = 0; i < 3; i++) {
+            Assert.assertTrue(issued[i] > 0);
+            for (TestCodeGen.CodeStatus codeStatus : codeGens.get(i).getRepository().values()) {
+                Assert.assertTrue(codeStatus.getCnt() >= issued[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testFlushPerGenerator() throws InterruptedException {
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean armed = new AtomicBoolean();
+        List<TestCodeGen> codeGens = new ArrayList<>();
+        CouponCodePool pool = new CouponCodePool(() -> {
+            TestCodeGen codeGen = codeGens.isEmpty() ? new TestCodeGen(1L) : new TestCodeGen(1000L) {
+                @Override
+                public boolean flush(Long no, ICode xn, Long delta) {
+                    // 第二个生成器的下一次刷新阻塞后失败
+                    if (armed.compareAndSet(true, false)) {
+                        flushing.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        throw new IllegalStateException("flush failed");
+                    }
+                    return super.flush(no, xn, delta);
+                }
+            };
+            codeGens.add(codeGen);
+            return codeGen;
+        }, 2, 10, 200);
+        pool.init();
+        List<String> hotcodes = new ArrayList<>();
+        try {
+            long deadline = System.currentTimeMillis() + 5000L;
+            while ((pool.getHotPoolSize() < 10 || pool.getColdPoolSize() < 200) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10L);
+            }
+            Assert.assertEquals(200, pool.getColdPoolSize());
+
+            // 补货数量超过单个生成器的预留，本轮从两个生成器各切出一段；第二个生成器刷新阻塞时第一个生成器的切片已放入热池
+            armed.set(true);
+            pool.setMaxHotPoolSize(200);
+            Assert.assertTrue(flushing.await(5, TimeUnit.SECONDS));
+            while (pool.getHotPoolSize() <= 10 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10L);
+            }
+            Assert.assertTrue(pool.getHotPoolSize() > 10);
+
+            // 刷新失败只丢弃该生成器的切片
+            release.countDown();
+            for (; hotcodes.size() < 600; ) {
+                hotcodes.addAll(pool.next(600 - hotcodes.size(), 5, TimeUnit.SECONDS));
+            }
+        } finally {
+            release.countDown();
+            pool.destroy();
+        }
+
+        List<Map<String, Integer>> positions = new ArrayList<>();
+        for (TestCodeGen codeGen : codeGens) {
+            Map<String, Integer> position = new HashMap<>();
+            long no = codeGen.getRepository().keySet().iterator().next();
+            long code = codeGen.getRepository().get(no).getX0();
+            for (int i = 0; i < 2000; i++) {
+                code = Lcg.next(codeGen.getFactor(), code);
+                position.put(no + String.format(codeGen.getFactor().getFormat(), code), i);
+            }
+            positions.add(position);
+        }
+        int[] last = {-1, -1};
+        int gaps = 0;
+        for (String hotcode : hotcodes) {
+            int generator = positions.get(0).containsKey(hotcode) ? 0 : 1;
+            int position = positions.get(generator).get(hotcode);
+            Assert.assertTrue(position > last[generator]);
+            if (position != last[generator] + 1) {
+                Assert.assertEquals(1, generator);
+                gaps++;
+            }
+            last[generator] = position;
+        }
+        Assert.assertEquals(1, gaps);
+    }
+
+    @Test
+    public void testPauseResumeAndReconfigure() throws InterruptedException {
+        TestCodeGen codeGen = new TestCodeGen(1L);
+        CouponCodePool pool = new CouponCodePool(codeGen, 10, 100);
+        pool.init();
+        try {
+            Assert.assertEquals(11, pool.next().length());
+
+            // paused: nothing is issued, pending callers fail fast
+            pool.pause();
+            Assert.assertTrue(pool.isPaused());
+            try {
+                pool.next();
+                Assert.fail();
+            } catch (BusinessException e) {
+                Assert.assertEquals("券码池已暂停", e.getMsg());
+            }
+            // the async caller gets a failed future instead of a synchronous exception
+            CompletableFuture<String> paused = pool.nextAsync(1, TimeUnit.SECONDS);
+            Assert.assertTrue(paused.isCompletedExceptionally());
+            try {
+                paused.join();
+                Assert.fail();
+            } catch (CompletionException e) {
+                Assert.assertEquals("券码池已暂停", ((BusinessException) e.getCause()).getMsg());
+            }
+            try {
+                pool.pause();
+                Assert.fail();
+            } catch (IllegalStateException ignored) {
+            }
+            pool.resume();
+            Assert.assertEquals(11, pool.next().length());
+
+            // resize while running, the cold pool fillers must not miss the wakeup
+            pool.setMaxColdPoolSize(300);
+            long deadline = System.currentTimeMillis() + 5000L;
+            while (pool.getColdPoolSize() < 300 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10L);
+            }
+            Assert.assertEquals(300, pool.getColdPoolSize());
+
+            // swap the factor: flushed hot codes of the old generator are issued first
+            pool.reconfigure(() -> new TestCodeGen(1000L, LcgFactor.PERIOD_1073741824));
+            Assert.assertSame(LcgFactor.PERIOD_1073741824, pool.getColdFactor());
+            Assert.assertNull(codeGen.getNo());
+            boolean swapped = false;
+            for (int i = 0; i < 200; i++) {
+                String hotcode = pool.next();
+                if (hotcode.length() == 14) {
+                    Assert.assertTrue(hotcode.startsWith("1000"));
+                    swapped = true;
+                } else {
+                    Assert.assertFalse(swapped);
+                }
+            }
+            Assert.assertTrue(swapped);
+        } finally {
+            pool.destroy();
+        }
+        Assert.assertEquals(CouponCodePool.PoolStatus.DESTROY, pool.getStatus());
+        try {
+            pool.resume();
+            Assert.fail();
+        } catch (IllegalStateException ignored) {
+        }
+    }
+
     @Test
     public void testCouponCodePoolSelect() {
         ICodeGen testCodeGen = new TestCodeGen();
@@ -0,0 +1,151 @@
+package com.co.kc.couponcode.core;
+
+import com.co.kc.couponcode.core.model.ICode;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+public class HotCodeRingTests {
+
+    private static final String FORMAT = "%08d";
+
+    @Test
+    public void testCapacity() {
+        Assert.assertEquals(1, new HotCodeRing(1).capacity());
+        Assert.assertEquals(2, new HotCodeRing(2).capacity());
+        Assert.assertEquals(1024, new HotCodeRing(1000).capacity());
+        Assert.assertEquals(1024, new HotCodeRing(1024).capacity());
+        try {
+            new HotCodeRing(0);
+            Assert.fail();
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
+    @Test
+    public void testOfferAndPollIfFullOrEmpty() {
+        HotCodeRing ring = new HotCodeRing(4);
+        Assert.assertTrue(ring.isEmpty());
+        Assert.assertNull(ring.poll((no, code, format) -> code));
+
+        // fill up the ring twice to check the wrap around
+        for (int round = 0; round < 2; round++) {
+            for (long i = 0; i < 4; i++) {
+                Assert.assertTrue(ring.offer(round, i, FORMAT));
+            }
+            Assert.assertFalse(ring.offer(round, 4, FORMAT));
+            Assert.assertEquals(4, ring.size());
+
+            List<ICode> snapshot = ring.snapshot();
+            Assert.assertEquals(4, snapshot.size());
+            Assert.assertEquals(round, snapshot.get(0).getNo());
+            Assert.assertEquals(0, snapshot.get(0).getCode());
+
+            for (long i = 0; i < 4; i++) {
+                Assert.assertEquals(round + String.format(FORMAT, i), ring.poll((no, code, format) -> no + String.format(format, code)));
+            }
+            Assert.assertNull(ring.poll((no, code, format) -> code));
+            Assert.assertTrue(ring.isEmpty());
+            Assert.assertTrue(ring.snapshot().isEmpty());
+        }
+    }
+
+    @Test
+    public void testDrain() {
+        HotCodeRing ring = new HotCodeRing(8);
+        Assert.assertEquals(0, ring.drain((no, code, format) -> Assert.fail(), 4));
+        for (long i = 0; i < 6; i++) {
+            Assert.assertTrue(ring.offer(1, i, FORMAT));
+        }
+
+        List<Long> drained = new ArrayList<>();
+        Assert.assertEquals(4, ring.drain((no, code, format) -> drained.add(code), 4));
+        Assert.assertEquals(Arrays.asList(0L, 1L, 2L, 3L), drained);
+        Assert.assertEquals(2, ring.size());
+
+        // wrap around and drain less than max
+        for (long i = 6; i < 12; i++) {
+            Assert.assertTrue(ring.offer(1, i, FORMAT));
+        }
+        drained.clear();
+        Assert.assertEquals(8, ring.drain((no, code, format) -> drained.add(code), 100));
+        Assert.assertEquals(Arrays.asList(4L, 5L, 6L, 7L, 8L, 9L, 10L, 11L), drained);
+        Assert.assertTrue(ring.isEmpty());
+
+        // the slots are released even if the consumer fails
+        for (long i = 0; i < 4; i++) {
+            Assert.assertTrue(ring.offer(1, i, FORMAT));
+        }
+        try {
+            ring.drain((no, code, format) -> {
+                throw new IllegalStateException();
+            }, 4);
+            Assert.fail();
+        } catch (IllegalStateException ignored) {
+        }
+        Assert.assertTrue(ring.isEmpty());
+        for (long i = 0; i < 8; i++) {
+            Assert.assertTrue(ring.offer(1, i, FORMAT));
+        }
+    }
+
+    @Test
+    public void testConcurrentOfferAndPoll() throws Exception {
+        final int producers = 4;
+        final int consumers = 4;
+        final int perProducer = 50000;
+        final int total = producers * perProducer;
+        HotCodeRing ring = new HotCodeRing(64);
+        ExecutorService executor = Executors.newFixedThreadPool(producers + consumers);
+        try {
+            List<Future<?>> producerFutures = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                final long no = p;
+                producerFutures.add(executor.submit(() -> {
+                    for (long code = 0; code < perProducer; ) {
+                        if (ring.offer(no, code, FORMAT)) {
+                            code++;
+                        } else {
+                            Thread.yield();
+                        }
+                    }
+                }));
+            }
+
+            ConcurrentLinkedQueue<Long> polled = new ConcurrentLinkedQueue<>();
+            CountDownLatch remaining = new CountDownLatch(total);
+            List<Future<?>> consumerFutures = new ArrayList<>();
+            for (int c = 0; c < consumers; c++) {
+                consumerFutures.add(executor.submit(() -> {
+                    while (remaining.getCount() > 0) {
+                        Long key = ring.poll((no, code, format) -> no * perProducer + code);
+                        if (key == null) {
+                            Thread.yield();
+                            continue;
+                        }
+                        polled.add(key);
+                        remaining.countDown();
+                    }
+                }));
+            }
+
+            Assert.assertTrue(remaining.await(60, TimeUnit.SECONDS));
+            for (Future<?> future : producerFutures) {
+                future.get();
+            }
+            for (Future<?> future : consumerFutures) {
+                future.get();
+            }
+
+            // no loss and no duplication
+            Set<Long> keys = new HashSet<>(polled);
+            Assert.assertEquals(total, polled.size());
+            Assert.assertEquals(total, keys.size());
+            Assert.assertTrue(ring.isEmpty());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
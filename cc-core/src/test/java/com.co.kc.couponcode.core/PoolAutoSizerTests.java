@@ -0,0 +1,69 @@
+package com.co.kc.couponcode.core;
+
+import com.co.kc.couponcode.core.persistence.ICodeGen;
+import com.co.kc.couponcode.core.persistence.TestCodeGen;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+public class PoolAutoSizerTests {
+
+    private static CouponCodePool newPool() {
+        ICodeGen codeGen = new TestCodeGen();
+        codeGen.init();
+        CouponCodePool pool = new CouponCodePool(codeGen, 10, 100);
+        pool.setColdX0(codeGen.getX0());
+        pool.setColdXn(codeGen.getXn());
+        pool.setColdFactor(codeGen.getFactor());
+        return pool;
+    }
+
+    @Test
+    public void testResizeByRate() {
+        CouponCodePool pool = newPool();
+        Thread.currentThread().interrupt();
+        pool.fillColdPool();
+        Thread.currentThread().interrupt();
+        pool.fillHotPool();
+        Assert.assertTrue(pool.getRefillNanos() > 0);
+        Assert.assertTrue(pool.getFlushNanos() > 0);
+
+        PoolAutoSizer sizer = new PoolAutoSizer(Collections.singletonList(pool), 10, 1024, 100, 100_000, 1000L);
+
+        // the hot pool can not cover a refill at such a rate
+        sizer.resize(pool, 1e12);
+        Assert.assertEquals(1024, pool.getMaxHotPoolSize());
+        Assert.assertEquals(10240, pool.getMaxColdPoolSize());
+
+        // idle, shrink by half per period
+        sizer.resize(pool, 0);
+        Assert.assertEquals(512, pool.getMaxHotPoolSize());
+        Assert.assertEquals(5120, pool.getMaxColdPoolSize());
+        for (int i = 0; i < 10; i++) {
+            sizer.resize(pool, 0);
+        }
+        Assert.assertEquals(10, pool.getMaxHotPoolSize());
+        Assert.assertEquals(100, pool.getMaxColdPoolSize());
+    }
+
+    @Test
+    public void testTickWithoutLatencySamples() throws InterruptedException {
+        CouponCodePool pool = newPool();
+        pool.setMaxHotPoolSize(100);
+        pool.setMaxColdPoolSize(1000);
+        PoolAutoSizer sizer = new PoolAutoSizer(Collections.singletonList(pool));
+
+        // the first tick only records the baseline
+        long now = System.nanoTime();
+        sizer.tick(now);
+        Assert.assertEquals(100, pool.getMaxHotPoolSize());
+        Assert.assertEquals(1000, pool.getMaxColdPoolSize());
+
+        // nothing is issued, shrink towards the lower bounds
+        sizer.tick(now + TimeUnit.SECONDS.toNanos(1));
+        Assert.assertEquals(50, pool.getMaxHotPoolSize());
+        Assert.assertEquals(500, pool.getMaxColdPoolSize());
+    }
+}
@@ -0,0 +1,135 @@
+package com.co.kc.couponcode.core;
+
+import com.co.kc.couponcode.common.exception.BusinessException;
+import com.co.kc.couponcode.core.persistence.ICodeGen;
+import com.co.kc.couponcode.core.persistence.TestCodeGen;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+public class StripedCouponCodePoolTests {
+
+    private static StripedCouponCodePool newPool(int shardCount) {
+        StripedCouponCodePool pool = new StripedCouponCodePool(TestCodeGen::new, shardCount, 10, 100);
+        for (CouponCodePool shard : pool.getShards()) {
+            ICodeGen codeGen = shard.getCodeGen();
+            codeGen.init();
+            shard.setColdX0(codeGen.getX0());
+            shard.setColdXn(codeGen.getXn());
+            shard.setColdFactor(codeGen.getFactor());
+        }
+        return pool;
+    }
+
+    private static void fill(StripedCouponCodePool pool) {
+        for (CouponCodePool shard : pool.getShards()) {
+            Thread.currentThread().interrupt();
+            shard.fillColdPool();
+            Thread.currentThread().interrupt();
+            shard.fillHotPool();
+        }
+    }
+
+    @Test
+    public void testNextWithStealing() throws InterruptedException {
+        StripedCouponCodePool pool = newPool(4);
+        fill(pool);
+        Assert.assertEquals(40, pool.getHotPoolSize());
+        Assert.assertEquals(360, pool.getColdPoolSize());
+
+        // not running
+        try {
+            pool.next();
+            Assert.fail();
+        } catch (BusinessException ignored) {
+        }
+        for (CouponCodePool shard : pool.getShards()) {
+            shard.setStatus(CouponCodePool.PoolStatus.RUNNING);
+        }
+
+        // the home shard runs empty after 10 codes, the others are stolen
+        Set<String> codes = new HashSet<>();
+        for (int i = 0; i < 40; i++) {
+            codes.add(pool.next());
+        }
+        Assert.assertEquals(40, codes.size());
+        Assert.assertEquals(0, pool.getHotPoolSize());
+
+        // all shards are empty
+        try {
+            pool.next();
+            Assert.fail();
+        } catch (BusinessException ignored) {
+        }
+
+        // the async caller gets a failed future if the home shard is paused
+        for (CouponCodePool shard : pool.getShards()) {
+            shard.setStatus(CouponCodePool.PoolStatus.PAUSED);
+        }
+        Assert.assertTrue(pool.nextAsync(1, TimeUnit.SECONDS).isCompletedExceptionally());
+    }
+
+    @Test
+    public void testNextBatchWithStealing() throws InterruptedException {
+        StripedCouponCodePool pool = newPool(4);
+        fill(pool);
+        for (CouponCodePool shard : pool.getShards()) {
+            shard.setStatus(CouponCodePool.PoolStatus.RUNNING);
+        }
+
+        // a paused sibling is skipped, the codes already stolen from the others are kept
+        List<CouponCodePool> shards = pool.getShards();
+        CouponCodePool sibling = shards.get((int) ((Thread.currentThread().getId() + 1) % shards.size()));
+        sibling.setStatus(CouponCodePool.PoolStatus.PAUSED);
+        Set<String> codes = new HashSet<>(pool.next(25));
+        Assert.assertEquals(25, codes.size());
+        Assert.assertEquals(10, sibling.getHotPoolSize());
+        Assert.assertEquals(5, pool.drainTo(codes::add, 100));
+        Assert.assertNull(pool.tryNext());
+        sibling.setStatus(CouponCodePool.PoolStatus.RUNNING);
+        Assert.assertEquals(10, pool.drainTo(codes::add, 100));
+        Assert.assertEquals(40, codes.size());
+        Assert.assertEquals(0, pool.getHotPoolSize());
+        try {
+            pool.next(10, 10, TimeUnit.MILLISECONDS);
+            Assert.fail();
+        } catch (BusinessException ignored) {
+        }
+    }
+
+    @Test
+    public void testConcurrentNext() throws Exception {
+        final int threads = 8;
+        StripedCouponCodePool pool = newPool(4);
+        pool.setMaxHotPoolSize(100);
+        pool.setMaxColdPoolSize(1000);
+        fill(pool);
+        for (CouponCodePool shard : pool.getShards()) {
+            shard.setStatus(CouponCodePool.PoolStatus.RUNNING);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    List<String> list = new ArrayList<>();
+                    for (int i = 0; i < 50; i++) {
+                        list.add(pool.next());
+                    }
+                    return list;
+                }));
+            }
+            Set<String> codes = new HashSet<>();
+            for (Future<List<String>> future : futures) {
+                codes.addAll(future.get());
+            }
+            Assert.assertEquals(400, codes.size());
+            Assert.assertEquals(0, pool.getHotPoolSize());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
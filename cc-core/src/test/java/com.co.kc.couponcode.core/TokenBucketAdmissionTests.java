@@ -0,0 +1,64 @@
+package com.co.kc.couponcode.core;
+
+import com.co.kc.couponcode.common.exception.RateLimitException;
+import com.co.kc.couponcode.core.persistence.ICodeGen;
+import com.co.kc.couponcode.core.persistence.TestCodeGen;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class TokenBucketAdmissionTests {
+
+    @Test
+    public void testTryAcquire() {
+        // 100 codes per second, burst of 10
+        TokenBucketAdmission admission = new TokenBucketAdmission(() -> 100.0, () -> 10, 1.0);
+        long now = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(0L, admission.tryAcquire(1, now));
+        }
+        long waitNanos = admission.tryAcquire(1, now);
+        Assert.assertTrue(waitNanos > 0 && waitNanos <= TimeUnit.MILLISECONDS.toNanos(10));
+        Assert.assertEquals(0L, admission.tryAcquire(1, now + waitNanos));
+
+        // larger than the bucket: only admitted when the bucket is full
+        Assert.assertTrue(admission.tryAcquire(50, now + waitNanos) > 0);
+        Assert.assertEquals(0L, admission.tryAcquire(50, now + TimeUnit.SECONDS.toNanos(1)));
+        Assert.assertTrue(admission.tryAcquire(1, now + TimeUnit.SECONDS.toNanos(1)) > 0);
+    }
+
+    @Test
+    public void testAcquireRejectsWithoutStackTrace() {
+        TokenBucketAdmission admission = new TokenBucketAdmission(() -> 0.0, () -> 1, 1.0);
+        Assert.assertEquals(1.0, admission.getRate(), 0.0);
+        admission.acquire(1);
+        try {
+            admission.acquire(1);
+            Assert.fail();
+        } catch (RateLimitException e) {
+            Assert.assertEquals(0, e.getStackTrace().length);
+            Assert.assertTrue(e.getRetryAfterMillis() > 0 && e.getRetryAfterMillis() <= 1000L);
+        }
+    }
+
+    @Test
+    public void testRateFromRefillThroughput() {
+        ICodeGen codeGen = new TestCodeGen();
+        codeGen.init();
+        CouponCodePool pool = new CouponCodePool(codeGen, 100, 1000);
+        pool.setColdX0(codeGen.getX0());
+        pool.setColdXn(codeGen.getXn());
+        pool.setColdFactor(codeGen.getFactor());
+        TokenBucketAdmission admission = TokenBucketAdmission.of(pool);
+        Assert.assertEquals(TokenBucketAdmission.DEFAULT_MIN_RATE, admission.getRate(), 0.0);
+
+        Thread.currentThread().interrupt();
+        pool.fillColdPool();
+        Thread.currentThread().interrupt();
+        pool.fillHotPool();
+        Assert.assertEquals(100, pool.getHotPoolSize());
+        Assert.assertTrue(pool.getRefillThroughput() > 0);
+        Assert.assertEquals(Math.max(TokenBucketAdmission.DEFAULT_MIN_RATE, pool.getRefillThroughput()), admission.getRate(), 0.0);
+    }
+}
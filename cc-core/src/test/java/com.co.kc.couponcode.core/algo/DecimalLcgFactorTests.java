@@ -0,0 +1,59 @@
+package com.co.kc.couponcode.core.algo;
+
+import com.co.kc.couponcode.core.model.IFactor;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.BitSet;
+
+public class DecimalLcgFactorTests {
+
+    /**
+     * 测试DecimalLcgFactor参数有效性
+     */
+    @Test
+    public void testDecimalLcgFactorValidity() {
+        for (DecimalLcgFactor factor : DecimalLcgFactor.values()) {
+            Assert.assertTrue(factor.name(), Lcg.isFullPeriod(factor));
+            Assert.assertEquals(factor.name(), LcgEngine.BarrettEngine.class, factor.getEngine().getClass());
+            // 券码位数与m完全一致
+            Assert.assertEquals(factor.name(), String.valueOf(factor.getM() - 1), String.format(factor.getFormat(), factor.getM() - 1));
+            Assert.assertEquals(factor.name(), String.valueOf(factor.getM()).length() - 1, String.format(factor.getFormat(), 0).length());
+        }
+        for (LcgFactor factor : LcgFactor.values()) {
+            Assert.assertTrue(factor.name(), Lcg.isFullPeriod(factor));
+        }
+    }
+
+    /**
+     * 测试赫尔-多贝尔定理判断
+     */
+    @Test
+    public void testIsFullPeriod() {
+        // m和c不互质
+        Assert.assertFalse(Lcg.isFullPeriod(21L, 5L, 100L));
+        // a-1不能被质因子5整除
+        Assert.assertFalse(Lcg.isFullPeriod(17L, 3L, 100L));
+        // a-1不能被4整除
+        Assert.assertFalse(Lcg.isFullPeriod(11L, 3L, 100L));
+        Assert.assertTrue(Lcg.isFullPeriod(21L, 3L, 100L));
+        // m含大质因子
+        Assert.assertTrue(Lcg.isFullPeriod(1L, 3L, 2000000014L));
+        Assert.assertFalse(Lcg.isFullPeriod(1000000008L, 3L, 2000000014L));
+    }
+
+    /**
+     * 测试DecimalLcgFactor.PERIOD_100000000可以生成全周期code
+     */
+    @Test
+    public void testLcgInPeriod100000000NotRepeated() {
+        int cnt = 0;
+        BitSet bitSet = new BitSet();
+        IFactor factor = DecimalLcgFactor.PERIOD_100000000;
+        for (int next = 1; !bitSet.get(next); next = (int) Lcg.next(factor, next)) {
+            cnt++;
+            bitSet.set(next);
+        }
+        Assert.assertEquals(100000000, cnt);
+    }
+}
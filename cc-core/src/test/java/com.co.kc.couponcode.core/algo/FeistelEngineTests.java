@@ -0,0 +1,83 @@
+package com.co.kc.couponcode.core.algo;
+
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.BitSet;
+
+public class FeistelEngineTests {
+
+    /**
+     * 测试P为[0, m)上的置换，且可逆
+     */
+    @Test
+    public void testPermutation() {
+        long[] moduli = {2L, 3L, 1000L, 1023L, 1024L, 1025L, 100000L, 1L << 17};
+        for (long m : moduli) {
+            FeistelEngine engine = new FeistelEngine(RandomUtils.nextLong(), RandomUtils.nextLong(), m, FeistelEngine.DEFAULT_ROUNDS);
+            BitSet seen = new BitSet((int) m);
+            for (long index = 0; index < m; index++) {
+                long code = engine.encode(index);
+                Assert.assertTrue(code >= 0 && code < m);
+                Assert.assertFalse(seen.get((int) code));
+                seen.set((int) code);
+                Assert.assertEquals(index, engine.decode(code));
+            }
+        }
+
+        long m = FeistelEngine.MAX_MODULO;
+        FeistelEngine engine = new FeistelEngine(RandomUtils.nextLong(), 0L, m, FeistelEngine.DEFAULT_ROUNDS);
+        for (int i = 0; i < 10000; i++) {
+            long index = RandomUtils.nextLong(0, m);
+            Assert.assertEquals(index, engine.decode(engine.encode(index)));
+        }
+    }
+
+    /**
+     * 测试以券码为状态迭代时满周期，且批量生成、跳跃计算与逐步迭代一致
+     */
+    @Test
+    public void testSequence() {
+        long m = 1000000L;
+        FeistelFactor factor = new FeistelFactor(RandomUtils.nextLong(), m, "%06d");
+        FeistelEngine engine = factor.getEngine();
+        long x0 = RandomUtils.nextLong(0, m);
+        long[] out = new long[(int) m];
+        Assert.assertEquals(m - 1, Lcg.fill(factor, x0, x0, out));
+        Assert.assertEquals(x0, Lcg.next(factor, out[(int) m - 2]));
+
+        long xn = x0;
+        for (int steps = 1; steps < 2000; steps++) {
+            xn = engine.next(xn);
+            Assert.assertEquals(out[steps - 1], xn);
+            Assert.assertEquals(xn, engine.jump(x0, steps));
+        }
+        Assert.assertEquals(x0, engine.jump(x0, m));
+        Assert.assertEquals((engine.decode(x0) + 12345L) % m, engine.decode(engine.jump(x0, 12345L)));
+        Assert.assertEquals(12345L, engine.distance(x0, engine.jump(x0, 12345L)));
+        Assert.assertEquals(m - 1, engine.distance(x0, out[(int) m - 2]));
+    }
+
+    /**
+     * 测试不同生成器编号派生不同的置换，且a、c保持不变以便匹配生成器
+     */
+    @Test
+    public void testWithNo() {
+        FeistelFactor factor = new FeistelFactor(42L, 1L << 33, "%010d");
+        FeistelFactor first = factor.withNo(1L);
+        FeistelFactor second = factor.withNo(2L);
+        Assert.assertSame(first, first.withNo(1L));
+        Assert.assertEquals(factor.getA(), first.getA());
+        Assert.assertEquals(0L, first.getC());
+        Assert.assertEquals(factor.getM(), second.getM());
+        int same = 0;
+        for (long index = 0; index < 1000; index++) {
+            Assert.assertEquals(first.getEngine().encode(index), factor.withNo(1L).getEngine().encode(index));
+            if (first.getEngine().encode(index) == second.getEngine().encode(index)) {
+                same++;
+            }
+        }
+        Assert.assertTrue(same < 10);
+    }
+}
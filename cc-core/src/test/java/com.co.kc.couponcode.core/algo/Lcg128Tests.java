@@ -0,0 +1,150 @@
+package com.co.kc.couponcode.core.algo;
+
+import com.co.kc.couponcode.core.CouponCodePool;
+import com.co.kc.couponcode.core.model.IWideCode;
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+public class Lcg128Tests {
+
+    private static final BigInteger MASK_64 = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+
+    /**
+     * 测试Lcg128Factor参数满足赫尔-多贝尔定理：c为奇数，a ≡ 5（mod 8）
+     */
+    @Test
+    public void testLcg128FactorValidity() {
+        for (Lcg128Factor factor : Lcg128Factor.values()) {
+            Assert.assertEquals(1L, factor.getCLow() & 1);
+            Assert.assertEquals(5L, factor.getALow() & 7);
+            Assert.assertEquals(factor.getWidth(),
+                    BigInteger.ONE.shiftLeft(factor.getBits()).subtract(BigInteger.ONE).toString().length());
+        }
+    }
+
+    /**
+     * 测试128位运算与BigInteger运算一致
+     */
+    @Test
+    public void testNextMatchesBigInteger() {
+        for (Lcg128Factor factor : Lcg128Factor.values()) {
+            BigInteger a = toBigInteger(factor.getAHigh(), factor.getALow());
+            BigInteger c = toBigInteger(factor.getCHigh(), factor.getCLow());
+            BigInteger m = BigInteger.ONE.shiftLeft(factor.getBits());
+            BigInteger expected = toBigInteger(RandomUtils.nextLong(), RandomUtils.nextLong()).mod(m);
+            long[] xn = {expected.shiftRight(64).longValue(), expected.longValue()};
+            for (int i = 0; i < 10000; i++) {
+                expected = a.multiply(expected).add(c).mod(m);
+                Lcg128.next(factor, xn);
+                Assert.assertEquals(expected, toBigInteger(xn[0], xn[1]));
+            }
+        }
+    }
+
+    /**
+     * 测试批量生成与逐步迭代结果一致，并在回到x0时提前停止
+     */
+    @Test
+    public void testFill() {
+        for (Lcg128Factor factor : Lcg128Factor.values()) {
+            long[] x0 = {RandomUtils.nextLong() & factor.getWideEngine().getHighMask(), RandomUtils.nextLong()};
+            long[] out = new long[2000];
+            Assert.assertEquals(1000, Lcg128.fill(factor, x0, new long[]{-1L, -1L}, out));
+
+            long[] xn = x0.clone();
+            for (int i = 0; i < 1000; i++) {
+                Lcg128.next(factor, xn);
+                Assert.assertEquals(xn[0], out[2 * i]);
+                Assert.assertEquals(xn[1], out[2 * i + 1]);
+            }
+
+            long[] end = {out[998], out[999]};
+            Assert.assertEquals(499, Lcg128.fill(factor, x0, end, new long[2000]));
+        }
+    }
+
+    /**
+     * 测试跳跃计算与BigInteger倍增结果一致，生成器内相邻位置为相邻状态
+     */
+    @Test
+    public void testLocate() {
+        for (Lcg128Factor factor : Lcg128Factor.values()) {
+            BigInteger a = toBigInteger(factor.getAHigh(), factor.getALow());
+            BigInteger c = toBigInteger(factor.getCHigh(), factor.getCLow());
+            BigInteger m = BigInteger.ONE.shiftLeft(factor.getBits());
+            long no = RandomUtils.nextLong(0, Long.MAX_VALUE);
+            long position = RandomUtils.nextLong(0, factor.getM() - 1000);
+            BigInteger steps = BigInteger.valueOf(no).shiftLeft(Lcg128.POSITION_BITS).add(BigInteger.valueOf(position));
+
+            // X(steps) = A*X(0) + C，X(0) = 0
+            BigInteger jumpA = a;
+            BigInteger jumpC = c;
+            BigInteger expected = BigInteger.ZERO;
+            for (int i = 0; i < steps.bitLength(); i++) {
+                if (steps.testBit(i)) {
+                    expected = jumpA.multiply(expected).add(jumpC).mod(m);
+                }
+                jumpC = jumpA.multiply(jumpC).add(jumpC).mod(m);
+                jumpA = jumpA.multiply(jumpA).mod(m);
+            }
+            long[] xn = Lcg128.locate(factor, no, position);
+            Assert.assertEquals(expected, toBigInteger(xn[0], xn[1]));
+
+            for (int i = 1; i < 1000; i++) {
+                Lcg128.next(factor, xn);
+                Assert.assertArrayEquals(xn, Lcg128.locate(factor, no, position + i));
+            }
+            IWideCode code = Lcg128.toWideCode(factor, new CouponCodePool.PoolCode(no, position + 999, factor.getFormat()));
+            Assert.assertEquals(xn[0], code.getCodeHigh());
+            Assert.assertEquals(xn[1], code.getCodeLow());
+            Assert.assertEquals(Lcg128.format(code), Lcg128.format(factor, no, position + 999));
+            Assert.assertEquals(factor.getEngine().next(position + 998), position + 999);
+        }
+    }
+
+    /**
+     * 测试128位十进制格式化
+     */
+    @Test
+    public void testFormat() {
+        for (int i = 0; i < 10000; i++) {
+            long hi = RandomUtils.nextLong() ^ (RandomUtils.nextBoolean() ? Long.MIN_VALUE : 0L);
+            long lo = RandomUtils.nextLong() ^ (RandomUtils.nextBoolean() ? Long.MIN_VALUE : 0L);
+            Assert.assertEquals(String.format("%039d", toBigInteger(hi, lo)), UnsignedMath.toString(hi, lo, 39));
+            Assert.assertEquals(toBigInteger(0, lo).toString(), UnsignedMath.toString(0, lo, 0));
+        }
+        Assert.assertEquals("00000000000000000000", UnsignedMath.toString(0, 0, 20));
+        Assert.assertEquals("18446744073709551615", UnsignedMath.toString(0, -1L, 20));
+        Assert.assertEquals("340282366920938463463374607431768211455", UnsignedMath.toString(-1L, -1L, 39));
+
+        IWideCode code = new IWideCode() {
+            @Override
+            public long getNo() {
+                return 12L;
+            }
+
+            @Override
+            public long getCodeHigh() {
+                return 1L;
+            }
+
+            @Override
+            public long getCodeLow() {
+                return 0L;
+            }
+
+            @Override
+            public int getWidth() {
+                return 25;
+            }
+        };
+        Assert.assertEquals("120000018446744073709551616", Lcg128.format(code));
+    }
+
+    private static BigInteger toBigInteger(long hi, long lo) {
+        return BigInteger.valueOf(hi).and(MASK_64).shiftLeft(64).or(BigInteger.valueOf(lo).and(MASK_64));
+    }
+}
@@ -0,0 +1,36 @@
+package com.co.kc.couponcode.core.algo;
+
+import com.co.kc.couponcode.core.model.IFactor;
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class LcgBatchTests {
+
+    /**
+     * 测试批量生成与逐步迭代结果一致，并在回到end时提前停止
+     */
+    @Test
+    public void testFill() {
+        IFactor[] factors = {LcgFactor.PERIOD_1073741824, LcgFactor.PERIOD_1152921504606846976, DecimalLcgFactor.PERIOD_10000000000};
+        for (IFactor factor : factors) {
+            long xn = RandomUtils.nextLong(0, factor.getM());
+            long[] expected = new long[1003];
+            Assert.assertEquals(expected.length, factor.getEngine().fill(xn, -1L, expected, 0, expected.length));
+
+            long[] out = new long[1010];
+            Assert.assertEquals(expected.length, LcgBatch.fill(factor, xn, -1L, out, 7, expected.length));
+            Assert.assertArrayEquals(expected, Arrays.copyOfRange(out, 7, 7 + expected.length));
+
+            // end落在每一轮的不同通道、以及末尾不足一轮的部分
+            for (int stop : new int[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 500, 999, 1000, 1001, 1002}) {
+                long[] partial = new long[expected.length];
+                Assert.assertEquals(stop, LcgBatch.fill(factor, xn, expected[stop], partial, 0, partial.length));
+                Assert.assertArrayEquals(Arrays.copyOf(expected, stop), Arrays.copyOf(partial, stop));
+                Assert.assertEquals(0L, partial[stop]);
+            }
+        }
+    }
+}
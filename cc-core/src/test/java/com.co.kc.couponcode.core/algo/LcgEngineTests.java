@@ -0,0 +1,196 @@
+package com.co.kc.couponcode.core.algo;
+
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+public class LcgEngineTests {
+
+    /**
+     * 测试LcgFactor均选用掩码运算引擎，且结果与BigInteger运算一致
+     */
+    @Test
+    public void testLcgFactorEngine() {
+        for (LcgFactor factor : LcgFactor.values()) {
+            Assert.assertEquals(LcgEngine.PowerOfTwoEngine.class, factor.getEngine().getClass());
+            long xn = RandomUtils.nextLong(0, factor.getM());
+            for (int i = 0; i < 10000; i++) {
+                long expected = Lcg.next(factor.getA(), xn, factor.getC(), factor.getM());
+                xn = Lcg.next(factor, xn);
+                Assert.assertEquals(expected, xn);
+            }
+        }
+    }
+
+    /**
+     * 测试非2的幂模数时各运算引擎结果与BigInteger运算一致
+     */
+    @Test
+    public void testEngineMatchesBigInteger() {
+        long[] moduli = {3L, 5L, 1000000007L, 10000000000L, 999999999989L, (1L << 62) - 1, (1L << 62) + 1, Long.MAX_VALUE};
+        for (long m : moduli) {
+            for (int k = 0; k < 100; k++) {
+                long a = RandomUtils.nextLong(0, m);
+                long c = RandomUtils.nextLong(0, m);
+                LcgEngine engine = LcgEngine.of(a, c, m);
+                long xn = RandomUtils.nextLong(0, m);
+                for (int i = 0; i < 100; i++) {
+                    long expected = Lcg.next(a, xn, c, m);
+                    xn = engine.next(xn);
+                    Assert.assertEquals(expected, xn);
+                }
+            }
+        }
+    }
+
+    /**
+     * 测试超出[0, m)区间的Xn与BigInteger运算结果一致
+     */
+    @Test
+    public void testEngineIfXnOutOfRange() {
+        long m = 10000000000L;
+        long wideM = Long.MAX_VALUE - 2;
+        LcgEngine barrett = LcgEngine.of(m - 7, 3L, m);
+        LcgEngine wide = LcgEngine.of(wideM - 7, 3L, wideM);
+        Assert.assertEquals(LcgEngine.BarrettEngine.class, barrett.getClass());
+        Assert.assertEquals(LcgEngine.WideEngine.class, wide.getClass());
+        for (long xn : new long[]{-1L, m, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            Assert.assertEquals(Lcg.next(m - 7, xn, 3L, m), barrett.next(xn));
+            Assert.assertEquals(Lcg.next(wideM - 7, xn, 3L, wideM), wide.next(xn));
+        }
+    }
+
+    /**
+     * 测试批量生成与逐步迭代结果一致，并在回到x0时提前停止
+     */
+    @Test
+    public void testFill() {
+        long m = 999999999989L;
+        LcgEngine[] engines = {
+                LcgFactor.PERIOD_8589934592.getEngine(),
+                LcgEngine.of(7L, 3L, m),
+                LcgEngine.of(m - 7, 3L, m),
+        };
+        for (LcgEngine engine : engines) {
+            long xn = RandomUtils.nextLong(0, engine.getM());
+            long[] out = new long[1000];
+            Assert.assertEquals(out.length, engine.fill(xn, -1L, out, 0, out.length));
+            long x = xn;
+            for (long code : out) {
+                x = engine.next(x);
+                Assert.assertEquals(x, code);
+            }
+
+            // 第500个状态视为周期结束
+            long[] partial = new long[1000];
+            Assert.assertEquals(499, engine.fill(xn, out[499], partial, 0, partial.length));
+            Assert.assertEquals(out[498], partial[498]);
+            Assert.assertEquals(0L, partial[499]);
+
+            // 带偏移量
+            long[] offset = new long[20];
+            Assert.assertEquals(10, engine.fill(xn, -1L, offset, 10, 10));
+            Assert.assertEquals(out[0], offset[10]);
+            Assert.assertEquals(out[9], offset[19]);
+        }
+    }
+
+    /**
+     * 测试跳跃计算与逐步迭代结果一致
+     */
+    @Test
+    public void testJump() {
+        for (LcgFactor factor : LcgFactor.values()) {
+            long x0 = RandomUtils.nextLong(0, factor.getM());
+            long xn = x0;
+            for (int steps = 0; steps < 2000; steps++) {
+                Assert.assertEquals(xn, Lcg.jump(factor, x0, steps));
+                xn = Lcg.next(factor, xn);
+            }
+            // 满周期，跳跃m步回到x0
+            Assert.assertEquals(x0, Lcg.jump(factor, x0, factor.getM()));
+            // 跳跃可拆分
+            long steps = RandomUtils.nextLong(0, factor.getM());
+            Assert.assertEquals(Lcg.jump(factor, x0, factor.getM() - steps),
+                    Lcg.jump(factor, Lcg.jump(factor, x0, factor.getM() - steps - 1), 1));
+            Assert.assertEquals(x0, Lcg.jump(factor, Lcg.jump(factor, x0, steps), factor.getM() - steps));
+        }
+
+        long m = 999999999989L;
+        LcgEngine engine = LcgEngine.of(RandomUtils.nextLong(0, m), RandomUtils.nextLong(0, m), m);
+        long x0 = RandomUtils.nextLong(0, m);
+        long xn = x0;
+        for (int steps = 0; steps < 2000; steps++) {
+            Assert.assertEquals(xn, engine.jump(x0, steps));
+            xn = engine.next(xn);
+        }
+    }
+
+    /**
+     * 测试跳跃引擎等价于连续迭代steps次
+     */
+    @Test
+    public void testLeap() {
+        for (LcgFactor factor : LcgFactor.values()) {
+            long steps = RandomUtils.nextLong(0, factor.getM());
+            LcgEngine leap = factor.getEngine().leap(steps);
+            long x0 = RandomUtils.nextLong(0, factor.getM());
+            long xn = x0;
+            long total = 0;
+            for (int i = 1; i <= 100; i++) {
+                xn = leap.next(xn);
+                total = (total + steps) % factor.getM();
+                Assert.assertEquals(Lcg.jump(factor, x0, total), xn);
+            }
+        }
+    }
+
+    /**
+     * 测试由x0与xn反推步数
+     */
+    @Test
+    public void testDistance() {
+        for (LcgFactor factor : LcgFactor.values()) {
+            long x0 = RandomUtils.nextLong(0, factor.getM());
+            for (int i = 0; i < 100; i++) {
+                long steps = RandomUtils.nextLong(0, factor.getM());
+                Assert.assertEquals(steps, factor.getEngine().distance(x0, Lcg.jump(factor, x0, steps)));
+            }
+            Assert.assertEquals(0L, factor.getEngine().distance(x0, x0));
+        }
+        Assert.assertEquals(-1L, DecimalLcgFactor.PERIOD_100000000.getEngine().distance(0L, 1L));
+        // 非满周期参数a ≡ 3 (mod 4)，部分状态无法到达
+        LcgEngine engine = LcgEngine.of(3L, 1L, 1L << 20);
+        boolean[] reached = new boolean[1 << 20];
+        for (long xn = 0; !reached[(int) xn]; xn = engine.next(xn)) {
+            reached[(int) xn] = true;
+        }
+        int unreachable = 0;
+        while (reached[unreachable]) {
+            unreachable++;
+        }
+        Assert.assertEquals(-1L, engine.distance(0L, unreachable));
+    }
+
+    /**
+     * 测试128位取模运算
+     */
+    @Test
+    public void testUnsignedMath() {
+        BigInteger two64 = BigInteger.ONE.shiftLeft(64);
+        for (int i = 0; i < 100000; i++) {
+            long x = RandomUtils.nextLong(0, Long.MAX_VALUE);
+            long y = RandomUtils.nextLong(0, Long.MAX_VALUE);
+            long m = RandomUtils.nextLong(1, Long.MAX_VALUE);
+            BigInteger product = BigInteger.valueOf(x).multiply(BigInteger.valueOf(y));
+            Assert.assertEquals(product.shiftRight(64).longValue(), UnsignedMath.multiplyHigh(x, y));
+
+            long hi = RandomUtils.nextLong(0, m);
+            long lo = x ^ (y << 1);
+            BigInteger dividend = BigInteger.valueOf(hi).multiply(two64).add(BigInteger.valueOf(lo).and(two64.subtract(BigInteger.ONE)));
+            Assert.assertEquals(dividend.mod(BigInteger.valueOf(m)).longValue(), UnsignedMath.remainder(hi, lo, m));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.co.kc.couponcode.core.algo;
+
+import com.co.kc.couponcode.core.model.IFactor;
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class LcgLeapfrogTests {
+
+    private static final int PARALLELISM = 4;
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(PARALLELISM - 1);
+
+    @AfterClass
+    public static void shutdown() {
+        EXECUTOR.shutdownNow();
+    }
+
+    /**
+     * 测试多线程交错生成与逐步迭代结果一致，并在回到end时提前停止
+     */
+    @Test
+    public void testFill() throws InterruptedException {
+        IFactor[] factors = {LcgFactor.PERIOD_1073741824, LcgFactor.PERIOD_1152921504606846976, DecimalLcgFactor.PERIOD_10000000000};
+        for (IFactor factor : factors) {
+            long xn = RandomUtils.nextLong(0, factor.getM());
+            long[] expected = new long[100_003];
+            Assert.assertEquals(expected.length, factor.getEngine().fill(xn, -1L, expected, 0, expected.length));
+
+            long[] out = new long[expected.length + 7];
+            Assert.assertEquals(expected.length, LcgLeapfrog.fill(factor, xn, -1L, out, 7, expected.length, EXECUTOR, PARALLELISM));
+            Assert.assertArrayEquals(expected, Arrays.copyOfRange(out, 7, 7 + expected.length));
+
+            // end落在不同的子序列上
+            for (int stop : new int[]{0, 1, 2, 3, 4, 5, 4096, 50_001, 99_998, 100_002}) {
+                long[] partial = new long[expected.length];
+                Assert.assertEquals(stop, LcgLeapfrog.fill(factor, xn, expected[stop], partial, 0, partial.length, EXECUTOR, PARALLELISM));
+                Assert.assertArrayEquals(Arrays.copyOf(expected, stop), Arrays.copyOf(partial, stop));
+            }
+        }
+    }
+
+    /**
+     * 测试多线程查找周期结束位置
+     */
+    @Test
+    public void testIndexOf() throws InterruptedException {
+        IFactor[] factors = {LcgFactor.PERIOD_1073741824, DecimalLcgFactor.PERIOD_10000000000};
+        for (IFactor factor : factors) {
+            long xn = RandomUtils.nextLong(0, factor.getM());
+            long[] expected = new long[100_000];
+            factor.getEngine().fill(xn, -1L, expected, 0, expected.length);
+
+            for (int index : new int[]{0, 1, 3, 4, 77_777, 99_999}) {
+                Assert.assertEquals(index, LcgLeapfrog.indexOf(factor, xn, expected[index], expected.length, EXECUTOR, PARALLELISM));
+                Assert.assertEquals(index, LcgLeapfrog.indexOf(factor, xn, expected[index], expected.length, EXECUTOR, 1));
+            }
+            Assert.assertEquals(-1L, LcgLeapfrog.indexOf(factor, xn, expected[99_999], 99_999, EXECUTOR, PARALLELISM));
+        }
+    }
+}
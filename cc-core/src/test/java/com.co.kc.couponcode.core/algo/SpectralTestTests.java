@@ -0,0 +1,68 @@
+package com.co.kc.couponcode.core.algo;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+public class SpectralTestTests {
+
+    /**
+     * 测试谱检验结果与暴力枚举对偶格最短向量一致
+     */
+    @Test
+    public void testNuSquaredMatchesBruteForce() {
+        long m = 1L << 12;
+        for (long a = 5; a < m; a += 8 * 37) {
+            BigInteger[] nuSquared = SpectralTest.nuSquared(a, m, 4);
+            for (int t = 2; t <= 4; t++) {
+                Assert.assertEquals("a=" + a + ", t=" + t, bruteForce(a, m, t), nuSquared[t - 2].longValue());
+            }
+        }
+    }
+
+    /**
+     * 测试LcgFactor在2~6维均有较好的得分
+     */
+    @Test
+    public void testLcgFactorScore() {
+        for (LcgFactor factor : new LcgFactor[]{LcgFactor.PERIOD_1073741824, LcgFactor.PERIOD_8589934592}) {
+            double score = SpectralTest.score(factor.getA(), factor.getM(), 6);
+            Assert.assertTrue(factor.name() + " score=" + score, score > 0.5 && score <= 1);
+        }
+        // a = 5的格结构很差
+        Assert.assertTrue(SpectralTest.score(5L, 1L << 33, 6) < 0.01);
+    }
+
+    /**
+     * 枚举满足Σu_i*a^(i-1) ≡ 0 (mod m)的最短非零向量
+     */
+    private static long bruteForce(long a, long m, int t) {
+        int bound = (int) Math.ceil(Math.pow(m, 1.0 / t) * 1.5);
+        long[] powers = new long[t];
+        powers[0] = 1;
+        for (int i = 1; i < t; i++) {
+            powers[i] = powers[i - 1] * a % m;
+        }
+        return bruteForce(powers, m, t, 0, new long[t], bound, Long.MAX_VALUE);
+    }
+
+    private static long bruteForce(long[] powers, long m, int t, int index, long[] u, int bound, long best) {
+        if (index == t) {
+            long sum = 0;
+            long length = 0;
+            boolean zero = true;
+            for (int i = 0; i < t; i++) {
+                sum += u[i] * powers[i];
+                length += u[i] * u[i];
+                zero &= u[i] == 0;
+            }
+            return !zero && Math.floorMod(sum, m) == 0 ? Math.min(best, length) : best;
+        }
+        for (int x = -bound; x <= bound; x++) {
+            u[index] = x;
+            best = bruteForce(powers, m, t, index + 1, u, bound, best);
+        }
+        return best;
+    }
+}
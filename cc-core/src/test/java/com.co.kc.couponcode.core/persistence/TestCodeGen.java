@@ -23,9 +23,32 @@ public class TestCodeGen implements ICodeGen {
     @Getter
     private final Map<Long, CodeStatus> runningMap = new ConcurrentHashMap<>();
 
-    private final AtomicLong repositoryNo = new AtomicLong(1);
+    private final AtomicLong repositoryNo;
+    private final IFactor factor;
     @Getter
     private final ConcurrentHashMap<Long, CodeStatus> repository = new ConcurrentHashMap<>();
+    @Getter
+    private final AtomicReference<CodeStatus> standby = new AtomicReference<>();
+
+    public TestCodeGen() {
+        this(1L);
+    }
+
+    /**
+     * @param startNo 起始编号，多个实例同时使用时编号不重复
+     */
+    public TestCodeGen(long startNo) {
+        this(startNo, LcgFactor.PERIOD_2147483648);
+    }
+
+    /**
+     * @param startNo 起始编号，多个实例同时使用时编号不重复
+     * @param factor  算法Factor
+     */
+    public TestCodeGen(long startNo, IFactor factor) {
+        this.repositoryNo = new AtomicLong(startNo);
+        this.factor = factor;
+    }
 
     @Override
     public boolean init() {
@@ -43,6 +66,24 @@ public class TestCodeGen implements ICodeGen {
 
     @Override
     public boolean select() {
+        CodeStatus selectCodeStatus = standby.getAndSet(null);
+        if (selectCodeStatus == null) {
+            selectCodeStatus = claim();
+        }
+        runningNo.set(selectCodeStatus.getNo());
+        runningMap.put(selectCodeStatus.getNo(), selectCodeStatus);
+        return true;
+    }
+
+    @Override
+    public boolean prepare() {
+        if (standby.get() == null) {
+            standby.compareAndSet(null, claim());
+        }
+        return true;
+    }
+
+    private CodeStatus claim() {
         CodeStatus selectCodeStatus = null;
         for (Map.Entry<Long, CodeStatus> entry : repository.entrySet()) {
             CodeStatus codeStatus = entry.getValue();
@@ -66,9 +107,7 @@ public class TestCodeGen implements ICodeGen {
             selectCodeStatus.setHeartbeatAt(LocalDateTime.now());
             repository.put(no, selectCodeStatus);
         }
-        runningNo.set(selectCodeStatus.getNo());
-        runningMap.put(selectCodeStatus.getNo(), selectCodeStatus);
-        return true;
+        return selectCodeStatus;
     }
 
     @Override
@@ -85,7 +124,7 @@ public class TestCodeGen implements ICodeGen {
 
     @Override
     public IFactor getFactor() {
-        return LcgFactor.PERIOD_2147483648;
+        return factor;
     }
 
     @Override
@@ -125,6 +164,16 @@ public class TestCodeGen implements ICodeGen {
         return new CouponCodePool.PoolCode(no, xn, getFactor().getFormat());
     }
 
+    @Override
+    public long getCnt() {
+        if (this.runningNo.get() == -1 || this.runningMap.isEmpty()) {
+            return -1L;
+        }
+        CodeStatus runningGenerator = runningMap.get(this.runningNo.get());
+        Long cnt = runningGenerator.getCnt();
+        return cnt == null ? -1L : cnt;
+    }
+
     @Override
     public boolean flush(Long no, ICode xn, Long delta) {
         if (!runningMap.containsKey(no)) {
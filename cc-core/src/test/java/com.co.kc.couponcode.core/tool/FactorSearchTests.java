@@ -0,0 +1,30 @@
+package com.co.kc.couponcode.core.tool;
+
+import com.co.kc.couponcode.core.algo.Lcg;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class FactorSearchTests {
+
+    /**
+     * 测试搜索结果满周期且按得分降序
+     */
+    @Test
+    public void testSearch() {
+        long m = 10000000000L;
+        List<FactorSearch.FactorCandidate> candidates = FactorSearch.search(m, "%010d", 5, 2000, 5);
+        Assert.assertEquals(5, candidates.size());
+        double score = Double.MAX_VALUE;
+        for (FactorSearch.FactorCandidate candidate : candidates) {
+            Assert.assertTrue(Lcg.isFullPeriod(candidate));
+            Assert.assertEquals(1, (candidate.getA() - 1) / 20 % 2);
+            Assert.assertTrue(candidate.getScore() <= score);
+            score = candidate.getScore();
+        }
+        FactorSearch.FactorCandidate best = candidates.get(0);
+        Assert.assertEquals(String.format("PERIOD_10000000000(%dL, %dL, 10000000000L, \"%%010d\"),", best.getA(), best.getC()),
+                best.toDefinition());
+    }
+}
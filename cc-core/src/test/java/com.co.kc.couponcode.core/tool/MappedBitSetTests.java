@@ -0,0 +1,77 @@
+package com.co.kc.couponcode.core.tool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class MappedBitSetTests {
+
+    /**
+     * 测试多个线程并发置位同一批long不丢失置位
+     */
+    @Test
+    public void testConcurrentGetAndSet() throws IOException, InterruptedException, ExecutionException {
+        long size = 1L << 22;
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (MappedBitSet bitSet = new MappedBitSet(size, null)) {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int lane = t;
+                // 各线程交错置位，每个long中的位由所有线程共同写入
+                futures.add(executor.submit(() -> {
+                    long duplicates = 0;
+                    for (long i = lane; i < size; i += threads) {
+                        if (bitSet.getAndSet(i)) {
+                            duplicates++;
+                        }
+                    }
+                    return duplicates;
+                }));
+            }
+            for (Future<Long> future : futures) {
+                Assert.assertEquals(0L, (long) future.get());
+            }
+            Assert.assertEquals(size, bitSet.cardinality());
+            Assert.assertTrue(bitSet.get(size - 1));
+            Assert.assertTrue(bitSet.getAndSet(0L));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 测试关闭后删除位图文件
+     */
+    @Test
+    public void testCloseDeletesFile() throws IOException {
+        File dir = Files.createTempDirectory("bitset").toFile();
+        try {
+            try (MappedBitSet bitSet = new MappedBitSet(1L << 20, dir)) {
+                Assert.assertFalse(bitSet.getAndSet(12345L));
+                Assert.assertTrue(bitSet.get(12345L));
+                Assert.assertEquals(1, Objects.requireNonNull(dir.list()).length);
+            }
+            Assert.assertEquals(0, Objects.requireNonNull(dir.list()).length);
+        } finally {
+            Files.deleteIfExists(dir.toPath());
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetAndSetOutOfBounds() throws IOException {
+        try (MappedBitSet bitSet = new MappedBitSet(100, null)) {
+            bitSet.getAndSet(100);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.co.kc.couponcode.core.tool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+public class PeriodVerifierTests {
+
+    /**
+     * 测试满周期参数并行校验通过
+     */
+    @Test
+    public void testFullPeriod() throws IOException {
+        long m = 1L << 26;
+        FactorSearch.FactorCandidate factor = new FactorSearch.FactorCandidate(1664525L, 1013904223L % m, m, "%08d", 0);
+        PeriodVerifier.VerifyResult result = PeriodVerifier.verify(factor, 12345L, 4, null);
+        Assert.assertTrue(result.toString(), result.isFullPeriod());
+        Assert.assertEquals(m, result.getCardinality());
+        Assert.assertEquals(-1L, result.getDuplicatePosition());
+    }
+
+    /**
+     * 测试非满周期参数报告周期长度与重复位置，结果与逐步迭代一致
+     */
+    @Test
+    public void testNotFullPeriod() throws IOException {
+        long m = 1L << 20;
+        // a ≡ 3 (mod 4)，纯周期但周期小于m
+        FactorSearch.FactorCandidate shortCycle = new FactorSearch.FactorCandidate(3L, 1L, m, "%07d", 0);
+        PeriodVerifier.VerifyResult result = PeriodVerifier.verify(shortCycle, 7L, 4, null);
+        Assert.assertFalse(result.isFullPeriod());
+        long[] expected = firstRepeat(shortCycle, 7L);
+        Assert.assertEquals(expected[0], result.getPeriod());
+        // 首个重复即回到x0，并行时后置位的段可能是首次出现，结果仍为真实的首个重复
+        Assert.assertEquals(expected[1], result.getDuplicatePosition());
+        Assert.assertEquals(7L, result.getDuplicateState());
+
+        // a为偶数，序列有前导部分不会回到x0
+        FactorSearch.FactorCandidate tail = new FactorSearch.FactorCandidate(6L, 1L, m, "%07d", 0);
+        result = PeriodVerifier.verify(tail, 7L, 4, null);
+        expected = firstRepeat(tail, 7L);
+        Assert.assertEquals(-1L, result.getPeriod());
+        Assert.assertEquals(expected[1], result.getDuplicatePosition());
+        Assert.assertEquals(expected[2], result.getDuplicateState());
+    }
+
+    /**
+     * 逐步迭代求{回到x0的位置, 首个重复位置, 重复状态}
+     */
+    private static long[] firstRepeat(FactorSearch.FactorCandidate factor, long x0) {
+        Map<Long, Long> seen = new HashMap<>();
+        long xn = x0;
+        for (long n = 1; ; n++) {
+            xn = factor.getEngine().next(xn);
+            if (xn == x0 || seen.containsKey(xn)) {
+                return new long[]{xn == x0 ? n : -1, n, xn};
+            }
+            seen.put(xn, n);
+        }
+    }
+}
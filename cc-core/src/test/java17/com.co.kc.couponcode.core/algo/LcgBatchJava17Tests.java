@@ -0,0 +1,85 @@
+package com.co.kc.couponcode.core.algo;
+
+import com.co.kc.couponcode.core.model.IFactor;
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+
+public class LcgBatchJava17Tests {
+
+    private static final String PACKAGE = "com.co.kc.couponcode.core.";
+
+    /**
+     * 测试类路径中基础类在前，需要以多版本jar的顺序(META-INF/versions/17优先)加载完整的Java 17版本LcgBatch，
+     * 其结果应与逐步迭代一致，并在回到end时提前停止
+     */
+    @Test
+    public void testFill() throws Exception {
+        URL classes = LcgBatch.class.getProtectionDomain().getCodeSource().getLocation();
+        URL versioned = new URL(classes, "META-INF/versions/17/");
+        try (MultiReleaseClassLoader loader = new MultiReleaseClassLoader(new URL[]{versioned, classes})) {
+            Class<?> batch = loader.loadClass(LcgBatch.class.getName());
+            Assert.assertEquals(versioned, batch.getProtectionDomain().getCodeSource().getLocation());
+            Assert.assertTrue((Boolean) batch.getMethod("isVectorized").invoke(null));
+            Class<?> factorType = loader.loadClass(IFactor.class.getName());
+            Method fill = batch.getMethod("fill", factorType, long.class, long.class, long[].class, int.class, int.class);
+
+            Class<?> factors = loader.loadClass(LcgFactor.class.getName());
+            for (LcgFactor factor : new LcgFactor[]{LcgFactor.PERIOD_1073741824, LcgFactor.PERIOD_1152921504606846976}) {
+                Object versionedFactor = factors.getField(factor.name()).get(null);
+                LcgEngine lcg = LcgEngine.of(factor);
+                long xn = RandomUtils.nextLong(0, factor.getM());
+                long[] expected = new long[1003];
+                Assert.assertEquals(expected.length, lcg.fill(xn, -1L, expected, 0, expected.length));
+
+                // 整轮由向量路径生成，不足一轮的部分由标量补齐
+                long[] out = new long[expected.length + 10];
+                Assert.assertEquals(expected.length, fill.invoke(null, versionedFactor, xn, -1L, out, 7, expected.length));
+                Assert.assertArrayEquals(expected, Arrays.copyOfRange(out, 7, 7 + expected.length));
+
+                // 长度不足两轮时直接逐步迭代
+                long[] small = new long[3];
+                Assert.assertEquals(3, fill.invoke(null, versionedFactor, xn, -1L, small, 0, small.length));
+                Assert.assertArrayEquals(Arrays.copyOf(expected, 3), small);
+
+                for (int stop = 0; stop < expected.length; stop += stop < 16 ? 1 : 97) {
+                    long[] partial = new long[expected.length];
+                    Assert.assertEquals(stop, fill.invoke(null, versionedFactor, xn, expected[stop], partial, 0, partial.length));
+                    Assert.assertArrayEquals(Arrays.copyOf(expected, stop), Arrays.copyOf(partial, stop));
+                }
+            }
+        }
+    }
+
+    /**
+     * 本项目的类优先从给定路径加载，其余委托给父加载器
+     */
+    private static class MultiReleaseClassLoader extends URLClassLoader {
+
+        MultiReleaseClassLoader(URL[] urls) {
+            super(urls, LcgBatchJava17Tests.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.startsWith(PACKAGE)) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> clazz = findLoadedClass(name);
+                if (clazz == null) {
+                    clazz = findClass(name);
+                }
+                if (resolve) {
+                    resolveClass(clazz);
+                }
+                return clazz;
+            }
+        }
+    }
+}
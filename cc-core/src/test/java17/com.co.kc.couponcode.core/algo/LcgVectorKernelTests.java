@@ -0,0 +1,48 @@
+package com.co.kc.couponcode.core.algo;
+
+import com.co.kc.couponcode.core.model.IFactor;
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class LcgVectorKernelTests {
+
+    /**
+     * 测试向量化推进与逐步迭代结果一致，并在回到end时提前停止
+     */
+    @Test
+    public void testFill() {
+        int lanes = LcgVectorKernel.lanes();
+        IFactor[] factors = {LcgFactor.PERIOD_1073741824, LcgFactor.PERIOD_1152921504606846976};
+        for (IFactor factor : factors) {
+            LcgEngine lcg = LcgEngine.of(factor);
+            long xn = RandomUtils.nextLong(0, factor.getM());
+            int rounds = 1003 / lanes;
+            long[] expected = new long[rounds * lanes];
+            Assert.assertEquals(expected.length, lcg.fill(xn, -1L, expected, 0, expected.length));
+
+            // 只生成整轮，不足一轮的部分由LcgBatch以标量补齐
+            long[] out = new long[expected.length + 10];
+            Assert.assertEquals(expected.length, LcgVectorKernel.fill(lcg, xn, -1L, out, 7, 1003));
+            Assert.assertArrayEquals(expected, Arrays.copyOfRange(out, 7, 7 + expected.length));
+
+            // end落在每一轮的不同通道
+            for (int stop = 0; stop < expected.length; stop += stop < 2 * lanes ? 1 : 97) {
+                long[] partial = new long[expected.length];
+                Assert.assertEquals(-stop - 1, LcgVectorKernel.fill(lcg, xn, expected[stop], partial, 0, partial.length));
+                Assert.assertArrayEquals(Arrays.copyOf(expected, stop), Arrays.copyOf(partial, stop));
+                Assert.assertEquals(0L, partial[stop]);
+            }
+        }
+    }
+
+    /**
+     * 测试运行时已加载jdk.incubator.vector模块，LcgBatch的Java 17版本会走向量路径
+     */
+    @Test
+    public void testVectorModuleLoaded() {
+        Assert.assertTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent());
+    }
+}
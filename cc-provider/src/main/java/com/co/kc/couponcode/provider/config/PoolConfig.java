@@ -1,24 +1,96 @@
 package com.co.kc.couponcode.provider.config;
 
+import com.co.kc.couponcode.provider.persistence.CodeGenAuditor;
 import com.co.kc.couponcode.provider.persistence.DefaultCodeGen;
+import com.co.kc.couponcode.provider.persistence.DefaultCodeGenFactory;
 import com.co.kc.couponcode.core.CouponCodePool;
+import com.co.kc.couponcode.core.CouponCodePoolRegistry;
+import com.co.kc.couponcode.core.CouponCodePoolScheduler;
+import com.co.kc.couponcode.core.PoolAutoSizer;
+import com.co.kc.couponcode.core.StripedCouponCodePool;
+import com.co.kc.couponcode.core.TokenBucketAdmission;
+import com.co.kc.couponcode.core.algo.DecimalLcgFactor;
 import com.co.kc.couponcode.core.algo.LcgFactor;
 
-import com.co.kc.couponcode.core.persistence.ICodeGen;
+import com.co.kc.couponcode.core.model.IFactor;
 import com.co.kc.couponcode.provider.repository.dao.CouponCodeGeneratorRepository;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * @author kc
  */
 @Configuration
+@EnableConfigurationProperties(PoolProperties.class)
 public class PoolConfig {
 
+    private static final IFactor FACTOR = LcgFactor.PERIOD_8589934592;
+
+    @Bean(initMethod = "init", destroyMethod = "destroy")
+    public StripedCouponCodePool couponCodePool(CouponCodeGeneratorRepository couponCodeGeneratorRepository,
+                                                @Value("${coupon.pool.shards:1}") int shards,
+                                                @Value("${coupon.pool.generators:1}") int generators,
+                                                @Value("${coupon.pool.hot-low-watermark-ratio:0.5}") double hotLowWatermarkRatio,
+                                                @Value("${coupon.pool.cold-fill-parallelism:1}") int coldFillParallelism) {
+        StripedCouponCodePool pool = new StripedCouponCodePool(
+                () -> new DefaultCodeGen(FACTOR, couponCodeGeneratorRepository), shards, generators);
+        pool.setHotPoolLowWatermarkRatio(hotLowWatermarkRatio);
+        pool.setColdFillParallelism(coldFillParallelism);
+        return pool;
+    }
+
+    @Bean
+    public TokenBucketAdmission couponCodeAdmission(StripedCouponCodePool couponCodePool) {
+        return TokenBucketAdmission.of(couponCodePool);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public CouponCodePoolScheduler couponCodePoolScheduler(PoolProperties poolProperties) {
+        int parallelism = poolProperties.getSchedulerParallelism();
+        int ioThreads = poolProperties.getSchedulerIoThreads();
+        return new CouponCodePoolScheduler(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+                ioThreads > 0 ? ioThreads : CouponCodePoolScheduler.DEFAULT_IO_THREADS);
+    }
+
+    @Bean
+    public DefaultCodeGenFactory defaultCodeGenFactory(CouponCodeGeneratorRepository couponCodeGeneratorRepository) {
+        return new DefaultCodeGenFactory(couponCodeGeneratorRepository);
+    }
+
+    @Bean(initMethod = "init", destroyMethod = "destroy")
+    public CouponCodePoolRegistry couponCodePoolRegistry(CouponCodeGeneratorRepository couponCodeGeneratorRepository,
+                                                         DefaultCodeGenFactory defaultCodeGenFactory,
+                                                         CouponCodePoolScheduler couponCodePoolScheduler,
+                                                         PoolProperties poolProperties) {
+        CouponCodePoolRegistry registry = new CouponCodePoolRegistry(
+                couponCodePoolScheduler, couponCodeGeneratorRepository::updateHeartbeatAtByNo);
+        poolProperties.getPools().forEach((name, properties) -> {
+            CouponCodePool pool = registry.register(name, defaultCodeGenFactory.supplier(properties.resolveFactor()),
+                    properties.getGenerators(), properties.getMaxHotPoolSize(), properties.getMaxColdPoolSize());
+            pool.setHotPoolLowWatermarkRatio(properties.getHotLowWatermarkRatio());
+        });
+        return registry;
+    }
+
     @Bean(initMethod = "init", destroyMethod = "destroy")
-    public CouponCodePool couponCodePool(CouponCodeGeneratorRepository couponCodeGeneratorRepository) {
-        ICodeGen codeGen = new DefaultCodeGen(LcgFactor.PERIOD_8589934592, couponCodeGeneratorRepository);
-        return new CouponCodePool(codeGen);
+    @ConditionalOnProperty(prefix = "coupon.pool", name = "autosize", havingValue = "true")
+    public PoolAutoSizer poolAutoSizer(StripedCouponCodePool couponCodePool) {
+        return new PoolAutoSizer(couponCodePool.getShards());
+    }
+
+    @Bean
+    public CodeGenAuditor codeGenAuditor(CouponCodeGeneratorRepository couponCodeGeneratorRepository) {
+        List<IFactor> factors = new ArrayList<>();
+        Collections.addAll(factors, LcgFactor.values());
+        Collections.addAll(factors, DecimalLcgFactor.values());
+        return new CodeGenAuditor(factors, couponCodeGeneratorRepository);
     }
 }
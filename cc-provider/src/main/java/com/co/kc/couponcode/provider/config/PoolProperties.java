@@ -0,0 +1,86 @@
+package com.co.kc.couponcode.provider.config;
+
+import com.co.kc.couponcode.core.algo.DecimalLcgFactor;
+import com.co.kc.couponcode.core.algo.LcgFactor;
+import com.co.kc.couponcode.core.model.IFactor;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 命名券码池配置，每个活动、每种券码长度配置一个券码池
+ *
+ * @author kc
+ */
+@Data
+@ConfigurationProperties(prefix = "coupon")
+public class PoolProperties {
+
+    /**
+     * 共享调度器任务线程池并行度，0表示CPU核数
+     */
+    private int schedulerParallelism;
+    /**
+     * 共享调度器I/O线程池线程数(刷新生成器、占用备用生成器、心跳)，0表示默认值
+     */
+    private int schedulerIoThreads;
+    /**
+     * 券码池名称 -> 券码池配置
+     */
+    private Map<String, NamedPool> pools = new LinkedHashMap<>();
+
+    /**
+     * 按枚举名解析算法Factor
+     *
+     * @param name LcgFactor或DecimalLcgFactor的枚举名
+     * @return Factor
+     */
+    public static IFactor resolveFactor(String name) {
+        for (LcgFactor lcgFactor : LcgFactor.values()) {
+            if (lcgFactor.name().equals(name)) {
+                return lcgFactor;
+            }
+        }
+        for (DecimalLcgFactor decimalLcgFactor : DecimalLcgFactor.values()) {
+            if (decimalLcgFactor.name().equals(name)) {
+                return decimalLcgFactor;
+            }
+        }
+        throw new IllegalArgumentException("unknown factor: " + name);
+    }
+
+    @Data
+    public static class NamedPool {
+        /**
+         * 算法Factor名称，LcgFactor或DecimalLcgFactor的枚举名
+         */
+        private String factor = LcgFactor.PERIOD_8589934592.name();
+        /**
+         * 同时使用的生成器数量
+         */
+        private int generators = 1;
+        /**
+         * 热池最大大小
+         */
+        private int maxHotPoolSize = 100;
+        /**
+         * 冷池最大大小
+         */
+        private int maxColdPoolSize = 10000;
+        /**
+         * 热池低水位比例
+         */
+        private double hotLowWatermarkRatio = 0.5;
+
+        /**
+         * 解析算法Factor
+         *
+         * @return Factor
+         */
+        public IFactor resolveFactor() {
+            return PoolProperties.resolveFactor(factor);
+        }
+    }
+}
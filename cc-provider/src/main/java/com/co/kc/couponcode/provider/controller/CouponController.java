@@ -1,14 +1,36 @@
 package com.co.kc.couponcode.provider.controller;
 
+import com.co.kc.couponcode.common.exception.BusinessException;
+import com.co.kc.couponcode.common.exception.RateLimitException;
 import com.co.kc.couponcode.core.CouponCodePool;
+import com.co.kc.couponcode.core.CouponCodePoolRegistry;
+import com.co.kc.couponcode.core.StripedCouponCodePool;
+import com.co.kc.couponcode.core.TokenBucketAdmission;
+import com.co.kc.couponcode.core.model.IFactor;
 import com.co.kc.couponcode.provider.model.Result;
+import com.co.kc.couponcode.provider.model.ResultCode;
+import com.co.kc.couponcode.provider.config.PoolProperties;
+import com.co.kc.couponcode.provider.persistence.CodeGenAuditor;
+import com.co.kc.couponcode.provider.persistence.DefaultCodeGenFactory;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletResponse;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
 /**
  * @author kc
  */
@@ -17,16 +39,228 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping(value = "/coupon")
 public class CouponController {
 
+    private static final int MAX_BATCH_SIZE = 10000;
+    private static final long MAX_TIMEOUT_MILLIS = 10000L;
+    private static final long MAX_LEASE_TTL_MILLIS = 600000L;
+
+    @Autowired
+    private StripedCouponCodePool couponCodePool;
+
+    @Autowired
+    private TokenBucketAdmission couponCodeAdmission;
+
+    @Autowired
+    private CouponCodePoolRegistry couponCodePoolRegistry;
+
+    @Autowired
+    private DefaultCodeGenFactory defaultCodeGenFactory;
+
     @Autowired
-    private CouponCodePool couponCodePool;
+    private CodeGenAuditor codeGenAuditor;
+
+    @Value("${coupon.admission.enabled:true}")
+    private boolean admissionEnabled;
 
     @ApiOperation(value = "生成券码")
     @GetMapping(value = "/v1/code/next")
-    public Result<String> next() {
+    public Result<String> next(HttpServletResponse response) {
         try {
+            admit(couponCodeAdmission, 1);
             return Result.success(couponCodePool.next());
+        } catch (RateLimitException e) {
+            return rejected(response, e);
+        } catch (InterruptedException e) {
+            return Result.error();
+        }
+    }
+
+    @ApiOperation(value = "从指定券码池生成券码")
+    @GetMapping(value = "/v1/{pool}/code/next")
+    public Result<String> next(@PathVariable(value = "pool") String poolName, HttpServletResponse response) {
+        CouponCodePool pool = couponCodePoolRegistry.get(poolName);
+        if (pool == null) {
+            return Result.error(ResultCode.NOT_EXISTS);
+        }
+        try {
+            admit(couponCodePoolRegistry.getAdmission(poolName), 1);
+            return Result.success(pool.next());
+        } catch (RateLimitException e) {
+            return rejected(response, e);
         } catch (InterruptedException e) {
             return Result.error();
         }
     }
+
+    @ApiOperation(value = "从指定券码池租用券码，有效期内未确认的券码回收后再次发放")
+    @PostMapping(value = "/v1/{pool}/code/lease")
+    public Result<List<CouponCodePool.LeasedCode>> lease(@PathVariable(value = "pool") String poolName,
+                                                        @RequestParam(value = "n", defaultValue = "1") int n,
+                                                        @RequestParam(value = "ttl", defaultValue = "30000") long ttlMillis,
+                                                        @RequestParam(value = "timeout", defaultValue = "1000") long timeoutMillis,
+                                                        HttpServletResponse response) {
+        CouponCodePool pool = couponCodePoolRegistry.get(poolName);
+        if (pool == null) {
+            return Result.error(ResultCode.NOT_EXISTS);
+        }
+        if (n < 1 || n > MAX_BATCH_SIZE || ttlMillis < 1 || ttlMillis > MAX_LEASE_TTL_MILLIS
+                || timeoutMillis < 0 || timeoutMillis > MAX_TIMEOUT_MILLIS) {
+            return Result.error(ResultCode.PARAMS_ERROR);
+        }
+        try {
+            admit(couponCodePoolRegistry.getAdmission(poolName), n);
+            return Result.success(pool.lease(n, timeoutMillis, ttlMillis, TimeUnit.MILLISECONDS));
+        } catch (RateLimitException e) {
+            return rejected(response, e);
+        } catch (InterruptedException e) {
+            return Result.error();
+        }
+    }
+
+    @ApiOperation(value = "确认租用的券码，返回确认成功的租约ID，已到期的租约需重新租用")
+    @PostMapping(value = "/v1/{pool}/code/confirm")
+    public Result<List<Long>> confirm(@PathVariable(value = "pool") String poolName,
+                                      @RequestParam(value = "ids") List<Long> ids) {
+        CouponCodePool pool = couponCodePoolRegistry.get(poolName);
+        if (pool == null) {
+            return Result.error(ResultCode.NOT_EXISTS);
+        }
+        return Result.success(pool.confirm(ids));
+    }
+
+    @ApiOperation(value = "释放租用的券码，下游失败时调用，券码回收后再次发放")
+    @PostMapping(value = "/v1/{pool}/code/release")
+    public Result<Integer> release(@PathVariable(value = "pool") String poolName,
+                                   @RequestParam(value = "ids") List<Long> ids) {
+        CouponCodePool pool = couponCodePoolRegistry.get(poolName);
+        if (pool == null) {
+            return Result.error(ResultCode.NOT_EXISTS);
+        }
+        return Result.success(pool.release(ids));
+    }
+
+    @ApiOperation(value = "暂停指定券码池发放券码")
+    @PostMapping(value = "/v1/{pool}/pause")
+    public Result<Void> pause(@PathVariable(value = "pool") String poolName) {
+        CouponCodePool pool = couponCodePoolRegistry.get(poolName);
+        if (pool == null) {
+            return Result.error(ResultCode.NOT_EXISTS);
+        }
+        try {
+            pool.pause();
+            return Result.success();
+        } catch (IllegalStateException e) {
+            return Result.error(ResultCode.OPERATE_ERROR);
+        }
+    }
+
+    @ApiOperation(value = "恢复指定券码池发放券码")
+    @PostMapping(value = "/v1/{pool}/resume")
+    public Result<Void> resume(@PathVariable(value = "pool") String poolName) {
+        CouponCodePool pool = couponCodePoolRegistry.get(poolName);
+        if (pool == null) {
+            return Result.error(ResultCode.NOT_EXISTS);
+        }
+        try {
+            pool.resume();
+            return Result.success();
+        } catch (IllegalStateException e) {
+            return Result.error(ResultCode.OPERATE_ERROR);
+        }
+    }
+
+    @ApiOperation(value = "热切换指定券码池的算法Factor及冷热池大小，未指定的保持不变")
+    @PostMapping(value = "/v1/{pool}/reconfigure")
+    public Result<Void> reconfigure(@PathVariable(value = "pool") String poolName,
+                                    @RequestParam(value = "factor", required = false) String factorName,
+                                    @RequestParam(value = "maxHotPoolSize", required = false) Integer maxHotPoolSize,
+                                    @RequestParam(value = "maxColdPoolSize", required = false) Integer maxColdPoolSize) {
+        CouponCodePool pool = couponCodePoolRegistry.get(poolName);
+        if (pool == null) {
+            return Result.error(ResultCode.NOT_EXISTS);
+        }
+        if ((maxHotPoolSize != null && maxHotPoolSize < 1) || (maxColdPoolSize != null && maxColdPoolSize < 1)) {
+            return Result.error(ResultCode.PARAMS_ERROR);
+        }
+        IFactor factor;
+        try {
+            factor = factorName == null ? null : PoolProperties.resolveFactor(factorName);
+        } catch (IllegalArgumentException e) {
+            return Result.error(ResultCode.PARAMS_ERROR);
+        }
+        try {
+            if (factor != null && factor != pool.getColdFactor()) {
+                pool.reconfigure(defaultCodeGenFactory.supplier(factor));
+            }
+        } catch (IllegalStateException e) {
+            return Result.error(ResultCode.OPERATE_ERROR);
+        }
+        if (maxHotPoolSize != null) {
+            pool.setMaxHotPoolSize(maxHotPoolSize);
+        }
+        if (maxColdPoolSize != null) {
+            pool.setMaxColdPoolSize(maxColdPoolSize);
+        }
+        return Result.success();
+    }
+
+    @ApiOperation(value = "异步生成券码，超时时间由调用方指定")
+    @GetMapping(value = "/v1/code/next-async")
+    public CompletableFuture<Result<String>> nextAsync(
+            @RequestParam(value = "timeout", defaultValue = "1000") long timeoutMillis, HttpServletResponse response) {
+        if (timeoutMillis < 0 || timeoutMillis > MAX_TIMEOUT_MILLIS) {
+            return CompletableFuture.completedFuture(Result.error(ResultCode.PARAMS_ERROR));
+        }
+        try {
+            admit(couponCodeAdmission, 1);
+        } catch (RateLimitException e) {
+            return CompletableFuture.completedFuture(rejected(response, e));
+        }
+        return couponCodePool.nextAsync(timeoutMillis, TimeUnit.MILLISECONDS)
+                .thenApply(Result::success)
+                .exceptionally(ex -> {
+                    Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+                    if (cause instanceof BusinessException) {
+                        return Result.error(ResultCode.BUSINESS_ERROR, (BusinessException) cause);
+                    }
+                    return Result.error();
+                });
+    }
+
+    @ApiOperation(value = "批量生成券码")
+    @GetMapping(value = "/v1/code/batch")
+    public Result<List<String>> batch(@RequestParam(value = "n") int n, HttpServletResponse response) {
+        if (n < 1 || n > MAX_BATCH_SIZE) {
+            return Result.error(ResultCode.PARAMS_ERROR);
+        }
+        try {
+            admit(couponCodeAdmission, n);
+            return Result.success(couponCodePool.next(n));
+        } catch (RateLimitException e) {
+            return rejected(response, e);
+        } catch (InterruptedException e) {
+            return Result.error();
+        }
+    }
+
+    private void admit(TokenBucketAdmission admission, int permits) {
+        if (admissionEnabled) {
+            admission.acquire(permits);
+        }
+    }
+
+    /**
+     * 限流拒绝，以429及Retry-After(秒)提示调用方重试时间
+     */
+    private static <T> Result<T> rejected(HttpServletResponse response, RateLimitException e) {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf((e.getRetryAfterMillis() + 999L) / 1000L));
+        return Result.error(ResultCode.TOO_MANY_REQUESTS, e);
+    }
+
+    @ApiOperation(value = "审计生成器状态")
+    @PostMapping(value = "/v1/generator/audit")
+    public Result<CodeGenAuditor.AuditReport> audit(
+            @RequestParam(value = "repair", defaultValue = "NONE") CodeGenAuditor.RepairMode repairMode) {
+        return Result.success(codeGenAuditor.audit(repairMode));
+    }
 }
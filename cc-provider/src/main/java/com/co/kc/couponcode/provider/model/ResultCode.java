@@ -26,6 +26,7 @@ public enum ResultCode {
     REPEATED_ERROR(504, "重复提交"),
     TIMEOUT_ERROR(505, "请求超时"),
     OPERATE_ERROR(506, "操作错误"),
+    TOO_MANY_REQUESTS(429, "请求太频繁，请稍后重试"),
 
     BUSINESS_ERROR(10000, "业务异常");
 
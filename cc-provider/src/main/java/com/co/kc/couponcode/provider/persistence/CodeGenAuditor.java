@@ -0,0 +1,180 @@
+package com.co.kc.couponcode.provider.persistence;
+
+import com.co.kc.couponcode.core.model.ICodeEngine;
+import com.co.kc.couponcode.core.model.IFactor;
+import com.co.kc.couponcode.provider.repository.dao.CouponCodeGeneratorRepository;
+import com.co.kc.couponcode.provider.repository.entities.CouponCodeGenerator;
+import com.co.kc.couponcode.provider.repository.enums.CouponCodeGeneratorStatus;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 生成器状态审计
+ * <p>
+ * 生成器满足xn = X(cnt)，即从x0迭代cnt次得到xn。宕机或部分写入可能破坏该关系，导致重复发券或券码被跳过。
+ * 审计通过跳跃计算在O(log cnt)内由x0和cnt重算xn，并行校验所有生成器，无需逐步迭代。
+ * 每个生成器按其(a, c, m)在已知的Factor中查找运算引擎，不同Factor的生成器一并审计。
+ * <p>
+ * 修复仅针对非激活中或心跳超时(所属实例已失联)的生成器，并以审计时的xn、cnt作为更新条件，避免覆盖其他实例的并发写入：
+ * <li>{@link RepairMode#CNT}：信任xn，由x0到xn的步数重算cnt(需运算引擎支持反推步数)。</li>
+ * <li>{@link RepairMode#XN}：信任cnt，将xn重置为X(cnt)。</li>
+ *
+ * @author kc
+ */
+public class CodeGenAuditor {
+    private static final Logger LOG = LoggerFactory.getLogger(CodeGenAuditor.class);
+
+    /**
+     * (a, c, m) -> Factor
+     */
+    private final Map<List<Long>, IFactor> factors = new HashMap<>();
+    private final CouponCodeGeneratorRepository couponCodeGeneratorRepository;
+
+    /**
+     * @param factors                       已知的Factor，(a, c, m)相同时取第一个
+     * @param couponCodeGeneratorRepository 生成器仓储
+     */
+    public CodeGenAuditor(Collection<? extends IFactor> factors, CouponCodeGeneratorRepository couponCodeGeneratorRepository) {
+        for (IFactor factor : factors) {
+            this.factors.putIfAbsent(Arrays.asList(factor.getA(), factor.getC(), factor.getM()), factor);
+        }
+        this.couponCodeGeneratorRepository = couponCodeGeneratorRepository;
+    }
+
+    /**
+     * 审计所有生成器
+     *
+     * @param repairMode 修复方式
+     * @return 审计报告
+     */
+    public AuditReport audit(RepairMode repairMode) {
+        long start = System.currentTimeMillis();
+        List<CouponCodeGenerator> generators = couponCodeGeneratorRepository.getAllList();
+        List<AuditResult> mismatches = generators.parallelStream()
+                .map(generator -> audit(generator, repairMode))
+                .filter(result -> !result.isConsistent())
+                .collect(Collectors.toList());
+        AuditReport report = new AuditReport(generators.size(), mismatches, System.currentTimeMillis() - start);
+        LOG.info("生成器审计完成，总数:{}，不一致:{}，已修复:{}，耗时:{}ms",
+                report.getTotal(), mismatches.size(), report.getRepaired(), report.getElapsed());
+        return report;
+    }
+
+    private AuditResult audit(CouponCodeGenerator generator, RepairMode repairMode) {
+        long x0 = generator.getX0();
+        long xn = generator.getXn();
+        long cnt = generator.getCnt();
+        IFactor factor = factors.get(Arrays.asList(generator.getA(), generator.getC(), generator.getM()));
+        if (factor == null) {
+            LOG.warn("生成器的Factor未知，无法审计，no:{}，a:{}，c:{}，m:{}",
+                    generator.getNo(), generator.getA(), generator.getC(), generator.getM());
+            return new AuditResult(generator.getNo(), x0, xn, cnt, -1, -1, false, "未知的Factor");
+        }
+        ICodeEngine engine = factor.withNo(generator.getNo()).getEngine();
+        long expectedXn = engine.jump(x0, cnt);
+        if (expectedXn == xn) {
+            return new AuditResult(generator.getNo(), x0, xn, cnt, expectedXn, cnt, false, null);
+        }
+        long expectedCnt = engine.distance(x0, xn);
+        LOG.warn("生成器状态不一致，no:{}，x0:{}，xn:{}，cnt:{}，X(cnt):{}，xn对应cnt:{}",
+                generator.getNo(), x0, xn, cnt, expectedXn, expectedCnt);
+
+        if (repairMode == RepairMode.NONE) {
+            return new AuditResult(generator.getNo(), x0, xn, cnt, expectedXn, expectedCnt, false, null);
+        }
+        String reason = null;
+        boolean repaired = false;
+        if (generator.getStatus() == CouponCodeGeneratorStatus.ACTIVATED && !CouponCodeGeneratorRepository.isLossHeart(generator)) {
+            reason = "生成器激活中";
+        } else if (repairMode == RepairMode.CNT && expectedCnt < 0) {
+            reason = "运算引擎不支持反推步数，无法按CNT修复";
+        } else {
+            long repairXn = repairMode == RepairMode.CNT ? xn : expectedXn;
+            long repairCnt = repairMode == RepairMode.CNT ? expectedCnt : cnt;
+            repaired = couponCodeGeneratorRepository.repairCodeGenByNo(generator.getNo(), xn, cnt, repairXn, repairCnt);
+            if (!repaired) {
+                reason = "审计后已被修改";
+            }
+        }
+        return new AuditResult(generator.getNo(), x0, xn, cnt, expectedXn, expectedCnt, repaired, reason);
+    }
+
+    /**
+     * 修复方式
+     */
+    public enum RepairMode {
+        /**
+         * 仅审计
+         */
+        NONE,
+        /**
+         * 信任xn，修复cnt
+         */
+        CNT,
+        /**
+         * 信任cnt，修复xn
+         */
+        XN,
+    }
+
+    /**
+     * 单个生成器的审计结果
+     */
+    @Getter
+    public static class AuditResult {
+        private final long no;
+        private final long x0;
+        private final long xn;
+        private final long cnt;
+        /**
+         * X(cnt)
+         */
+        private final long expectedXn;
+        /**
+         * 从x0到xn的步数，-1表示无法反推
+         */
+        private final long expectedCnt;
+        private final boolean repaired;
+        /**
+         * 未修复的原因，null表示无需修复、已修复或仅审计
+         */
+        private final String reason;
+
+        public AuditResult(long no, long x0, long xn, long cnt, long expectedXn, long expectedCnt, boolean repaired, String reason) {
+            this.no = no;
+            this.x0 = x0;
+            this.xn = xn;
+            this.cnt = cnt;
+            this.expectedXn = expectedXn;
+            this.expectedCnt = expectedCnt;
+            this.repaired = repaired;
+            this.reason = reason;
+        }
+
+        public boolean isConsistent() {
+            return xn == expectedXn;
+        }
+    }
+
+    /**
+     * 审计报告
+     */
+    @Getter
+    public static class AuditReport {
+        private final int total;
+        private final List<AuditResult> mismatches;
+        private final long repaired;
+        private final long elapsed;
+
+        public AuditReport(int total, List<AuditResult> mismatches, long elapsed) {
+            this.total = total;
+            this.mismatches = mismatches;
+            this.repaired = mismatches.stream().filter(AuditResult::isRepaired).count();
+            this.elapsed = elapsed;
+        }
+    }
+}
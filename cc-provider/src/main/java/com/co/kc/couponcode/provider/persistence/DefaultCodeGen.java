@@ -1,9 +1,12 @@
 package com.co.kc.couponcode.provider.persistence;
 
 import com.co.kc.couponcode.core.CouponCodePool;
-import com.co.kc.couponcode.core.algo.Lcg;
+import com.co.kc.couponcode.core.algo.Lcg128;
 import com.co.kc.couponcode.core.model.ICode;
+import com.co.kc.couponcode.core.model.ICodeEngine;
 import com.co.kc.couponcode.core.model.IFactor;
+import com.co.kc.couponcode.core.model.IWideCode;
+import com.co.kc.couponcode.core.model.IWideFactor;
 import com.co.kc.couponcode.core.persistence.ICodeGen;
 import com.co.kc.couponcode.provider.repository.dao.CouponCodeGeneratorRepository;
 import com.co.kc.couponcode.provider.repository.entities.CouponCodeGenerator;
@@ -14,26 +17,46 @@ import org.slf4j.LoggerFactory;
 import org.springframework.dao.DuplicateKeyException;
 
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Map;
-import java.util.Objects;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
+ * 128位因子({@link IWideFactor})的生成器以bits、a_high、c_high区分，x0、xn及其高64位保存128位状态，
+ * 券码池中的x0为位置0、xn为位置cnt，刷新时换算为128位状态
+ *
  * @author kc
  */
 public class DefaultCodeGen implements ICodeGen {
     private static final Logger LOG = LoggerFactory.getLogger(DefaultCodeGen.class);
 
     private final IFactor factor;
+    /**
+     * 128位因子，非128位因子时为null
+     */
+    private final IWideFactor wideFactor;
     private final CouponCodeGeneratorRepository couponCodeGeneratorRepository;
 
     private final AtomicLong runningNo = new AtomicLong(-1);
     private final Map<Long, CouponCodeGenerator> runningMap = new ConcurrentHashMap<>();
+    /**
+     * 预先占用的备用生成器，下次select时直接切换
+     */
+    private final AtomicReference<CouponCodeGenerator> standby = new AtomicReference<>();
+    /**
+     * 各生成器编号派生的因子与引擎，派生因子(如Feistel按编号派生轮密钥)与构建引擎的开销不应在每次刷新时重复
+     */
+    private final Map<Long, IFactor> derivedFactors = new ConcurrentHashMap<>();
+    private final Map<Long, ICodeEngine> derivedEngines = new ConcurrentHashMap<>();
+    /**
+     * 已销毁，之后占用的备用生成器立即释放
+     */
+    private volatile boolean destroyed;
 
     public DefaultCodeGen(IFactor factor, CouponCodeGeneratorRepository couponCodeGeneratorRepository) {
         this.factor = factor;
+        this.wideFactor = factor instanceof IWideFactor ? (IWideFactor) factor : null;
         this.couponCodeGeneratorRepository = couponCodeGeneratorRepository;
     }
 
@@ -53,12 +76,41 @@ public class DefaultCodeGen implements ICodeGen {
 
     @Override
     public boolean select() {
+        // 优先使用预先占用的备用生成器，无需访问数据库
+        CouponCodeGenerator selectGenerator = standby.getAndSet(null);
+        if (selectGenerator == null) {
+            selectGenerator = claim();
+        }
+        runningNo.set(selectGenerator.getNo());
+        runningMap.put(selectGenerator.getNo(), selectGenerator);
+        return true;
+    }
+
+    @Override
+    public boolean prepare() {
+        if (destroyed) {
+            return false;
+        }
+        if (standby.get() == null) {
+            CouponCodeGenerator standbyGenerator = claim();
+            if (!standby.compareAndSet(null, standbyGenerator)) {
+                release(Collections.singleton(standbyGenerator.getNo()));
+            } else if (destroyed && standby.compareAndSet(standbyGenerator, null)) {
+                // 占用期间已销毁，destroy未能释放该备用生成器
+                release(Collections.singleton(standbyGenerator.getNo()));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 占用一个待激活的生成器，没有时新建
+     */
+    private CouponCodeGenerator claim() {
         CouponCodeGenerator selectGenerator = null;
         List<CouponCodeGenerator> inactiveList = couponCodeGeneratorRepository.getInactiveList();
         for (CouponCodeGenerator couponCodeGenerator : inactiveList) {
-            if (Objects.equals(couponCodeGenerator.getA(), factor.getA())
-                    && Objects.equals(couponCodeGenerator.getC(), factor.getC())
-                    && Objects.equals(couponCodeGenerator.getM(), factor.getM())) {
+            if (isSameFactor(couponCodeGenerator)) {
                 boolean hasBound = true;
                 //noinspection ConstantConditions
                 hasBound &= couponCodeGeneratorRepository.updateHeartbeatAtById(couponCodeGenerator.getId());
@@ -75,14 +127,27 @@ public class DefaultCodeGen implements ICodeGen {
             do {
                 try {
                     long no = couponCodeGeneratorRepository.getNextNo();
-                    long x0 = RandomUtils.nextLong(1, factor.getM());
                     selectGenerator = new CouponCodeGenerator();
                     selectGenerator.setNo(no);
-                    selectGenerator.setA(factor.getA());
-                    selectGenerator.setC(factor.getC());
                     selectGenerator.setM(factor.getM());
-                    selectGenerator.setX0(x0);
-                    selectGenerator.setXn(x0);
+                    if (wideFactor == null) {
+                        long x0 = RandomUtils.nextLong(1, factor.getM());
+                        selectGenerator.setA(factor.getA());
+                        selectGenerator.setC(factor.getC());
+                        selectGenerator.setX0(x0);
+                        selectGenerator.setXn(x0);
+                    } else {
+                        IWideCode x0 = Lcg128.toWideCode(wideFactor, new CouponCodePool.PoolCode(no, 0L, factor.getFormat()));
+                        selectGenerator.setBits(wideFactor.getBits());
+                        selectGenerator.setA(wideFactor.getALow());
+                        selectGenerator.setAHigh(wideFactor.getAHigh());
+                        selectGenerator.setC(wideFactor.getCLow());
+                        selectGenerator.setCHigh(wideFactor.getCHigh());
+                        selectGenerator.setX0(x0.getCodeLow());
+                        selectGenerator.setX0High(x0.getCodeHigh());
+                        selectGenerator.setXn(x0.getCodeLow());
+                        selectGenerator.setXnHigh(x0.getCodeHigh());
+                    }
                     selectGenerator.setCnt(0L);
                     selectGenerator.setStatus(CouponCodeGeneratorStatus.ACTIVATED);
                     selectGenerator.setHeartbeatAt(LocalDateTime.now());
@@ -93,26 +158,90 @@ public class DefaultCodeGen implements ICodeGen {
                 }
             } while (!isInserted);
         }
-        runningNo.set(selectGenerator.getNo());
-        runningMap.put(selectGenerator.getNo(), selectGenerator);
-        return true;
+        return selectGenerator;
+    }
+
+    /**
+     * 生成器参数是否与当前因子一致，128位因子的生成器不与其他因子混用
+     */
+    private boolean isSameFactor(CouponCodeGenerator generator) {
+        if (wideFactor == null) {
+            return Objects.equals(generator.getA(), factor.getA())
+                    && Objects.equals(generator.getC(), factor.getC())
+                    && Objects.equals(generator.getM(), factor.getM())
+                    && (generator.getBits() == null || generator.getBits() == 0);
+        }
+        return Objects.equals(generator.getBits(), wideFactor.getBits())
+                && Objects.equals(generator.getA(), wideFactor.getALow())
+                && Objects.equals(generator.getAHigh(), wideFactor.getAHigh())
+                && Objects.equals(generator.getC(), wideFactor.getCLow())
+                && Objects.equals(generator.getCHigh(), wideFactor.getCHigh())
+                && Objects.equals(generator.getM(), factor.getM());
+    }
+
+    /**
+     * 券码池中的x0，128位因子为位置0
+     */
+    private Long x0Of(CouponCodeGenerator generator) {
+        return wideFactor == null ? generator.getX0() : Long.valueOf(0L);
+    }
+
+    /**
+     * 券码池中的xn，128位因子为位置cnt
+     */
+    private Long xnOf(CouponCodeGenerator generator) {
+        return wideFactor == null ? generator.getXn() : generator.getCnt();
     }
 
     @Override
     public boolean destroy() {
-        if (runningMap.isEmpty()) {
+        this.destroyed = true;
+        Set<Long> noList = new HashSet<>(runningMap.keySet());
+        CouponCodeGenerator standbyGenerator = standby.getAndSet(null);
+        if (standbyGenerator != null) {
+            noList.add(standbyGenerator.getNo());
+        }
+        if (noList.isEmpty()) {
             return true;
         }
         runningNo.set(-1);
         runningMap.clear();
-        couponCodeGeneratorRepository.updateStatusByNoIfExpectStatus(
-                runningMap.keySet(), CouponCodeGeneratorStatus.ACTIVATED, CouponCodeGeneratorStatus.INACTIVE);
+        derivedFactors.clear();
+        derivedEngines.clear();
+        release(noList);
         return true;
     }
 
+    private void release(Collection<Long> noList) {
+        couponCodeGeneratorRepository.updateStatusByNoIfExpectStatus(
+                noList, CouponCodeGeneratorStatus.ACTIVATED, CouponCodeGeneratorStatus.INACTIVE);
+    }
+
+    /**
+     * 正在使用及备用的生成器编号
+     */
+    @Override
+    public Set<Long> getOccupiedNoList() {
+        Set<Long> noList = new HashSet<>(runningMap.keySet());
+        CouponCodeGenerator standbyGenerator = standby.get();
+        if (standbyGenerator != null) {
+            noList.add(standbyGenerator.getNo());
+        }
+        return noList;
+    }
+
     @Override
     public IFactor getFactor() {
-        return this.factor;
+        long no = this.runningNo.get();
+        return no == -1 ? this.factor : factorOf(no);
+    }
+
+    private IFactor factorOf(long no) {
+        return derivedFactors.computeIfAbsent(no, this.factor::withNo);
+    }
+
+    private ICodeEngine engineOf(long no) {
+        return derivedEngines.computeIfAbsent(no, key -> factorOf(key).getEngine());
     }
 
     @Override
@@ -131,7 +260,7 @@ public class DefaultCodeGen implements ICodeGen {
         }
         CouponCodeGenerator runningGenerator = runningMap.get(this.runningNo.get());
         Long no = runningGenerator.getNo();
-        Long x0 = runningGenerator.getX0();
+        Long x0 = x0Of(runningGenerator);
         if (no == null || x0 == null) {
             return null;
         }
@@ -145,29 +274,46 @@ public class DefaultCodeGen implements ICodeGen {
         }
         CouponCodeGenerator runningGenerator = runningMap.get(this.runningNo.get());
         Long no = runningGenerator.getNo();
-        Long xn = runningGenerator.getXn();
+        Long xn = xnOf(runningGenerator);
         if (no == null || xn == null) {
             return null;
         }
         return new CouponCodePool.PoolCode(no, xn, factor.getFormat());
     }
 
+    @Override
+    public long getCnt() {
+        if (this.runningNo.get() == -1 || this.runningMap.isEmpty()) {
+            return -1L;
+        }
+        CouponCodeGenerator runningGenerator = runningMap.get(this.runningNo.get());
+        Long cnt = runningGenerator.getCnt();
+        return cnt == null ? -1L : cnt;
+    }
+
     @Override
     public boolean flush(Long no, ICode xn, Long delta) {
         if (!runningMap.containsKey(no)) {
             return false;
         }
         CouponCodeGenerator runningGenerator = runningMap.get(no);
-        boolean isUsedUp = runningGenerator.getX0() == Lcg.next(factor, xn.getCode());
+        boolean isUsedUp = x0Of(runningGenerator) == engineOf(no).next(xn.getCode());
         if (isUsedUp) {
             runningMap.remove(no);
+            derivedFactors.remove(no);
+            derivedEngines.remove(no);
         }
         CouponCodeGeneratorStatus status = isUsedUp ? CouponCodeGeneratorStatus.INVALID : CouponCodeGeneratorStatus.ACTIVATED;
+        if (wideFactor != null) {
+            IWideCode wideXn = Lcg128.toWideCode(wideFactor, xn);
+            return couponCodeGeneratorRepository.updateWideCodeGenByNo(
+                    no, wideXn.getCodeHigh(), wideXn.getCodeLow(), delta, status.getCode());
+        }
         return couponCodeGeneratorRepository.updateCodeGenByNo(no, xn.getCode(), delta, status.getCode());
     }
 
     @Override
     public boolean keepHeartbeat() {
-        return couponCodeGeneratorRepository.updateHeartbeatAtByNo(runningMap.keySet());
+        return couponCodeGeneratorRepository.updateHeartbeatAtByNo(getOccupiedNoList());
     }
 }
@@ -0,0 +1,31 @@
+package com.co.kc.couponcode.provider.persistence;
+
+import com.co.kc.couponcode.core.model.IFactor;
+import com.co.kc.couponcode.core.persistence.ICodeGen;
+import com.co.kc.couponcode.provider.repository.dao.CouponCodeGeneratorRepository;
+
+import java.util.function.Supplier;
+
+/**
+ * 按算法Factor创建{@link DefaultCodeGen}，用于注册命名券码池及热切换券码池的算法Factor
+ *
+ * @author kc
+ */
+public class DefaultCodeGenFactory {
+
+    private final CouponCodeGeneratorRepository couponCodeGeneratorRepository;
+
+    public DefaultCodeGenFactory(CouponCodeGeneratorRepository couponCodeGeneratorRepository) {
+        this.couponCodeGeneratorRepository = couponCodeGeneratorRepository;
+    }
+
+    /**
+     * 获取生成器工厂，每次调用创建独立的生成器
+     *
+     * @param factor 算法Factor
+     * @return 生成器工厂
+     */
+    public Supplier<ICodeGen> supplier(IFactor factor) {
+        return () -> new DefaultCodeGen(factor, couponCodeGeneratorRepository);
+    }
+}
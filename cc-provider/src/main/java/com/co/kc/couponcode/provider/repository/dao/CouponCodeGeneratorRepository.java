@@ -18,6 +18,25 @@ import java.util.Optional;
 @Repository
 public class CouponCodeGeneratorRepository extends BaseRepository<CouponCodeGeneratorMapper, CouponCodeGenerator> {
 
+    /**
+     * 心跳超时时间(分钟)，超时的激活中生成器视为所属实例已失联
+     */
+    private static final long HEARTBEAT_TIMEOUT_MINUTES = 1;
+
+    /**
+     * 心跳是否超时，与{@link #getInactiveUpdateList()}的查询条件一致
+     *
+     * @param generator 生成器
+     * @return 心跳是否超时
+     */
+    public static boolean isLossHeart(CouponCodeGenerator generator) {
+        return generator.getHeartbeatAt() != null && generator.getHeartbeatAt().isBefore(lossHeartBefore());
+    }
+
+    private static LocalDateTime lossHeartBefore() {
+        return LocalDateTime.now().minus(HEARTBEAT_TIMEOUT_MINUTES, ChronoUnit.MINUTES);
+    }
+
     public List<CouponCodeGenerator> getInactiveList() {
         return this.list(this.getQueryWrapper()
                 .eq(CouponCodeGenerator::getStatus, CouponCodeGeneratorStatus.INACTIVE));
@@ -25,10 +44,14 @@ public class CouponCodeGeneratorRepository extends BaseRepository<CouponCodeGene
 
     public List<CouponCodeGenerator> getInactiveUpdateList() {
         return this.list(this.getQueryWrapper()
-                .lt(CouponCodeGenerator::getHeartbeatAt, LocalDateTime.now().minus(1, ChronoUnit.MINUTES))
+                .lt(CouponCodeGenerator::getHeartbeatAt, lossHeartBefore())
                 .eq(CouponCodeGenerator::getStatus, CouponCodeGeneratorStatus.ACTIVATED));
     }
 
+    public List<CouponCodeGenerator> getAllList() {
+        return this.list(this.getQueryWrapper());
+    }
+
     public long getNextNo() {
         return Optional.ofNullable(this.baseMapper.selectMaxNo()).orElse(0L) + 1;
     }
@@ -41,6 +64,14 @@ public class CouponCodeGeneratorRepository extends BaseRepository<CouponCodeGene
         return this.baseMapper.updateCodeGenByNo(no, xn, delta, status) > 0;
     }
 
+    public boolean updateWideCodeGenByNo(Long no, Long xnHigh, Long xn, Long delta, Integer status) {
+        return this.baseMapper.updateWideCodeGenByNo(no, xnHigh, xn, delta, status) > 0;
+    }
+
+    public boolean repairCodeGenByNo(Long no, Long expectXn, Long expectCnt, Long xn, Long cnt) {
+        return this.baseMapper.repairCodeGenByNo(no, expectXn, expectCnt, xn, cnt) > 0;
+    }
+
     public boolean updateStatusByIdIfExpectStatus(Long id, CouponCodeGeneratorStatus expected, CouponCodeGeneratorStatus updatedStatus) {
         return this.update(this.getUpdateWrapper()
                 .set(CouponCodeGenerator::getStatus, updatedStatus)
@@ -61,7 +92,7 @@ public class CouponCodeGeneratorRepository extends BaseRepository<CouponCodeGene
     public boolean updateStatusByIdIfLossHeartAndMeetExpectStatus(Long id, CouponCodeGeneratorStatus expected, CouponCodeGeneratorStatus updatedStatus) {
         return this.update(this.getUpdateWrapper()
                 .set(CouponCodeGenerator::getStatus, updatedStatus)
-                .lt(CouponCodeGenerator::getHeartbeatAt, LocalDateTime.now().minus(1, ChronoUnit.MINUTES))
+                .lt(CouponCodeGenerator::getHeartbeatAt, lossHeartBefore())
                 .eq(CouponCodeGenerator::getStatus, expected)
                 .eq(CouponCodeGenerator::getId, id));
     }
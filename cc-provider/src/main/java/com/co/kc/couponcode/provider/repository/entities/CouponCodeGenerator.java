@@ -54,6 +54,31 @@ public class CouponCodeGenerator extends BaseEntity {
      */
     @TableField(value = "cnt")
     private Long cnt;
+    /**
+     * 128位因子modulo为2^bits(m为每个生成器的位置数量)，0-使用m
+     */
+    @TableField(value = "bits")
+    private Integer bits;
+    /**
+     * 128位因子multi高64位(a为低64位)
+     */
+    @TableField(value = "a_high")
+    private Long aHigh;
+    /**
+     * 128位因子addend高64位(c为低64位)
+     */
+    @TableField(value = "c_high")
+    private Long cHigh;
+    /**
+     * 128位因子x0高64位(x0为低64位)
+     */
+    @TableField(value = "x0_high")
+    private Long x0High;
+    /**
+     * 128位因子xn高64位(xn为低64位)
+     */
+    @TableField(value = "xn_high")
+    private Long xnHigh;
     /**
      * 状态 0-未知 1-待激活 2-激活中 3-已失效
      */
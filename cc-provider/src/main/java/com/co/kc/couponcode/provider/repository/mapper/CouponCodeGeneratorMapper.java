@@ -32,4 +32,31 @@ public interface CouponCodeGeneratorMapper extends BaseMapper<CouponCodeGenerato
      */
     @Update("UPDATE `coupon_code_generator` SET `xn` = #{xn}, `cnt` = `cnt` + #{delta}, `status` = #{status} WHERE no = #{no}")
     int updateCodeGenByNo(@Param("no") Long no, @Param("xn") Long xn, @Param("delta") Long delta, @Param("status") Integer status);
+
+    /**
+     * 更新128位code gen state
+     *
+     * @param no     No
+     * @param xnHigh Xn高64位
+     * @param xn     Xn低64位
+     * @param delta  递增量
+     * @param status 状态
+     * @return 更新数量
+     */
+    @Update("UPDATE `coupon_code_generator` SET `xn_high` = #{xnHigh}, `xn` = #{xn}, `cnt` = `cnt` + #{delta}, `status` = #{status} WHERE no = #{no}")
+    int updateWideCodeGenByNo(@Param("no") Long no, @Param("xnHigh") Long xnHigh, @Param("xn") Long xn, @Param("delta") Long delta, @Param("status") Integer status);
+
+    /**
+     * 修复code gen state，仅当xn、cnt未被其他实例更新时生效
+     *
+     * @param no        No
+     * @param expectXn  审计时的Xn
+     * @param expectCnt 审计时的xn数量
+     * @param xn        修复后的Xn
+     * @param cnt       修复后的xn数量
+     * @return 更新数量
+     */
+    @Update("UPDATE `coupon_code_generator` SET `xn` = #{xn}, `cnt` = #{cnt} WHERE no = #{no} AND `xn` = #{expectXn} AND `cnt` = #{expectCnt}")
+    int repairCodeGenByNo(@Param("no") Long no, @Param("expectXn") Long expectXn, @Param("expectCnt") Long expectCnt,
+                          @Param("xn") Long xn, @Param("cnt") Long cnt);
 }
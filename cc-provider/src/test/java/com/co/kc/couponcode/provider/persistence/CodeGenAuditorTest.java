@@ -0,0 +1,163 @@
+package com.co.kc.couponcode.provider.persistence;
+
+import com.co.kc.couponcode.core.algo.DecimalLcgFactor;
+import com.co.kc.couponcode.core.algo.Lcg;
+import com.co.kc.couponcode.core.algo.LcgFactor;
+import com.co.kc.couponcode.core.model.ICodeEngine;
+import com.co.kc.couponcode.core.model.IFactor;
+import com.co.kc.couponcode.provider.repository.dao.CouponCodeGeneratorRepository;
+import com.co.kc.couponcode.provider.repository.entities.CouponCodeGenerator;
+import com.co.kc.couponcode.provider.repository.enums.CouponCodeGeneratorStatus;
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.stubbing.Answer;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CodeGenAuditorTest {
+
+    private static final IFactor FACTOR = LcgFactor.PERIOD_8589934592;
+    private static final IFactor DECIMAL_FACTOR = DecimalLcgFactor.PERIOD_100000000;
+
+    @Test
+    public void testAuditAndRepair() {
+        List<CouponCodeGenerator> memoryRepository = new ArrayList<>();
+        for (long no = 1; no <= 10000; no++) {
+            long x0 = RandomUtils.nextLong(1, FACTOR.getM());
+            long cnt = RandomUtils.nextLong(0, FACTOR.getM());
+            memoryRepository.add(generator(no, x0, Lcg.jump(FACTOR, x0, cnt), cnt, CouponCodeGeneratorStatus.INACTIVE));
+        }
+        // cnt少计
+        CouponCodeGenerator lostCnt = memoryRepository.get(1);
+        lostCnt.setCnt(lostCnt.getCnt() - 100);
+        long lostCntExpected = lostCnt.getCnt() + 100;
+        // xn未写入
+        CouponCodeGenerator lostXn = memoryRepository.get(2);
+        long lostXnExpected = lostXn.getXn();
+        lostXn.setXn(Lcg.jump(FACTOR, lostXn.getX0(), lostXn.getCnt() - 5));
+        // 激活中的生成器只审计不修复
+        CouponCodeGenerator activated = memoryRepository.get(3);
+        activated.setStatus(CouponCodeGeneratorStatus.ACTIVATED);
+        activated.setHeartbeatAt(LocalDateTime.now());
+        activated.setCnt(activated.getCnt() + 1);
+
+        CodeGenAuditor auditor = new CodeGenAuditor(Collections.singletonList(FACTOR), getMockRepository(memoryRepository));
+        CodeGenAuditor.AuditReport report = auditor.audit(CodeGenAuditor.RepairMode.NONE);
+        Assert.assertEquals(10000, report.getTotal());
+        Assert.assertEquals(3, report.getMismatches().size());
+        Assert.assertEquals(0, report.getRepaired());
+        for (CodeGenAuditor.AuditResult result : report.getMismatches()) {
+            if (result.getNo() == lostCnt.getNo()) {
+                Assert.assertEquals(lostCntExpected, result.getExpectedCnt());
+            }
+        }
+
+        report = auditor.audit(CodeGenAuditor.RepairMode.CNT);
+        Assert.assertEquals(2, report.getRepaired());
+        Assert.assertEquals(lostCntExpected, (long) lostCnt.getCnt());
+        Assert.assertEquals(Lcg.jump(FACTOR, lostXn.getX0(), lostXn.getCnt()), (long) lostXn.getXn());
+
+        // 恢复后再按cnt修复xn
+        lostXn.setCnt(lostXn.getCnt() + 5);
+        report = auditor.audit(CodeGenAuditor.RepairMode.XN);
+        Assert.assertEquals(2, report.getMismatches().size());
+        Assert.assertEquals(1, report.getRepaired());
+        Assert.assertEquals(lostXnExpected, (long) lostXn.getXn());
+
+        report = auditor.audit(CodeGenAuditor.RepairMode.NONE);
+        Assert.assertEquals(1, report.getMismatches().size());
+        Assert.assertEquals((long) activated.getNo(), report.getMismatches().get(0).getNo());
+        Assert.assertNull(report.getMismatches().get(0).getReason());
+        report = auditor.audit(CodeGenAuditor.RepairMode.XN);
+        Assert.assertEquals("生成器激活中", report.getMismatches().get(0).getReason());
+    }
+
+    @Test
+    public void testAuditAllFactors() {
+        List<CouponCodeGenerator> memoryRepository = new ArrayList<>();
+        // 心跳超时的激活中生成器(所属实例已失联)可以修复
+        long x0 = RandomUtils.nextLong(1, FACTOR.getM());
+        CouponCodeGenerator stale = generator(FACTOR, 1, x0, Lcg.jump(FACTOR, x0, 1000), 999, CouponCodeGeneratorStatus.ACTIVATED);
+        stale.setHeartbeatAt(LocalDateTime.now().minus(10, ChronoUnit.MINUTES));
+        memoryRepository.add(stale);
+        // 十进制Factor的生成器按自己的(a, c, m)审计，不支持反推步数
+        ICodeEngine decimalEngine = DECIMAL_FACTOR.getEngine();
+        x0 = RandomUtils.nextLong(1, DECIMAL_FACTOR.getM());
+        long decimalXn = decimalEngine.jump(x0, 500);
+        CouponCodeGenerator decimal = generator(DECIMAL_FACTOR, 2, x0, decimalXn, 499, CouponCodeGeneratorStatus.INACTIVE);
+        memoryRepository.add(decimal);
+        memoryRepository.add(generator(DECIMAL_FACTOR, 3, x0, decimalXn, 500, CouponCodeGeneratorStatus.INACTIVE));
+        // 未知的Factor
+        CouponCodeGenerator unknown = generator(FACTOR, 4, x0, x0, 0, CouponCodeGeneratorStatus.INACTIVE);
+        unknown.setA(FACTOR.getA() + 2);
+        memoryRepository.add(unknown);
+
+        CodeGenAuditor auditor = new CodeGenAuditor(Arrays.asList(FACTOR, DECIMAL_FACTOR), getMockRepository(memoryRepository));
+        CodeGenAuditor.AuditReport report = auditor.audit(CodeGenAuditor.RepairMode.CNT);
+        Assert.assertEquals(4, report.getTotal());
+        Assert.assertEquals(3, report.getMismatches().size());
+        Assert.assertEquals(1, report.getRepaired());
+        Assert.assertEquals(1000L, (long) stale.getCnt());
+        Map<Long, CodeGenAuditor.AuditResult> results = report.getMismatches().stream()
+                .collect(Collectors.toMap(CodeGenAuditor.AuditResult::getNo, result -> result));
+        Assert.assertTrue(results.get(1L).isRepaired());
+        Assert.assertEquals(-1L, results.get(2L).getExpectedCnt());
+        Assert.assertEquals("运算引擎不支持反推步数，无法按CNT修复", results.get(2L).getReason());
+        Assert.assertEquals("未知的Factor", results.get(4L).getReason());
+
+        // 十进制Factor按cnt修复xn
+        report = auditor.audit(CodeGenAuditor.RepairMode.XN);
+        Assert.assertEquals(1, report.getRepaired());
+        Assert.assertEquals(decimalEngine.jump(x0, 499), (long) decimal.getXn());
+    }
+
+    private static CouponCodeGenerator generator(long no, long x0, long xn, long cnt, CouponCodeGeneratorStatus status) {
+        return generator(FACTOR, no, x0, xn, cnt, status);
+    }
+
+    private static CouponCodeGenerator generator(IFactor factor, long no, long x0, long xn, long cnt, CouponCodeGeneratorStatus status) {
+        CouponCodeGenerator generator = new CouponCodeGenerator();
+        generator.setId(no);
+        generator.setNo(no);
+        generator.setA(factor.getA());
+        generator.setC(factor.getC());
+        generator.setM(factor.getM());
+        generator.setX0(x0);
+        generator.setXn(xn);
+        generator.setCnt(cnt);
+        generator.setStatus(status);
+        return generator;
+    }
+
+    private CouponCodeGeneratorRepository getMockRepository(List<CouponCodeGenerator> memoryRepository) {
+        CouponCodeGeneratorRepository mockRepository = mock(CouponCodeGeneratorRepository.class);
+        when(mockRepository.getAllList()).thenReturn(memoryRepository);
+        when(mockRepository.repairCodeGenByNo(anyLong(), anyLong(), anyLong(), anyLong(), anyLong()))
+                .thenAnswer((Answer<Boolean>) invocation -> {
+                    Long no = invocation.getArgument(0, Long.class);
+                    for (CouponCodeGenerator generator : memoryRepository) {
+                        if (no.equals(generator.getNo())) {
+                            synchronized (memoryRepository) {
+                                if (!generator.getXn().equals(invocation.getArgument(1, Long.class))
+                                        || !generator.getCnt().equals(invocation.getArgument(2, Long.class))) {
+                                    return false;
+                                }
+                                generator.setXn(invocation.getArgument(3, Long.class));
+                                generator.setCnt(invocation.getArgument(4, Long.class));
+                                return true;
+                            }
+                        }
+                    }
+                    return false;
+                });
+        return mockRepository;
+    }
+}
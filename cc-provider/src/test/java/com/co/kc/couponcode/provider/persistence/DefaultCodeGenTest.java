@@ -2,6 +2,8 @@ package com.co.kc.couponcode.provider.persistence;
 
 import com.co.kc.couponcode.core.CouponCodePool;
 import com.co.kc.couponcode.core.algo.Lcg;
+import com.co.kc.couponcode.core.algo.Lcg128;
+import com.co.kc.couponcode.core.algo.Lcg128Factor;
 import com.co.kc.couponcode.core.algo.LcgFactor;
 import com.co.kc.couponcode.core.model.IFactor;
 import com.co.kc.couponcode.core.persistence.ICodeGen;
@@ -16,6 +18,7 @@ import org.mockito.stubbing.Answer;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicLong;
@@ -23,6 +26,7 @@ import java.util.stream.Collectors;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class DefaultCodeGenTest {
@@ -193,6 +197,151 @@ public class DefaultCodeGenTest {
         Assert.assertEquals(CouponCodeGeneratorStatus.INVALID, inactiveGenerator.getStatus());
     }
 
+    @Test
+    public void testWideFactor() {
+        Lcg128Factor factor = Lcg128Factor.PERIOD_79228162514264337593543950336;
+        CopyOnWriteArrayList<CouponCodeGenerator> memoryRepository = new CopyOnWriteArrayList<>();
+        // 位置迭代参数相同的非128位生成器不会被占用
+        CouponCodeGenerator narrowGenerator = new CouponCodeGenerator();
+        narrowGenerator.setId(1L);
+        narrowGenerator.setNo(1L);
+        narrowGenerator.setX0(X0);
+        narrowGenerator.setXn(X0);
+        narrowGenerator.setCnt(0L);
+        narrowGenerator.setA(factor.getA());
+        narrowGenerator.setC(factor.getC());
+        narrowGenerator.setM(factor.getM());
+        narrowGenerator.setStatus(CouponCodeGeneratorStatus.INACTIVE);
+        narrowGenerator.setHeartbeatAt(LocalDateTime.now());
+        memoryRepository.add(narrowGenerator);
+
+        CouponCodeGeneratorRepository mockRepository = getMockRepository(memoryRepository, 2, 2);
+        ICodeGen codeGen = new DefaultCodeGen(factor, mockRepository);
+        codeGen.select();
+        Assert.assertEquals(CouponCodeGeneratorStatus.INACTIVE, narrowGenerator.getStatus());
+        Assert.assertEquals(2, memoryRepository.size());
+
+        // 新建的生成器保存128位参数与x0，券码池中的x0、xn为位置
+        CouponCodeGenerator wideGenerator = memoryRepository.get(1);
+        long[] x0 = Lcg128.locate(factor, 2L, 0L);
+        Assert.assertEquals(Integer.valueOf(factor.getBits()), wideGenerator.getBits());
+        Assert.assertEquals(Long.valueOf(factor.getAHigh()), wideGenerator.getAHigh());
+        Assert.assertEquals(Long.valueOf(factor.getALow()), wideGenerator.getA());
+        Assert.assertEquals(Long.valueOf(factor.getCHigh()), wideGenerator.getCHigh());
+        Assert.assertEquals(Long.valueOf(factor.getCLow()), wideGenerator.getC());
+        Assert.assertEquals(Long.valueOf(x0[0]), wideGenerator.getX0High());
+        Assert.assertEquals(Long.valueOf(x0[1]), wideGenerator.getX0());
+        Assert.assertEquals(0L, codeGen.getX0().getCode());
+        Assert.assertEquals(0L, codeGen.getXn().getCode());
+
+        // 刷新时将位置换算为128位状态
+        codeGen.flush(2L, new CouponCodePool.PoolCode(2L, 100L, factor.getFormat()), 100L);
+        long[] xn = Lcg128.locate(factor, 2L, 100L);
+        Assert.assertEquals(Long.valueOf(xn[0]), wideGenerator.getXnHigh());
+        Assert.assertEquals(Long.valueOf(xn[1]), wideGenerator.getXn());
+        Assert.assertEquals(Long.valueOf(100L), wideGenerator.getCnt());
+        Assert.assertEquals(CouponCodeGeneratorStatus.ACTIVATED, wideGenerator.getStatus());
+
+        // 再次占用时从位置cnt继续
+        wideGenerator.setStatus(CouponCodeGeneratorStatus.INACTIVE);
+        ICodeGen another = new DefaultCodeGen(factor, mockRepository);
+        another.select();
+        Assert.assertEquals(Long.valueOf(2L), another.getNo());
+        Assert.assertEquals(100L, another.getXn().getCode());
+        Assert.assertEquals(2, memoryRepository.size());
+    }
+
+    @Test
+    public void testDerivedFactorIsCachedPerNo() {
+        CopyOnWriteArrayList<CouponCodeGenerator> memoryRepository = new CopyOnWriteArrayList<>();
+        CouponCodeGeneratorRepository mockRepository = getMockRepository(memoryRepository, 1, 1);
+        AtomicLong derived = new AtomicLong();
+        IFactor keyedFactor = new IFactor() {
+            @Override
+            public long getA() {
+                return FACTOR.getA();
+            }
+
+            @Override
+            public long getC() {
+                return FACTOR.getC();
+            }
+
+            @Override
+            public long getM() {
+                return FACTOR.getM();
+            }
+
+            @Override
+            public String getFormat() {
+                return FACTOR.getFormat();
+            }
+
+            @Override
+            public IFactor withNo(long no) {
+                derived.incrementAndGet();
+                return FACTOR;
+            }
+        };
+        ICodeGen codeGen = new DefaultCodeGen(keyedFactor, mockRepository);
+        codeGen.select();
+
+        // 每次刷新不再重新派生因子与构建引擎
+        Assert.assertSame(FACTOR, codeGen.getFactor());
+        for (int i = 0; i < 3; i++) {
+            Assert.assertTrue(codeGen.flush(1L, new CouponCodePool.PoolCode(1, XN, FACTOR.getFormat()), 1L));
+        }
+        Assert.assertSame(FACTOR, codeGen.getFactor());
+        Assert.assertEquals(1L, derived.get());
+    }
+
+    @Test
+    public void testSelectPreparedStandby() {
+        CopyOnWriteArrayList<CouponCodeGenerator> memoryRepository = new CopyOnWriteArrayList<>();
+        CouponCodeGeneratorRepository mockRepository = getMockRepository(memoryRepository, 1, 1);
+        ICodeGen codeGen = new DefaultCodeGen(LcgFactor.PERIOD_8589934592, mockRepository);
+
+        codeGen.select();
+        Assert.assertEquals(Long.valueOf(1L), codeGen.getNo());
+
+        // 备用生成器已占用，但不切换
+        Assert.assertTrue(codeGen.prepare());
+        Assert.assertTrue(codeGen.prepare());
+        Assert.assertEquals(2, memoryRepository.size());
+        Assert.assertEquals(CouponCodeGeneratorStatus.ACTIVATED, memoryRepository.get(1).getStatus());
+        Assert.assertEquals(Long.valueOf(1L), codeGen.getNo());
+
+        // 切换至备用生成器，不再新建
+        codeGen.select();
+        Assert.assertEquals(Long.valueOf(2L), codeGen.getNo());
+        Assert.assertEquals(memoryRepository.get(1).getX0(), Long.valueOf(codeGen.getX0().getCode()));
+        Assert.assertEquals(2, memoryRepository.size());
+    }
+
+    @Test
+    public void testPrepareRacingDestroy() {
+        CopyOnWriteArrayList<CouponCodeGenerator> memoryRepository = new CopyOnWriteArrayList<>();
+        CouponCodeGeneratorRepository mockRepository = getMockRepository(memoryRepository, 1, 1);
+        ICodeGen codeGen = new DefaultCodeGen(LcgFactor.PERIOD_8589934592, mockRepository);
+        codeGen.select();
+
+        // 占用备用生成器期间销毁，占用的备用生成器随即释放
+        AtomicLong noIndex = new AtomicLong(2);
+        when(mockRepository.getNextNo()).thenAnswer((Answer<Long>) invocation -> {
+            codeGen.destroy();
+            return noIndex.getAndIncrement();
+        });
+        Assert.assertTrue(codeGen.prepare());
+        Assert.assertEquals(2, memoryRepository.size());
+        Assert.assertTrue(codeGen.getOccupiedNoList().isEmpty());
+        verify(mockRepository).updateStatusByNoIfExpectStatus(
+                Collections.singleton(2L), CouponCodeGeneratorStatus.ACTIVATED, CouponCodeGeneratorStatus.INACTIVE);
+
+        // 销毁后不再占用
+        Assert.assertFalse(codeGen.prepare());
+        Assert.assertEquals(2, memoryRepository.size());
+    }
+
     private CouponCodeGeneratorRepository getMockRepository(CopyOnWriteArrayList<CouponCodeGenerator> memoryRepository, int startId, int startNo) {
         AtomicLong idIndex = new AtomicLong(startId);
         AtomicLong noIndex = new AtomicLong(startNo);
@@ -296,6 +445,25 @@ public class DefaultCodeGenTest {
                     }
                     return true;
                 });
+        when(mockRepository.updateWideCodeGenByNo(anyLong(), anyLong(), anyLong(), anyLong(), anyInt()))
+                .thenAnswer((Answer<Boolean>) invocation -> {
+                    Long no = invocation.getArgument(0, Long.class);
+                    Long xnHigh = invocation.getArgument(1, Long.class);
+                    Long xn = invocation.getArgument(2, Long.class);
+                    Long delta = invocation.getArgument(3, Long.class);
+                    Integer status = invocation.getArgument(4, Integer.class);
+                    for (CouponCodeGenerator couponCodeGenerator : memoryRepository) {
+                        if (no.equals(couponCodeGenerator.getNo())) {
+                            couponCodeGenerator.setXnHigh(xnHigh);
+                            couponCodeGenerator.setXn(xn);
+                            couponCodeGenerator.setCnt(couponCodeGenerator.getCnt() + delta);
+                            //noinspection OptionalGetWithoutIsPresent
+                            couponCodeGenerator.setStatus(CouponCodeGeneratorStatus.getEnum(status).get());
+                            break;
+                        }
+                    }
+                    return true;
+                });
 
         return mockRepository;
     }
@@ -13,6 +13,11 @@ CREATE TABLE `coupon_code_generator`
     `x0`           BIGINT           NOT NULL DEFAULT -1 COMMENT 'x0',
     `xn`           BIGINT           NOT NULL DEFAULT -1 COMMENT 'xn',
     `cnt`          BIGINT UNSIGNED  NOT NULL DEFAULT 0 COMMENT 'xn数量',
+    `bits`         TINYINT UNSIGNED NOT NULL DEFAULT 0 COMMENT '128位因子modulo为2^bits(m为每个生成器的位置数量)，0-使用m',
+    `a_high`       BIGINT           NOT NULL DEFAULT 0 COMMENT '128位因子multiplier高64位(a为低64位)',
+    `c_high`       BIGINT           NOT NULL DEFAULT 0 COMMENT '128位因子addend高64位(c为低64位)',
+    `x0_high`      BIGINT           NOT NULL DEFAULT 0 COMMENT '128位因子x0高64位(x0为低64位)',
+    `xn_high`      BIGINT           NOT NULL DEFAULT 0 COMMENT '128位因子xn高64位(xn为低64位)',
     `status`       TINYINT UNSIGNED NOT NULL DEFAULT 0 COMMENT '状态 0-未知 1-待激活 2-激活中 3-已失效',
     `heartbeat_at` DATETIME         NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '心跳时间',
     `created_at`   DATETIME         NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',